@@ -1,73 +1,193 @@
 package data_containers;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Stores the association between the internal
- *  document id and the document identifier
+ *  document id and the document identifier.
+ * Document ids are handed out in contiguous ranges, so several
+ *  producers can register documents at the same time, each one
+ *  on its own range. The identifiers are stored on an int array
+ *  indexed by docId - firstDocId, where firstDocId is the first
+ *  document id not yet persisted.
+ * All methods are synchronized. Producers that register documents
+ *  in ranges only take the lock once per range.
  */
 public class DocumentRegistry {
 
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Document id of the identifier on the first position of
+     *  the identifiers array
+     */
+    private int firstDocId;
+
+    /**
+     * Document id that will be given to the next range allocated
+     */
+    private int nextDocId;
+
     /**
-     * Number of documents present on the corpus
+     * Identifiers of the documents not yet persisted
      */
-    protected static int NUMBER_OF_DOCUMENTS = 0;
+    private int[] identifiers;
 
     /**
-     * Associates a document id to an identifier of a document
+     * Document id after the last of the ranges that are all registered,
+     *  counting from firstDocId. Only up to here can be persisted
      */
-    protected Map<Integer, Integer> registry;
+    private int registeredEnd;
 
     /**
-     * Constructor for indexing execution
+     * Ranges registered after registeredEnd, waiting for the ranges
+     *  before them. There are at most as many as there are producers
      */
+    private int[] pendingRangesStart;
+
+    private int[] pendingRangesEnd;
+
+    private int pendingRangesCount;
+
     public DocumentRegistry() {
-        registry = new HashMap<>();
+        firstDocId = 1;
+        nextDocId = 1;
+        registeredEnd = 1;
+
+        identifiers = new int[DEFAULT_CAPACITY];
+
+        pendingRangesStart = new int[4];
+        pendingRangesEnd = new int[4];
+        pendingRangesCount = 0;
     }
 
     /**
-     * Getter for the number of the documents in the corpus
+     * Getter for the number of documents that were given a document id
      */
-    public static int getNumberOfDocuments() {
-        return NUMBER_OF_DOCUMENTS;
+    public synchronized int getNumberOfDocuments() {
+        return nextDocId - 1;
     }
 
     /**
-     * Setter for the number of the documents. Used during the search execution
+     * Reserves a range of contiguous document ids. The identifiers
+     *  of the documents must later be registered with the
+     *  registerDocuments method
+     *
+     * @param count number of document ids to reserve
+     * @return the first document id of the range
      */
-    public static void setNumberOfDocuments(int newNumberOfDocuments) {
-        NUMBER_OF_DOCUMENTS = newNumberOfDocuments;
+    public synchronized int allocateDocIds(int count) {
+        int rangeStart = nextDocId;
+
+        nextDocId += count;
+        ensureCapacity(nextDocId - firstDocId);
+
+        return rangeStart;
     }
 
     /**
-     * Getter for the documentIdentification
+     * Registers the identifiers of a range of documents previously
+     *  reserved with the allocateDocIds method
      *
-     * @return an unmodifiable version of the documentRegistry
+     * @param rangeStart first document id of the range
+     * @param identifiers of the documents, in document id order
+     * @param count number of identifiers of the range
      */
-    public Map<Integer, Integer> getRegistry() {
-        return Collections.unmodifiableMap(registry);
+    public synchronized void registerDocuments(int rangeStart, int[] identifiers, int count) {
+        System.arraycopy(identifiers, 0, this.identifiers, rangeStart - firstDocId, count);
+
+        int rangeEnd = rangeStart + count;
+
+        if (rangeStart != registeredEnd) {
+            // some range before this one is still being registered
+            if (pendingRangesCount == pendingRangesStart.length) {
+                pendingRangesStart = Arrays.copyOf(pendingRangesStart, pendingRangesCount * 2);
+                pendingRangesEnd = Arrays.copyOf(pendingRangesEnd, pendingRangesCount * 2);
+            }
+            pendingRangesStart[pendingRangesCount] = rangeStart;
+            pendingRangesEnd[pendingRangesCount] = rangeEnd;
+            pendingRangesCount++;
+
+            return;
+        }
+
+        registeredEnd = rangeEnd;
+
+        // join the pending ranges that now follow the registered ones
+        boolean joined = true;
+        while (joined) {
+            joined = false;
+
+            for (int i = 0; i < pendingRangesCount; i++) {
+                if (pendingRangesStart[i] == registeredEnd) {
+                    registeredEnd = pendingRangesEnd[i];
+
+                    pendingRangesCount--;
+                    pendingRangesStart[i] = pendingRangesStart[pendingRangesCount];
+                    pendingRangesEnd[i] = pendingRangesEnd[pendingRangesCount];
+
+                    joined = true;
+                    break;
+                }
+            }
+        }
     }
 
     /**
-     * Associates a documentId to a string identifier
+     * Associates a document id to an identifier
      *
      * @param identifier of the document (probably found on the content of the document)
+     * @return the document id given to the document
      */
-    public int registerDocument(Integer identifier) {
-        int docId = ++NUMBER_OF_DOCUMENTS;
+    public synchronized int registerDocument(int identifier) {
+        int docId = allocateDocIds(1);
 
-        registry.put(docId, identifier);
+        identifiers[docId - firstDocId] = identifier;
+        registeredEnd = nextDocId;
 
         return docId;
     }
 
     /**
-     * Resets the document registry internal structures. Used mainly to get same memory back.
+     * Persists the identifiers of the documents registered so far, releasing
+     *  their space. Identifiers of ranges that come after a range that
+     *  is still being registered are kept to be persisted later
+     *
+     * @param persister to where the identifiers are written
+     * @param isLast if it's the last time the registry is persisted.
+     *  All reserved ranges must have been registered
+     * @throws IOException if some error occurs while persisting
+     */
+    public synchronized void persist(DocumentRegistryPersister persister, boolean isLast) throws IOException {
+        if (isLast && registeredEnd != nextDocId) {
+            throw new IllegalStateException(
+                "Document ids from " + registeredEnd + " to " + nextDocId + " weren't registered"
+            );
+        }
+
+        int count = registeredEnd - firstDocId;
+
+        persister.persist(firstDocId, identifiers, 0, count, isLast);
+
+        // move the identifiers not persisted to the beginning
+        System.arraycopy(identifiers, count, identifiers, 0, nextDocId - registeredEnd);
+        firstDocId = registeredEnd;
+    }
+
+    /**
+     * Grows the identifiers array if it can't hold the
+     *  number of identifiers received
      */
-    public void clear() {
-        registry = new HashMap<>();
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > identifiers.length) {
+            identifiers = Arrays.copyOf(
+                identifiers,
+                Math.max(identifiers.length + (identifiers.length >> 1), minCapacity)
+            );
+        }
     }
 
 }
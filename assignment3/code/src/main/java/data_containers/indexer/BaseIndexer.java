@@ -2,24 +2,23 @@ package data_containers.indexer;
 
 import data_containers.indexer.post_indexing_actions.PostIndexingActions;
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.DocumentTerms;
+import data_containers.indexer.structures.TermDictionary;
 import data_containers.indexer.structures.TermInfoBase;
 
-import java.io.Serializable;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Base class of all indexers
  *
- * @param <T> type of the terms
  * @param <W> type of the document weight
  * @param <D> type of the documents
  * @param <I> type of info related to the term
  */
 public abstract class BaseIndexer<
-    T extends Comparable<T> & Serializable,
     W extends Number,
     D extends Document<W>,
     I extends TermInfoBase<W, D>
@@ -30,7 +29,7 @@ public abstract class BaseIndexer<
      * Has the association between terms and the documents that
      *  contains it
      */
-    protected Map<T, I> invertedIndex;
+    protected TermDictionary<I> invertedIndex;
 
     /**
      * Actions to apply before persisting the index to disk
@@ -38,15 +37,32 @@ public abstract class BaseIndexer<
      */
     protected PostIndexingActions<W, D, I> postIndexingActions;
 
+    /**
+     * Terms of the document currently being indexed. Reused
+     *  across documents to avoid allocating a frequencies
+     *  map for each one
+     */
+    protected DocumentTerms documentTerms;
+
     /**
      * Getter for the invertedIndex
      *
      * @return an unmodifiable version of the invertedIndex
      */
-    public Map<T, I> getInvertedIndex() {
+    public Map<String, I> getInvertedIndex() {
         return Collections.unmodifiableMap(invertedIndex);
     }
 
+    /**
+     * Iterates over the entries of the inverted index sorted
+     *  by term, without copying them into a list to sort
+     *
+     * @return iterator over the sorted entries of the inverted index
+     */
+    public Iterator<Map.Entry<String, I>> getSortedEntries() {
+        return invertedIndex.sortedEntries();
+    }
+
     /**
      * Getter for the post indexing actions field
      */
@@ -56,11 +72,12 @@ public abstract class BaseIndexer<
 
     /**
      * Default constructor.
-     * Uses a HashMap for the inverted index
+     * Uses a TermDictionary for the inverted index
      */
     public BaseIndexer() {
-        invertedIndex = new HashMap<>();
+        invertedIndex = new TermDictionary<>();
         postIndexingActions = null;
+        documentTerms = new DocumentTerms();
     }
 
     /**
@@ -71,8 +88,9 @@ public abstract class BaseIndexer<
      *  and before persisting
      */
     public BaseIndexer(PostIndexingActions<W, D, I> postIndexingActions) {
-        this.invertedIndex = new HashMap<>();
+        this.invertedIndex = new TermDictionary<>();
         this.postIndexingActions = postIndexingActions;
+        this.documentTerms = new DocumentTerms();
     }
 
     /**
@@ -83,37 +101,30 @@ public abstract class BaseIndexer<
      * @param terms sequence of terms to index
      */
     public void indexTerms(int documentId, List<String> terms) {
-        Map<String, Integer> frequencies = new HashMap<>();
-
-        for (String term : terms) {
-            if (!frequencies.containsKey(term)) {
-                frequencies.put(term, 0);
-            }
-
-            int currentCount = frequencies.get(term);
-
-            frequencies.put(term, currentCount + 1);
-        }
+        documentTerms.count(terms);
 
         // insert the last parsed document
-        insertDocument(documentId, frequencies);
+        insertDocument(documentId, documentTerms);
     }
 
     /**
      *  Inserts BaseDocument classes on the respective
-     *   posting lists of every term in the frequencies map.
+     *   posting lists of every term of the document.
      *  Method called after calculating the frequencies for each term
      *   for the document with the document id.
      * @param documentId id of the document to index
-     * @param frequencies frequencies for each term present on the document
+     * @param documentTerms terms present on the document and their frequencies.
+     *  Only valid until the next document is indexed
      */
-    protected abstract void insertDocument(int documentId, Map<String, Integer> frequencies);
+    protected abstract void insertDocument(int documentId, DocumentTerms documentTerms);
 
     /**
      * Resets the indexer internal structures. Used mainly to get same memory back.
+     * The arrays of the inverted index are kept to be reused, only
+     *  the term information objects are released
      */
     public void clear() {
-        invertedIndex = new HashMap<>();
+        invertedIndex.reset();
     }
 
 }
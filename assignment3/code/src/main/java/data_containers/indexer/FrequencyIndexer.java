@@ -1,39 +1,37 @@
 package data_containers.indexer;
 
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.DocumentTerms;
 import data_containers.indexer.structures.TermInfoBase;
 
-import java.util.Map;
-
 /**
  * Specific type of indexer that on the list of documents
  *  stores the number of times a specific term appeared for
  *  a given document
  */
 public class FrequencyIndexer extends BaseIndexer<
-    String,
     Integer,
     Document<Integer>,
     TermInfoBase<Integer, Document<Integer>>> {
 
     /**
      *  Inserts BaseDocument classes on the respective
-     *   posting lists of every term in the frequencies map.
+     *   posting lists of every term of the document.
      * @param documentId id of the document to index
-     * @param frequencies frequencies for each term present on the document
+     * @param documentTerms terms present on the document and their frequencies
      */
-    protected void insertDocument(int documentId, Map<String, Integer> frequencies) {
-        frequencies.forEach((term, count) -> {
-            TermInfoBase<Integer, Document<Integer>> termInfo = invertedIndex.get(term);
+    protected void insertDocument(int documentId, DocumentTerms documentTerms) {
+        for (int i = 0; i < documentTerms.size(); i++) {
+            int termId = invertedIndex.addTerm(documentTerms.getTerm(i));
+            TermInfoBase<Integer, Document<Integer>> termInfo = invertedIndex.getValue(termId);
 
             if (termInfo == null) {
                 termInfo = new TermInfoBase<>();
-                invertedIndex.put(term, termInfo);
+                invertedIndex.setValue(termId, termInfo);
             }
 
-            termInfo.addToPostingList(new Document<>(documentId, count));
-        });
-
+            termInfo.addToPostingList(new Document<>(documentId, documentTerms.getFrequency(i)));
+        }
     }
 
 }
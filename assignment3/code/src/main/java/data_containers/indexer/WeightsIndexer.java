@@ -1,12 +1,13 @@
 package data_containers.indexer;
 
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.WeightsPostingList;
 import data_containers.indexer.weights_calculation.indexing.IndexingCalculations;
 
 /**
  * Specific type a indexer with ranking weights
  */
-public class WeightsIndexer extends WeightsIndexerBase<Document<Float>> {
+public class WeightsIndexer extends WeightsIndexerBase<Document<Float>, WeightsPostingList> {
 
     /**
      * Main constructor
@@ -16,11 +17,13 @@ public class WeightsIndexer extends WeightsIndexerBase<Document<Float>> {
     }
 
     @Override
-    public Document<Float> createDocument(int documentId, float weight, String term) {
-        return new Document<>(
-            documentId,
-            weight
-        );
+    protected WeightsPostingList createPostingList() {
+        return new WeightsPostingList();
+    }
+
+    @Override
+    protected void addToPostingList(WeightsPostingList postingList, int documentId, float weight, int termIndex) {
+        postingList.add(documentId, weight);
     }
 
 }
@@ -1,21 +1,24 @@
 package data_containers.indexer;
 
 import data_containers.indexer.post_indexing_actions.CalculateIDFAction;
+import data_containers.indexer.post_indexing_actions.CalculateMaxWeightsAction;
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.DocumentTerms;
+import data_containers.indexer.structures.PostingList;
 import data_containers.indexer.structures.TermInfoWithIDF;
 import data_containers.indexer.weights_calculation.indexing.IndexingCalculations;
 
-import java.util.Map;
-
 /**
  * Specific type of indexer where documents
  *  hold ranking weights
  *
  * @param <D> type of the document
+ * @param <P> type of the primitive posting list
+ *  used to store the documents
  */
-public abstract class WeightsIndexerBase<D extends Document<Float>>
+public abstract class WeightsIndexerBase<D extends Document<Float>, P extends PostingList<D>>
     extends BaseIndexer<
-    String, Float, D, TermInfoWithIDF<Float, D>> {
+    Float, D, TermInfoWithIDF<Float, D>> {
 
     protected IndexingCalculations calculations;
 
@@ -23,40 +26,56 @@ public abstract class WeightsIndexerBase<D extends Document<Float>>
      * Main constructor
      */
     public WeightsIndexerBase(IndexingCalculations calculations) {
-        super(new CalculateIDFAction<>());
+        super(new CalculateIDFAction<Float, D>().andThen(new CalculateMaxWeightsAction<>()));
         this.calculations = calculations;
     }
 
     @Override
-    protected final void insertDocument(int documentId, Map<String, Integer> frequencies) {
-        Map<String, Float> weights = calculations.calculateWeights(frequencies);
+    protected final void insertDocument(int documentId, DocumentTerms documentTerms) {
+        calculations.calculateWeights(documentTerms);
 
-        weights.forEach((term, weight) -> {
-            TermInfoWithIDF<Float, D> termInfo = invertedIndex.get(term);
+        for (int i = 0; i < documentTerms.size(); i++) {
+            int termId = invertedIndex.addTerm(documentTerms.getTerm(i));
+            TermInfoWithIDF<Float, D> termInfo = invertedIndex.getValue(termId);
 
             if (termInfo == null) {
-                termInfo = new TermInfoWithIDF<>();
-                invertedIndex.put(term, termInfo);
+                termInfo = new TermInfoWithIDF<>(createPostingList());
+                invertedIndex.setValue(termId, termInfo);
             }
 
-            termInfo.addToPostingList(
-                createDocument(
-                    documentId,
-                    calculations.applyNormalization(weight),
-                    term
-                )
+            // the posting list was created by the createPostingList method
+            @SuppressWarnings("unchecked")
+            P postingList = (P) termInfo.getPostingList();
+
+            addToPostingList(
+                postingList,
+                documentId,
+                documentTerms.getWeight(i),
+                i
             );
-        });
+        }
     }
 
     /**
      * Indexers implementations of this class should
-     *  implement this method to create their specific document
+     *  implement this method to create the posting list
+     *  of a term that is being indexed for the first time
+     *
+     * @return an empty posting list
+     */
+    protected abstract P createPostingList();
+
+    /**
+     * Indexers implementations of this class should
+     *  implement this method to store a posting of a document
+     *  on their specific posting list
      *
+     * @param postingList posting list of the term
+     * @param documentId id of the document
      * @param weight final document weight (with normalization)
-     * @param term some indexer might need to know to which term
-     *  is the document associated to create the object
+     * @param termIndex index of the term on the documentTerms structure.
+     *  Some indexers might need it to store extra information
      */
-    public abstract D createDocument(int documentId, float weight, String term);
+    protected abstract void addToPostingList(P postingList, int documentId, float weight, int termIndex);
 
 }
@@ -1,6 +1,5 @@
 package data_containers.indexer.post_indexing_actions;
 
-import data_containers.DocumentRegistry;
 import data_containers.indexer.structures.Document;
 import data_containers.indexer.structures.TermInfoWithIDF;
 
@@ -15,10 +14,10 @@ public class CalculateIDFAction<W extends Number, D extends Document<W>> impleme
         W, D, TermInfoWithIDF<W, D>> {
 
     @Override
-    public void apply(TermInfoWithIDF<W, D> termInfo) {
+    public void apply(TermInfoWithIDF<W, D> termInfo, int numberOfDocuments) {
         termInfo.setIdf((float)
             Math.log10((double)
-                DocumentRegistry.getNumberOfDocuments()
+                numberOfDocuments
                 /
                 termInfo.getPostingList().size()
             )
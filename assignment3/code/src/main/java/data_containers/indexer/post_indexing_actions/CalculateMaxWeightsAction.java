@@ -0,0 +1,52 @@
+package data_containers.indexer.post_indexing_actions;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.TermInfoWithIDF;
+
+import java.util.List;
+
+/**
+ * Before persisting an indexer entry to disk calculates
+ *  the maximum weight of each block of postings of the term
+ *
+ * @param <W> type of the weight
+ * @param <D> type of the document class
+ */
+public class CalculateMaxWeightsAction<W extends Number, D extends Document<W>> implements PostIndexingActions<
+        W, D, TermInfoWithIDF<W, D>> {
+
+    @Override
+    public void apply(TermInfoWithIDF<W, D> termInfo, int numberOfDocuments) {
+        termInfo.setBlockMaxWeights(calculateBlockMaxWeights(termInfo.getPostingList()));
+    }
+
+    /**
+     * Calculates the maximum weight of each block of
+     *  PostingList.BLOCK_SIZE postings of a posting list
+     *
+     * @param postingList posting list sorted by document id
+     * @return the maximum weight of each block
+     */
+    public static float[] calculateBlockMaxWeights(List<? extends Document<? extends Number>> postingList) {
+        PostingList<?> primitivePostingList = postingList instanceof PostingList
+            ? (PostingList<?>) postingList
+            : null;
+
+        float[] blockMaxWeights = new float[(postingList.size() + PostingList.BLOCK_SIZE - 1) / PostingList.BLOCK_SIZE];
+
+        for (int i = 0; i < postingList.size(); i++) {
+            float weight = primitivePostingList != null
+                ? primitivePostingList.getWeight(i)
+                : postingList.get(i).getWeight().floatValue();
+
+            int block = i / PostingList.BLOCK_SIZE;
+            if (i % PostingList.BLOCK_SIZE == 0 || weight > blockMaxWeights[block]) {
+                blockMaxWeights[block] = weight;
+            }
+        }
+
+        return blockMaxWeights;
+    }
+
+}
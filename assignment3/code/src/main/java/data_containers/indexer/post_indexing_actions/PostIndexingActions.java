@@ -17,6 +17,24 @@ public interface PostIndexingActions<
     D extends Document<W>,
     I extends TermInfoBase<W, D>> {
 
-    void apply(I termInfo);
+    /**
+     * Applies the action to the information of a term
+     *
+     * @param termInfo information of the term
+     * @param numberOfDocuments number of documents of the corpus
+     */
+    void apply(I termInfo, int numberOfDocuments);
+
+    /**
+     * Creates an action that applies this action and then another one
+     *
+     * @param next action to apply after this one
+     */
+    default PostIndexingActions<W, D, I> andThen(PostIndexingActions<W, D, I> next) {
+        return (termInfo, numberOfDocuments) -> {
+            apply(termInfo, numberOfDocuments);
+            next.apply(termInfo, numberOfDocuments);
+        };
+    }
 
 }
@@ -0,0 +1,96 @@
+package data_containers.indexer.structures;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Posting list kept encoded and decoded one block of
+ *  PostingList.BLOCK_SIZE postings at a time.
+ * The last document id of each block is known without decoding,
+ *  so a reader looking for a document can jump straight to the
+ *  block where it would be, skipping the blocks before.
+ * The list doesn't keep decoded postings, readers decode the blocks
+ *  they need into their own arrays, so the same list can be read by
+ *  several threads at the same time. Getting postings through the
+ *  List interface decodes the block of each posting requested
+ *
+ * @param <D> type of the document
+ */
+public abstract class BlockPostingList<D extends Document<Float>>
+    extends AbstractList<D>
+    implements RandomAccess {
+
+    private final int size;
+
+    /**
+     * Last document id of each block
+     */
+    private final int[] blocksLastDocIds;
+
+    /**
+     * Main constructor
+     *
+     * @param size number of postings
+     * @param blocksLastDocIds last document id of each block
+     */
+    protected BlockPostingList(int size, int[] blocksLastDocIds) {
+        this.size = size;
+        this.blocksLastDocIds = blocksLastDocIds;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getBlocksCount() {
+        return blocksLastDocIds.length;
+    }
+
+    /**
+     * Getter of the last document id of a block, without decoding it
+     *
+     * @param block index of the block
+     */
+    public int getBlockLastDocId(int block) {
+        return blocksLastDocIds[block];
+    }
+
+    /**
+     * Searches for the block where the first posting with a document id
+     *  equal or greater than a target document id is
+     *
+     * @param target document id
+     * @param fromBlock first block to consider
+     * @return the index of the block or the number of blocks if
+     *  all document ids from the first block considered are lower
+     */
+    public int findBlock(int target, int fromBlock) {
+        int low = fromBlock;
+        int high = blocksLastDocIds.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (blocksLastDocIds[middle] < target) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Decodes the document ids and weights of the postings of a block
+     *
+     * @param block index of the block
+     * @param docIds where to store the document ids, with at least PostingList.BLOCK_SIZE positions
+     * @param weights where to store the weights, with at least PostingList.BLOCK_SIZE positions
+     * @return the number of postings of the block
+     */
+    public abstract int decodeBlock(int block, int[] docIds, float[] weights);
+
+}
@@ -0,0 +1,294 @@
+package data_containers.indexer.structures;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable structure that holds the distinct terms of the document
+ *  currently being indexed, their frequencies, their weights and,
+ *  if requested, their positions.
+ * All information is stored on primitive arrays indexed by the
+ *  order in which each term first appeared on the document, which
+ *  are kept between documents, so indexing a document doesn't
+ *  allocate any map or boxed value.
+ * Since it's reused it should not be shared between threads. Each
+ *  indexer holds its own instance.
+ */
+public class DocumentTerms {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Hash table. Each slot holds the index of a term plus
+     *  one or 0 if the slot is empty
+     */
+    private int[] table;
+
+    /**
+     * Mask applied to a hash to get the slot. The table
+     *  length is always a power of two
+     */
+    private int mask;
+
+    /**
+     * Distinct terms of the document
+     */
+    private String[] terms;
+
+    /**
+     * Slot of the hash table used by each term. Used to clear
+     *  only the used slots when moving to the next document
+     */
+    private int[] slots;
+
+    /**
+     * Number of times each term appears on the document
+     */
+    private int[] frequencies;
+
+    /**
+     * Weight of each term on the document
+     */
+    private float[] weights;
+
+    /**
+     * Number of distinct terms of the document
+     */
+    private int size;
+
+    /**
+     * Index of the term of each token of the document,
+     *  used to calculate positions
+     */
+    private int[] tokensTerms;
+
+    /**
+     * Number of tokens of the document
+     */
+    private int tokensCount;
+
+    /**
+     * Positions of all terms. The positions of the term with
+     *  index i are stored starting at positionsOffsets[i] and
+     *  there are frequencies[i] of them
+     */
+    private int[] positions;
+
+    private int[] positionsOffsets;
+
+    /**
+     * The positions are only calculated when requested
+     *  for the current document
+     */
+    private boolean positionsCalculated;
+
+    public DocumentTerms() {
+        table = new int[DEFAULT_CAPACITY * 2];
+        mask = table.length - 1;
+
+        terms = new String[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY];
+        frequencies = new int[DEFAULT_CAPACITY];
+        weights = new float[DEFAULT_CAPACITY];
+        positionsOffsets = new int[DEFAULT_CAPACITY];
+
+        tokensTerms = new int[DEFAULT_CAPACITY];
+        positions = new int[DEFAULT_CAPACITY];
+
+        size = 0;
+        tokensCount = 0;
+    }
+
+    /**
+     * Clears the information of the previous document and counts
+     *  the frequencies of the terms of a new one
+     *
+     * @param tokens sequence of terms of the document
+     */
+    public void count(List<String> tokens) {
+        reset();
+
+        if (tokensTerms.length < tokens.size()) {
+            tokensTerms = new int[tokens.size()];
+        }
+
+        // the tokenizer returns linked lists, so the tokens are
+        //  accessed through the iterator
+        for (String token : tokens) {
+            int termIndex = addTerm(token);
+
+            frequencies[termIndex]++;
+            tokensTerms[tokensCount++] = termIndex;
+        }
+    }
+
+    /**
+     * Getter of the number of distinct terms of the document
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getTerm(int termIndex) {
+        return terms[termIndex];
+    }
+
+    public int getFrequency(int termIndex) {
+        return frequencies[termIndex];
+    }
+
+    public float getWeight(int termIndex) {
+        return weights[termIndex];
+    }
+
+    public void setWeight(int termIndex, float weight) {
+        weights[termIndex] = weight;
+    }
+
+    /**
+     * Getter of the array where the positions of all terms
+     *  are stored. The positions of a term start at the index
+     *  returned by getPositionsOffset and there are as many
+     *  as the frequency of the term
+     */
+    public int[] getPositions() {
+        calculatePositions();
+
+        return positions;
+    }
+
+    /**
+     * Getter of the index of the positions array where the positions
+     *  of a term start
+     *
+     * @param termIndex index of the term
+     */
+    public int getPositionsOffset(int termIndex) {
+        calculatePositions();
+
+        return positionsOffsets[termIndex];
+    }
+
+    /**
+     * Calculates the positions of each term with a counting sort over
+     *  the term of each token: the frequencies give where the positions
+     *  of each term start and the tokens are then placed in order
+     */
+    private void calculatePositions() {
+        if (positionsCalculated) {
+            return;
+        }
+
+        if (positions.length < tokensCount) {
+            positions = new int[tokensCount];
+        }
+
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            positionsOffsets[i] = offset;
+            offset += frequencies[i];
+        }
+
+        // positionsOffsets is used as the insertion index of
+        //  each term and restored after
+        for (int position = 0; position < tokensCount; position++) {
+            positions[positionsOffsets[tokensTerms[position]]++] = position;
+        }
+
+        for (int i = 0; i < size; i++) {
+            positionsOffsets[i] -= frequencies[i];
+        }
+
+        positionsCalculated = true;
+    }
+
+    /**
+     * Searches for a term on the hash table, inserting it
+     *  if it wasn't found
+     *
+     * @return the index of the term
+     */
+    private int addTerm(String term) {
+        int slot = spread(term.hashCode()) & mask;
+
+        int termIndexPlusOne;
+        while ((termIndexPlusOne = table[slot]) != 0) {
+            if (terms[termIndexPlusOne - 1].equals(term)) {
+                return termIndexPlusOne - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == terms.length) {
+            growTerms();
+        }
+
+        int termIndex = size++;
+        terms[termIndex] = term;
+        slots[termIndex] = slot;
+        frequencies[termIndex] = 0;
+        table[slot] = termIndex + 1;
+
+        if (size > table.length >> 1) {
+            growTable();
+        }
+
+        return termIndex;
+    }
+
+    /**
+     * Clears only the slots of the hash table used
+     *  by the previous document
+     */
+    private void reset() {
+        for (int i = 0; i < size; i++) {
+            table[slots[i]] = 0;
+            terms[i] = null;
+        }
+
+        size = 0;
+        tokensCount = 0;
+        positionsCalculated = false;
+    }
+
+    private void growTerms() {
+        int newCapacity = terms.length << 1;
+
+        terms = Arrays.copyOf(terms, newCapacity);
+        slots = Arrays.copyOf(slots, newCapacity);
+        frequencies = Arrays.copyOf(frequencies, newCapacity);
+        weights = Arrays.copyOf(weights, newCapacity);
+        positionsOffsets = Arrays.copyOf(positionsOffsets, newCapacity);
+    }
+
+    /**
+     * Doubles the size of the hash table and reinserts the terms
+     */
+    private void growTable() {
+        table = new int[table.length << 1];
+        mask = table.length - 1;
+
+        for (int termIndex = 0; termIndex < size; termIndex++) {
+            int slot = spread(terms[termIndex].hashCode()) & mask;
+
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            table[slot] = termIndex + 1;
+            slots[termIndex] = slot;
+        }
+    }
+
+    /**
+     * Spreads the bits of the hash since the slot is obtained
+     *  by masking the lower bits
+     */
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+}
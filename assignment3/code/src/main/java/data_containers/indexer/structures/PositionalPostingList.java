@@ -0,0 +1,18 @@
+package data_containers.indexer.structures;
+
+/**
+ * Posting list that can give the positions of a posting
+ *  without creating its document object, so the positions
+ *  are only read for the postings that need them
+ */
+public interface PositionalPostingList {
+
+    /**
+     * Getter of the positions of a posting
+     *
+     * @param index of the posting
+     * @return the positions of the term on the document, sorted
+     */
+    int[] getPositions(int index);
+
+}
@@ -0,0 +1,245 @@
+package data_containers.indexer.structures;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Posting list that stores its documents on growable parallel
+ *  primitive arrays instead of a list of Document objects.
+ * Each posting costs an int and a float instead of a list node,
+ *  a Document object and a boxed weight. Document objects are
+ *  only created when requested through the List interface, so
+ *  code that only needs the document id and weight should use
+ *  the getDocId and getWeight methods
+ *
+ * @param <D> type of the document
+ */
+public abstract class PostingList<D extends Document<Float>>
+    extends AbstractList<D>
+    implements RandomAccess {
+
+    /**
+     * Most terms appear on very few documents, so the arrays
+     *  start small and grow as needed
+     */
+    protected static final int DEFAULT_CAPACITY = 2;
+
+    /**
+     * Number of consecutive postings of a block. Upper bounds
+     *  of the weights are kept per block, to skip blocks that
+     *  can't change the result of a query
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    /**
+     * Document ids of the postings
+     */
+    protected int[] docIds;
+
+    /**
+     * Weights of the postings. Position i is associated
+     *  to the document id on the position i of the docIds array
+     */
+    protected float[] weights;
+
+    /**
+     * Index of the first valid posting on the arrays.
+     * Removing postings from the head of the list only
+     *  moves this index, which is what the merge of the
+     *  SPIMI algorithm does
+     */
+    protected int start;
+
+    /**
+     * Index after the last valid posting on the arrays
+     */
+    protected int end;
+
+    /**
+     * Main constructor
+     *
+     * @param capacity initial number of postings that can be
+     *  stored without growing the arrays
+     */
+    public PostingList(int capacity) {
+        capacity = Math.max(capacity, 1);
+
+        docIds = new int[capacity];
+        weights = new float[capacity];
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * Creates an empty posting list of the same type of
+     *  this posting list
+     *
+     * @param capacity initial capacity of the new posting list
+     */
+    public abstract PostingList<D> emptyCopy(int capacity);
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    /**
+     * Getter of the document id of a posting
+     *
+     * @param index of the posting
+     */
+    public int getDocId(int index) {
+        return docIds[toArrayIndex(index)];
+    }
+
+    /**
+     * Getter of the weight of a posting
+     *
+     * @param index of the posting
+     */
+    public float getWeight(int index) {
+        return weights[toArrayIndex(index)];
+    }
+
+    /**
+     * Appends the document id and weight of a new posting,
+     *  growing the arrays if necessary
+     *
+     * @return the position on the arrays where the posting was stored
+     */
+    protected int appendDocIdAndWeight(int docId, float weight) {
+        if (end == docIds.length) {
+            grow(end + 1);
+        }
+
+        docIds[end] = docId;
+        weights[end] = weight;
+        modCount++;
+
+        return end++;
+    }
+
+    /**
+     * Appends a range of postings of another posting list of the same
+     *  type, copying the arrays instead of creating Document objects.
+     * Descendent classes with more arrays indexed by posting
+     *  should override this method to also copy them
+     *
+     * @param other posting list of the same type of this one
+     * @param fromIndex index of the first posting to append
+     * @param toIndex index after the last posting to append
+     */
+    public void append(PostingList<?> other, int fromIndex, int toIndex) {
+        int count = toIndex - fromIndex;
+        if (end + count > docIds.length) {
+            grow(end + count);
+        }
+
+        System.arraycopy(other.docIds, other.start + fromIndex, docIds, end, count);
+        System.arraycopy(other.weights, other.start + fromIndex, weights, end, count);
+        end += count;
+        modCount++;
+    }
+
+    /**
+     * Increases the capacity of the arrays by half, or to the minimum
+     *  capacity received if that is not enough.
+     * Descendent classes with more arrays indexed by posting
+     *  should override this method to also grow them
+     *
+     * @param minCapacity minimum number of postings to fit on the arrays
+     */
+    protected void grow(int minCapacity) {
+        int newCapacity = Math.max(docIds.length + (docIds.length >> 1), minCapacity);
+
+        docIds = Arrays.copyOf(docIds, newCapacity);
+        weights = Arrays.copyOf(weights, newCapacity);
+    }
+
+    /**
+     * Removes the spare capacity of the arrays.
+     * Descendent classes with more arrays indexed by posting
+     *  should override this method to also trim them
+     */
+    public void trimToSize() {
+        if (start > 0 || end < docIds.length) {
+            docIds = Arrays.copyOfRange(docIds, start, end);
+            weights = Arrays.copyOfRange(weights, start, end);
+            end -= start;
+            start = 0;
+        }
+    }
+
+    /**
+     * Removes a posting. Removing the first posting
+     *  doesn't move any of the other postings
+     */
+    @Override
+    public D remove(int index) {
+        D removed = get(index);
+
+        removeRange(index, index + 1);
+
+        return removed;
+    }
+
+    /**
+     * Removes a range of postings. Ranges at the head of the
+     *  list (the case on the SPIMI merge) are removed just
+     *  by moving the start index
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int removedCount = toIndex - fromIndex;
+        if (removedCount <= 0) {
+            return;
+        }
+
+        if (fromIndex == 0) {
+            start += removedCount;
+        }
+        else {
+            shiftLeft(start + toIndex, removedCount);
+            end -= removedCount;
+        }
+
+        modCount++;
+    }
+
+    /**
+     * Moves all postings from the array index received until
+     *  the end of the list a certain number of positions to the left.
+     * Descendent classes with more arrays indexed by posting
+     *  should override this method to also shift them
+     *
+     * @param fromArrayIndex first array index to move
+     * @param distance number of positions to move
+     */
+    protected void shiftLeft(int fromArrayIndex, int distance) {
+        System.arraycopy(docIds, fromArrayIndex, docIds, fromArrayIndex - distance, end - fromArrayIndex);
+        System.arraycopy(weights, fromArrayIndex, weights, fromArrayIndex - distance, end - fromArrayIndex);
+    }
+
+    @Override
+    public void clear() {
+        start = 0;
+        end = 0;
+        modCount++;
+    }
+
+    /**
+     * Converts an index of the list into an index of the arrays
+     *
+     * @param index of the list
+     * @return the respective index on the arrays
+     */
+    protected int toArrayIndex(int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - start));
+        }
+
+        return start + index;
+    }
+
+}
@@ -0,0 +1,527 @@
+package data_containers.indexer.structures;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map between terms and values that uses open addressing
+ *  (linear probing) instead of chained entries.
+ * The characters of all terms are stored on a single char array,
+ *  the arena, and each term gets a dense int id (0, 1, 2, ...) in
+ *  insertion order that can be used to access its value without
+ *  hashing the term again.
+ * The structure can be reused through the reset method, which keeps
+ *  the allocated arrays, avoiding reallocating them after each
+ *  block written to disk during the SPIMI algorithm.
+ *
+ * Iterating over the map (entrySet, values, ...) follows the
+ *  order of the term ids. To iterate in the lexicographic order
+ *  of the terms use the sortedEntries method.
+ *
+ * @param <V> type of the values
+ */
+public class TermDictionary<V> extends AbstractMap<String, V> {
+
+    /**
+     * Maximum fraction of the hash table slots that can be used
+     *  before growing it. Linear probing degrades fast above this
+     */
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Below this size the sort of the term ids uses insertion sort
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Hash table. Each slot holds the term id plus one or
+     *  0 if the slot is empty
+     */
+    private int[] table;
+
+    /**
+     * Mask applied to a hash to get the slot. The table
+     *  length is always a power of two
+     */
+    private int mask;
+
+    /**
+     * Characters of all terms, one after the other
+     */
+    private char[] arena;
+
+    /**
+     * Number of characters used on the arena
+     */
+    private int arenaSize;
+
+    /**
+     * The characters of the term with id i are on the arena between
+     *  the indexes termsOffsets[i] (inclusive) and termsOffsets[i + 1] (exclusive)
+     */
+    private int[] termsOffsets;
+
+    /**
+     * Hash of each term, indexed by the term id. Used to avoid comparing
+     *  characters of terms with different hashes and to grow the table
+     *  without hashing again
+     */
+    private int[] termsHashes;
+
+    /**
+     * Value associated to each term, indexed by the term id
+     */
+    private Object[] values;
+
+    /**
+     * Number of terms stored
+     */
+    private int size;
+
+    public TermDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedTerms number of terms expected to be stored.
+     *  The dictionary grows if more are inserted
+     */
+    public TermDictionary(int expectedTerms) {
+        expectedTerms = Math.max(expectedTerms, 2);
+
+        int tableSize = Integer.highestOneBit((int) Math.ceil(expectedTerms / MAX_LOAD_FACTOR) - 1) << 1;
+
+        table = new int[tableSize];
+        mask = tableSize - 1;
+
+        arena = new char[expectedTerms * 8];
+        arenaSize = 0;
+        termsOffsets = new int[expectedTerms + 1];
+        termsHashes = new int[expectedTerms];
+        values = new Object[expectedTerms];
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Searches for the id of a term
+     *
+     * @param term to search
+     * @return the term id or -1 if the term isn't on the dictionary
+     */
+    public int getTermId(String term) {
+        int hash = term.hashCode();
+
+        int slot = spread(hash) & mask;
+        int termIdPlusOne;
+        while ((termIdPlusOne = table[slot]) != 0) {
+            int termId = termIdPlusOne - 1;
+
+            if (termsHashes[termId] == hash && termEquals(termId, term)) {
+                return termId;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Inserts a term if it isn't already on the dictionary
+     *
+     * @param term to insert
+     * @return the id of the term
+     */
+    public int addTerm(String term) {
+        int hash = term.hashCode();
+
+        int slot = spread(hash) & mask;
+        int termIdPlusOne;
+        while ((termIdPlusOne = table[slot]) != 0) {
+            int termId = termIdPlusOne - 1;
+
+            if (termsHashes[termId] == hash && termEquals(termId, term)) {
+                return termId;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        int termId = appendTerm(term, hash);
+        table[slot] = termId + 1;
+
+        if (size > table.length * MAX_LOAD_FACTOR) {
+            growTable();
+        }
+
+        return termId;
+    }
+
+    /**
+     * Getter of the value associated to a term id
+     *
+     * @param termId id returned by addTerm or getTermId
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(int termId) {
+        checkTermId(termId);
+
+        return (V) values[termId];
+    }
+
+    /**
+     * Associates a value to a term id
+     *
+     * @param termId id returned by addTerm or getTermId
+     * @param value new value of the term
+     * @return the previous value of the term
+     */
+    @SuppressWarnings("unchecked")
+    public V setValue(int termId, V value) {
+        checkTermId(termId);
+
+        V previous = (V) values[termId];
+        values[termId] = value;
+
+        return previous;
+    }
+
+    /**
+     * Builds a String of a term stored on the dictionary
+     *
+     * @param termId id of the term
+     */
+    public String getTerm(int termId) {
+        checkTermId(termId);
+
+        return new String(arena, termsOffsets[termId], termsOffsets[termId + 1] - termsOffsets[termId]);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        int termId = getTermId((String) key);
+
+        return termId == -1 ? null : getValue(termId);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && getTermId((String) key) != -1;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        return setValue(addTerm(key), value);
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    /**
+     * Removes all terms keeping the allocated arrays to be reused.
+     * Only the values are released so they can be garbage collected
+     */
+    public void reset() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, 0, size, null);
+
+        arenaSize = 0;
+        size = 0;
+    }
+
+    /**
+     * Sorts the term ids by the lexicographic order of their terms,
+     *  the same order defined by String.compareTo, without creating
+     *  String objects
+     *
+     * @return array with all term ids sorted
+     */
+    public int[] sortedTermIds() {
+        int[] termIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            termIds[i] = i;
+        }
+
+        mergeSort(Arrays.copyOf(termIds, size), termIds, 0, size);
+
+        return termIds;
+    }
+
+    /**
+     * Iterates over the entries in the lexicographic order of the terms.
+     * Only an array with the sorted term ids is created, so the entries
+     *  don't need to be copied into a list and sorted
+     *
+     * @return iterator over the sorted entries
+     */
+    public Iterator<Map.Entry<String, V>> sortedEntries() {
+        int[] sortedTermIds = sortedTermIds();
+
+        return new Iterator<Map.Entry<String, V>>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < sortedTermIds.length;
+            }
+
+            @Override
+            public Map.Entry<String, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                int termId = sortedTermIds[next++];
+
+                return new SimpleImmutableEntry<>(getTerm(termId), getValue(termId));
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new TermIdsIterator<Map.Entry<String, V>>() {
+                    @Override
+                    protected Map.Entry<String, V> element(int termId) {
+                        return new SimpleImmutableEntry<>(getTerm(termId), getValue(termId));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the values without creating the String of the terms
+     */
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new TermIdsIterator<V>() {
+                    @Override
+                    protected V element(int termId) {
+                        return getValue(termId);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Stores the characters of a new term on the arena and
+     *  assigns it the next term id
+     *
+     * @return the new term id
+     */
+    private int appendTerm(String term, int hash) {
+        int termId = size;
+
+        if (termId == termsHashes.length) {
+            int newCapacity = termsHashes.length + (termsHashes.length >> 1);
+
+            termsHashes = Arrays.copyOf(termsHashes, newCapacity);
+            termsOffsets = Arrays.copyOf(termsOffsets, newCapacity + 1);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        int length = term.length();
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length + (arena.length >> 1), arenaSize + length));
+        }
+
+        term.getChars(0, length, arena, arenaSize);
+        arenaSize += length;
+
+        termsOffsets[termId + 1] = arenaSize;
+        termsHashes[termId] = hash;
+        size++;
+
+        return termId;
+    }
+
+    /**
+     * Doubles the hash table size and reinserts all terms
+     *  using the stored hashes
+     */
+    private void growTable() {
+        int[] newTable = new int[table.length << 1];
+        int newMask = newTable.length - 1;
+
+        for (int termId = 0; termId < size; termId++) {
+            int slot = spread(termsHashes[termId]) & newMask;
+
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+
+            newTable[slot] = termId + 1;
+        }
+
+        table = newTable;
+        mask = newMask;
+    }
+
+    /**
+     * Checks if the characters of a stored term are equal to
+     *  the characters of a String
+     */
+    private boolean termEquals(int termId, String term) {
+        int offset = termsOffsets[termId];
+        int length = termsOffsets[termId + 1] - offset;
+
+        if (length != term.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != term.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares two stored terms the same way String.compareTo does
+     */
+    private int compareTerms(int termId1, int termId2) {
+        int offset1 = termsOffsets[termId1];
+        int length1 = termsOffsets[termId1 + 1] - offset1;
+        int offset2 = termsOffsets[termId2];
+        int length2 = termsOffsets[termId2 + 1] - offset2;
+
+        int minLength = Math.min(length1, length2);
+        for (int i = 0; i < minLength; i++) {
+            char c1 = arena[offset1 + i];
+            char c2 = arena[offset2 + i];
+
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return length1 - length2;
+    }
+
+    /**
+     * Sorts the range [from, to) of the dst array. The src array must
+     *  have the same content as the dst array on that range
+     */
+    private void mergeSort(int[] src, int[] dst, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int termId = dst[i];
+
+                int j = i - 1;
+                while (j >= from && compareTerms(dst[j], termId) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+
+                dst[j + 1] = termId;
+            }
+
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+
+        // sort both halves into the auxiliary array
+        mergeSort(dst, src, from, middle);
+        mergeSort(dst, src, middle, to);
+
+        // and merge them back into the destination
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compareTerms(src[left], src[right]) <= 0)) {
+                dst[i] = src[left++];
+            }
+            else {
+                dst[i] = src[right++];
+            }
+        }
+    }
+
+    private void checkTermId(int termId) {
+        if (termId < 0 || termId >= size) {
+            throw new IndexOutOfBoundsException("Term id: " + termId + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Spreads the bits of the hash since the slot is obtained
+     *  by masking the lower bits
+     */
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Iterator over the term ids by their order
+     *
+     * @param <E> type of the elements returned
+     */
+    private abstract class TermIdsIterator<E> implements Iterator<E> {
+
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return element(next++);
+        }
+
+        /**
+         * Creates the element to return for a term id
+         */
+        protected abstract E element(int termId);
+    }
+
+}
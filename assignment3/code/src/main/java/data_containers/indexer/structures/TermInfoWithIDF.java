@@ -13,6 +13,12 @@ public class TermInfoWithIDF<W extends Number, D extends Document<W>> extends Te
 
     private float idf;
 
+    /**
+     * Maximum weight of each block of PostingList.BLOCK_SIZE postings.
+     *  Upper bounds used to skip documents while searching
+     */
+    private float[] blockMaxWeights;
+
     public TermInfoWithIDF() {
         super();
         idf = 0;
@@ -35,4 +41,17 @@ public class TermInfoWithIDF<W extends Number, D extends Document<W>> extends Te
     public void setIdf(float idf) {
         this.idf = idf;
     }
+
+    /**
+     * Getter of the maximum weight of each block of postings
+     *
+     * @return the maximum weights or null if they weren't calculated
+     */
+    public float[] getBlockMaxWeights() {
+        return blockMaxWeights;
+    }
+
+    public void setBlockMaxWeights(float[] blockMaxWeights) {
+        this.blockMaxWeights = blockMaxWeights;
+    }
 }
@@ -0,0 +1,227 @@
+package data_containers.indexer.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive posting list for documents that hold a weight
+ *  and the positions where the term appeared on the document.
+ * The positions of all postings are packed on a single int array,
+ *  the arena, and each posting knows where its positions start
+ */
+public class WeightsAndPositionsPostingList
+    extends PostingList<DocumentWithInfo<Float, List<Integer>>>
+    implements PositionalPostingList {
+
+    /**
+     * Positions of all postings, one after the other
+     */
+    private int[] positions;
+
+    /**
+     * Number of positions stored on the arena
+     */
+    private int positionsSize;
+
+    /**
+     * The positions of the posting on the array index i are stored
+     *  on the arena between the indexes positionsOffsets[i] (inclusive)
+     *  and positionsOffsets[i + 1] (exclusive)
+     */
+    private int[] positionsOffsets;
+
+    public WeightsAndPositionsPostingList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WeightsAndPositionsPostingList(int capacity) {
+        super(capacity);
+
+        positions = new int[docIds.length];
+        positionsSize = 0;
+        positionsOffsets = new int[docIds.length + 1];
+    }
+
+    @Override
+    public WeightsAndPositionsPostingList emptyCopy(int capacity) {
+        return new WeightsAndPositionsPostingList(capacity);
+    }
+
+    /**
+     * Appends a posting without creating a Document object
+     *
+     * @param docId id of the document
+     * @param weight of the term on the document
+     * @param positions array containing the positions of the term
+     * @param from index of the first position on the positions array
+     * @param count number of positions to copy from the positions array
+     */
+    public void add(int docId, float weight, int[] positions, int from, int count) {
+        ensurePositionsCapacity(positionsSize + count);
+
+        System.arraycopy(positions, from, this.positions, positionsSize, count);
+        positionsSize += count;
+
+        int arrayIndex = appendDocIdAndWeight(docId, weight);
+        positionsOffsets[arrayIndex + 1] = positionsSize;
+    }
+
+    /**
+     * Same as the previous method but the positions come on a list
+     */
+    public void add(int docId, float weight, List<Integer> positions) {
+        ensurePositionsCapacity(positionsSize + positions.size());
+
+        for (int position : positions) {
+            this.positions[positionsSize++] = position;
+        }
+
+        int arrayIndex = appendDocIdAndWeight(docId, weight);
+        positionsOffsets[arrayIndex + 1] = positionsSize;
+    }
+
+    @Override
+    public boolean add(DocumentWithInfo<Float, List<Integer>> document) {
+        add(document.getDocId(), document.getWeight(), document.getExtraInfo());
+
+        return true;
+    }
+
+    /**
+     * Getter of the number of positions of a posting
+     *
+     * @param index of the posting
+     */
+    public int getPositionsCount(int index) {
+        int arrayIndex = toArrayIndex(index);
+
+        return positionsOffsets[arrayIndex + 1] - positionsOffsets[arrayIndex];
+    }
+
+    /**
+     * Getter of a position of a posting
+     *
+     * @param index of the posting
+     * @param positionIndex index of the position within the posting's positions
+     */
+    public int getPosition(int index, int positionIndex) {
+        return positions[positionsOffsets[toArrayIndex(index)] + positionIndex];
+    }
+
+    @Override
+    public int[] getPositions(int index) {
+        int arrayIndex = toArrayIndex(index);
+
+        return Arrays.copyOfRange(positions, positionsOffsets[arrayIndex], positionsOffsets[arrayIndex + 1]);
+    }
+
+    @Override
+    public DocumentWithInfo<Float, List<Integer>> get(int index) {
+        int arrayIndex = toArrayIndex(index);
+
+        int positionsStart = positionsOffsets[arrayIndex];
+        int positionsEnd = positionsOffsets[arrayIndex + 1];
+        List<Integer> documentPositions = new ArrayList<>(positionsEnd - positionsStart);
+        for (int i = positionsStart; i < positionsEnd; i++) {
+            documentPositions.add(positions[i]);
+        }
+
+        return new DocumentWithInfo<>(docIds[arrayIndex], weights[arrayIndex], documentPositions);
+    }
+
+    /**
+     * Also copies the positions of the postings appended, moving
+     *  their offsets to the end of the arena
+     */
+    @Override
+    public void append(PostingList<?> other, int fromIndex, int toIndex) {
+        WeightsAndPositionsPostingList positional = (WeightsAndPositionsPostingList) other;
+
+        int firstArrayIndex = end;
+        int otherFrom = positional.start + fromIndex;
+        int otherTo = positional.start + toIndex;
+
+        int positionsFrom = positional.positionsOffsets[otherFrom];
+        int positionsCount = positional.positionsOffsets[otherTo] - positionsFrom;
+
+        ensurePositionsCapacity(positionsSize + positionsCount);
+        System.arraycopy(positional.positions, positionsFrom, positions, positionsSize, positionsCount);
+
+        super.append(other, fromIndex, toIndex);
+
+        int shift = positionsSize - positionsFrom;
+        for (int i = otherFrom; i < otherTo; i++) {
+            positionsOffsets[firstArrayIndex + i - otherFrom + 1] = positional.positionsOffsets[i + 1] + shift;
+        }
+        positionsSize += positionsCount;
+    }
+
+    @Override
+    protected void grow(int minCapacity) {
+        super.grow(minCapacity);
+
+        positionsOffsets = Arrays.copyOf(positionsOffsets, docIds.length + 1);
+    }
+
+    /**
+     * Grows the positions arena if it can't hold
+     *  the number of positions received
+     */
+    private void ensurePositionsCapacity(int minCapacity) {
+        if (minCapacity > positions.length) {
+            positions = Arrays.copyOf(
+                positions,
+                Math.max(positions.length + (positions.length >> 1), minCapacity)
+            );
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (start > 0 || end < docIds.length || positionsSize < positions.length) {
+            int firstPosition = positionsOffsets[start];
+
+            positions = Arrays.copyOfRange(positions, firstPosition, positionsSize);
+            positionsSize -= firstPosition;
+
+            int[] newOffsets = new int[end - start + 1];
+            for (int i = start; i <= end; i++) {
+                newOffsets[i - start] = positionsOffsets[i] - firstPosition;
+            }
+            positionsOffsets = newOffsets;
+
+            super.trimToSize();
+        }
+    }
+
+    /**
+     * The positions of the removed postings are dropped from the
+     *  arena: the positions after them are moved back over them
+     *  and the offsets of the postings moved are rebased
+     */
+    @Override
+    protected void shiftLeft(int fromArrayIndex, int distance) {
+        super.shiftLeft(fromArrayIndex, distance);
+
+        int removedPositionsEnd = positionsOffsets[fromArrayIndex];
+        int removedPositionsStart = positionsOffsets[fromArrayIndex - distance];
+        int removedPositions = removedPositionsEnd - removedPositionsStart;
+
+        System.arraycopy(positions, removedPositionsEnd, positions, removedPositionsStart, positionsSize - removedPositionsEnd);
+        positionsSize -= removedPositions;
+
+        for (int i = fromArrayIndex; i <= end; i++) {
+            positionsOffsets[i - distance] = positionsOffsets[i] - removedPositions;
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+
+        positionsSize = 0;
+        positionsOffsets[0] = 0;
+    }
+
+}
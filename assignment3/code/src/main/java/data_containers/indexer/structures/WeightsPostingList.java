@@ -0,0 +1,46 @@
+package data_containers.indexer.structures;
+
+/**
+ * Primitive posting list for documents that only
+ *  hold a weight
+ */
+public class WeightsPostingList extends PostingList<Document<Float>> {
+
+    public WeightsPostingList() {
+        super(DEFAULT_CAPACITY);
+    }
+
+    public WeightsPostingList(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public WeightsPostingList emptyCopy(int capacity) {
+        return new WeightsPostingList(capacity);
+    }
+
+    /**
+     * Appends a posting without creating a Document object
+     *
+     * @param docId id of the document
+     * @param weight of the term on the document
+     */
+    public void add(int docId, float weight) {
+        appendDocIdAndWeight(docId, weight);
+    }
+
+    @Override
+    public boolean add(Document<Float> document) {
+        add(document.getDocId(), document.getWeight());
+
+        return true;
+    }
+
+    @Override
+    public Document<Float> get(int index) {
+        int arrayIndex = toArrayIndex(index);
+
+        return new Document<>(docIds[arrayIndex], weights[arrayIndex]);
+    }
+
+}
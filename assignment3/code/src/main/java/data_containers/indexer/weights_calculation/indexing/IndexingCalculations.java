@@ -1,6 +1,6 @@
 package data_containers.indexer.weights_calculation.indexing;
 
-import java.util.Map;
+import data_containers.indexer.structures.DocumentTerms;
 
 /**
  * Base class to define a variant to calculate weights
@@ -9,16 +9,12 @@ import java.util.Map;
 public interface IndexingCalculations {
 
     /**
-     * Calculates the weights for documents without normalization
+     * Calculates the final weights (with normalization) of the terms
+     *  of a document, storing them on the received structure
      *
-     * @param frequencies natural term frequency for each term
+     * @param documentTerms terms of the document with their
+     *  natural term frequency
      */
-    Map<String, Float> calculateWeights(Map<String, Integer> frequencies);
-
-    /**
-     * Applies normalization to a weight according to the weights calculated
-     *  on the previous "calculateWeights" call
-     */
-    float applyNormalization(float weight);
+    void calculateWeights(DocumentTerms documentTerms);
 
 }
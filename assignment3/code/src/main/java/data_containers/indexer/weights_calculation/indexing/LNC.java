@@ -1,7 +1,6 @@
 package data_containers.indexer.weights_calculation.indexing;
 
-import java.util.HashMap;
-import java.util.Map;
+import data_containers.indexer.structures.DocumentTerms;
 
 /**
  * Calculates the document weights considering:
@@ -13,35 +12,22 @@ import java.util.Map;
  */
 public class LNC implements IndexingCalculations {
 
-    private float cosineNormalization;
-
     @Override
-    public Map<String, Float> calculateWeights(Map<String, Integer> frequencies) {
-        Map<String, Float> weights = new HashMap<>(frequencies.size());
+    public void calculateWeights(DocumentTerms documentTerms) {
+        int size = documentTerms.size();
 
         float weightsSquareSum = 0;
-        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
-            String term = entry.getKey();
-            int wordFrequency = entry.getValue();
-
-            float wordWeight = (float) (1 + Math.log10(wordFrequency));
-            weights.put(term, wordWeight);
-            weightsSquareSum += Math.pow(wordWeight, 2);
-        };
-
-        cosineNormalization = (float) Math.sqrt(weightsSquareSum);
+        for (int i = 0; i < size; i++) {
+            float wordWeight = (float) (1 + Math.log10(documentTerms.getFrequency(i)));
+            documentTerms.setWeight(i, wordWeight);
+            weightsSquareSum += (double) wordWeight * wordWeight;
+        }
 
-        // instead of iterating again over the entries to apply the
-        //  normalization take advantage of the re-iteration that
-        //  the indexing process will do over them to insert into
-        //  the posting lists
+        float cosineNormalization = (float) Math.sqrt(weightsSquareSum);
 
-        return weights;
-    }
-
-    @Override
-    public float applyNormalization(float weight) {
-        return weight / cosineNormalization;
+        for (int i = 0; i < size; i++) {
+            documentTerms.setWeight(i, documentTerms.getWeight(i) / cosineNormalization);
+        }
     }
 
 }
@@ -0,0 +1,311 @@
+package io.data_containers.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sorted dictionary of the terms of an indexer file, giving for each
+ *  term where its entry is on the indexer file, its length in bytes,
+ *  the document frequency and the idf.
+ * Terms are grouped in blocks of BLOCK_SIZE terms and front coded
+ *  inside each block: each term only stores the bytes that differ
+ *  from the previous term. Only the first entry of a block stores
+ *  its offset, the others store the number of bytes between the end
+ *  of the previous entry and themselves, usually the length of the
+ *  entry terminator. The file has:
+ * <ul>
+ *     <li>the blocks. Each entry of a block has VByte length of the prefix shared
+ *      with the previous term (0 for the first of the block), VByte length of the
+ *      rest of the term followed by its bytes, VByte offset of the entry (the gap
+ *      to the previous entry if not the first of the block), VByte length of the
+ *      entry, VByte document frequency and the idf as a 4 bytes float</li>
+ *     <li>the offset of each block on the dictionary file, as 4 bytes ints</li>
+ *     <li>the number of blocks and the number of terms, as 4 bytes ints</li>
+ * </ul>
+ * To search a term the first term of each block is kept decoded, so
+ *  a binary search finds the block and only that block is scanned
+ */
+public class FrontCodedDictionary {
+
+    /**
+     * Suffix of the dictionary files, appended to the
+     *  name of the respective indexer file
+     */
+    public static final String FILE_SUFFIX = ".dict";
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer content;
+
+    private final int[] blocksOffsets;
+
+    /**
+     * First term of each block
+     */
+    private final String[] blocksFirstTerms;
+
+    private final int termsCount;
+
+    /**
+     * Reads a dictionary
+     *
+     * @param content all bytes of a dictionary file
+     */
+    public FrontCodedDictionary(byte[] content) {
+        this.content = ByteBuffer.wrap(content);
+
+        int blocksCount = this.content.getInt(content.length - 2 * Integer.BYTES);
+        termsCount = this.content.getInt(content.length - Integer.BYTES);
+
+        int blocksOffsetsStart = content.length - (2 + blocksCount) * Integer.BYTES;
+
+        blocksOffsets = new int[blocksCount];
+        blocksFirstTerms = new String[blocksCount];
+        for (int i = 0; i < blocksCount; i++) {
+            blocksOffsets[i] = this.content.getInt(blocksOffsetsStart + i * Integer.BYTES);
+
+            ByteBuffer block = this.content.duplicate();
+            block.position(blocksOffsets[i]);
+            VByte.read(block); // shared prefix, always 0
+            int termLength = VByte.read(block);
+            blocksFirstTerms[i] = new String(content, block.position(), termLength, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Getter of the number of terms on the dictionary
+     */
+    public int size() {
+        return termsCount;
+    }
+
+    /**
+     * Searches for a term
+     *
+     * @param term to search
+     * @return the information of the term or null if the term
+     *  isn't on the dictionary
+     */
+    public Entry get(String term) {
+        int block = Arrays.binarySearch(blocksFirstTerms, term);
+        if (block < 0) {
+            // insertion point minus one is the block where the term would be
+            block = -block - 2;
+
+            if (block < 0) {
+                return null;
+            }
+        }
+
+        byte[] target = term.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = content.duplicate();
+        buffer.position(blocksOffsets[block]);
+
+        byte[] current = new byte[Math.max(target.length, 64)];
+        int entryOffset = 0;
+        int blockEnd = Math.min(BLOCK_SIZE, termsCount - block * BLOCK_SIZE);
+
+        for (int i = 0; i < blockEnd; i++) {
+            int sharedPrefix = VByte.read(buffer);
+            int suffixLength = VByte.read(buffer);
+            int termLength = sharedPrefix + suffixLength;
+
+            if (current.length < termLength) {
+                current = Arrays.copyOf(current, termLength);
+            }
+            buffer.get(current, sharedPrefix, suffixLength);
+
+            if (i == 0) {
+                entryOffset = VByte.read(buffer);
+            }
+            else {
+                entryOffset += VByte.read(buffer);
+            }
+            int entryLength = VByte.read(buffer);
+            int documentFrequency = VByte.read(buffer);
+            float idf = buffer.getFloat();
+
+            if (termLength == target.length && equalBytes(current, target, termLength)) {
+                return new Entry(entryOffset, entryLength, documentFrequency, idf);
+            }
+
+            entryOffset += entryLength;
+        }
+
+        return null;
+    }
+
+    private static boolean equalBytes(byte[] a, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Information of a term on the dictionary
+     */
+    public static class Entry {
+
+        private final int offset;
+
+        private final int length;
+
+        private final int documentFrequency;
+
+        private final float idf;
+
+        private Entry(int offset, int length, int documentFrequency, float idf) {
+            this.offset = offset;
+            this.length = length;
+            this.documentFrequency = documentFrequency;
+            this.idf = idf;
+        }
+
+        /**
+         * Getter of the offset of the entry on the indexer file
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Getter of the length in bytes of the entry on the indexer file
+         */
+        public int getLength() {
+            return length;
+        }
+
+        public int getDocumentFrequency() {
+            return documentFrequency;
+        }
+
+        public float getIdf() {
+            return idf;
+        }
+
+    }
+
+    /**
+     * Creates a dictionary from terms added in the order
+     *  their entries were written on the indexer file
+     */
+    public static class Writer {
+
+        private final ByteArrayOutputStream blocks;
+
+        private int[] blocksOffsets;
+
+        private int termsCount;
+
+        private byte[] previousTerm;
+
+        /**
+         * Offset of the end of the previous entry
+         */
+        private int previousEntryEnd;
+
+        public Writer() {
+            blocks = new ByteArrayOutputStream();
+            blocksOffsets = new int[16];
+            termsCount = 0;
+            previousTerm = new byte[0];
+            previousEntryEnd = 0;
+        }
+
+        /**
+         * Adds the next term of the indexer file
+         *
+         * @param term to add
+         * @param entryOffset offset of the entry of the term on the indexer file
+         * @param entryLength length in bytes of the entry of the term
+         * @param documentFrequency document frequency of the term
+         * @param idf of the term
+         */
+        public void add(String term, int entryOffset, int entryLength, int documentFrequency, float idf) {
+            byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+
+            boolean firstOfBlock = termsCount % BLOCK_SIZE == 0;
+
+            int sharedPrefix = 0;
+            if (firstOfBlock) {
+                int block = termsCount / BLOCK_SIZE;
+                if (block == blocksOffsets.length) {
+                    blocksOffsets = Arrays.copyOf(blocksOffsets, block * 2);
+                }
+                blocksOffsets[block] = blocks.size();
+            }
+            else {
+                int maxPrefix = Math.min(previousTerm.length, termBytes.length);
+                while (sharedPrefix < maxPrefix && previousTerm[sharedPrefix] == termBytes[sharedPrefix]) {
+                    sharedPrefix++;
+                }
+            }
+
+            try {
+                VByte.write(blocks, sharedPrefix);
+                VByte.write(blocks, termBytes.length - sharedPrefix);
+                blocks.write(termBytes, sharedPrefix, termBytes.length - sharedPrefix);
+
+                VByte.write(blocks, firstOfBlock ? entryOffset : entryOffset - previousEntryEnd);
+                VByte.write(blocks, entryLength);
+                VByte.write(blocks, documentFrequency);
+                writeInt(blocks, Float.floatToIntBits(idf));
+            } catch (IOException e) {
+                // a ByteArrayOutputStream doesn't throw
+                throw new IllegalStateException(e);
+            }
+
+            previousTerm = termBytes;
+            previousEntryEnd = entryOffset + entryLength;
+            termsCount++;
+        }
+
+        /**
+         * Getter of the number of terms added
+         */
+        public int size() {
+            return termsCount;
+        }
+
+        /**
+         * Writes the dictionary and clears the writer so
+         *  it can be used for the next indexer file
+         *
+         * @param output where to write
+         * @throws IOException if some error occurs while writing
+         */
+        public void writeTo(OutputStream output) throws IOException {
+            int blocksCount = (termsCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+            blocks.writeTo(output);
+            for (int i = 0; i < blocksCount; i++) {
+                writeInt(output, blocksOffsets[i]);
+            }
+            writeInt(output, blocksCount);
+            writeInt(output, termsCount);
+
+            blocks.reset();
+            termsCount = 0;
+            previousTerm = new byte[0];
+            previousEntryEnd = 0;
+        }
+
+        private static void writeInt(OutputStream output, int value) throws IOException {
+            output.write(value >>> 24);
+            output.write(value >>> 16);
+            output.write(value >>> 8);
+            output.write(value);
+        }
+
+    }
+
+}
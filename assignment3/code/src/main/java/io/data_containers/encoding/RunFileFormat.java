@@ -0,0 +1,85 @@
+package io.data_containers.encoding;
+
+/**
+ * Format of the run files, the temporary files written by the SPIMI
+ *  pipelines with the entries of an indexer sorted by term. They are only
+ *  read by the merge, so the weights are kept exact and what is calculated
+ *  during the merge (idf and block maximum weights) isn't written.
+ * A run file starts with a byte with the codec of its content and a byte
+ *  with the type of its posting lists. Without compression the content
+ *  follows as is. With deflate the content is split into blocks, each with
+ *  the size of the content on the block as a 4 bytes int, the size of the
+ *  compressed bytes as a 4 bytes int and the compressed bytes. A block whose
+ *  compression wouldn't save space is stored as is, with both sizes equal.
+ * The content has the entries:
+ * <ul>
+ *     <li>the term: VByte length of its UTF-8 bytes followed by the bytes</li>
+ *     <li>VByte document frequency</li>
+ *     <li>the postings: VByte gap to the previous document id (the first one is
+ *      the document id itself), the weight as a 4 bytes float and, on positional
+ *      posting lists, the VByte number of positions and the VByte gaps between
+ *      positions (the first one is the position itself)</li>
+ * </ul>
+ * After the content comes the sparse index of the entries (RunFileIndex),
+ *  never compressed: the VByte number of entries of the index and, for each
+ *  one, the term as above, the offset on the file of the entry, or of its
+ *  block on compressed files, as a 8 bytes long and the offset of the entry
+ *  on the content of its block as a 4 bytes int. The file ends with the
+ *  offset of the index as a 8 bytes long, which is where the content ends
+ */
+public final class RunFileFormat {
+
+    private RunFileFormat() {}
+
+    /**
+     * Codec of the files whose content isn't compressed
+     */
+    public static final byte NONE = 0;
+
+    /**
+     * Codec of the files whose content is compressed in deflate blocks
+     */
+    public static final byte DEFLATE = 1;
+
+    /**
+     * Size of the header of the file, with the codec and the type
+     */
+    public static final int HEADER_SIZE = 2;
+
+    /**
+     * Size of the footer of the file, with the offset of the index
+     */
+    public static final int FOOTER_SIZE = Long.BYTES;
+
+    /**
+     * Number of entries between the entries on the index
+     */
+    public static final int INDEX_INTERVAL = 128;
+
+    /**
+     * Size of the header of each compressed block
+     */
+    public static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Type of the files whose posting lists only have weights
+     */
+    public static final byte WEIGHTS = 0;
+
+    /**
+     * Type of the files whose posting lists have weights and positions
+     */
+    public static final byte WEIGHTS_AND_POSITIONS = 1;
+
+    /**
+     * Size of the buffers used to write and read run files,
+     *  which is also the maximum content of a compressed block
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of bytes of a VByte encoded int
+     */
+    public static final int MAX_VBYTE_SIZE = 5;
+
+}
@@ -0,0 +1,94 @@
+package io.data_containers.encoding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sparse index of the entries of a run file (RunFileFormat), with the
+ *  term of one of every INDEX_INTERVAL entries and where to start
+ *  reading the file to read that entry.
+ * On files without compression the entry is read from its offset. On
+ *  compressed files the offset is of the block where the entry starts,
+ *  and the entry starts after some bytes of the content of the block
+ */
+public class RunFileIndex {
+
+    private final List<String> terms;
+
+    /**
+     * Offset on the file of each entry, or of its block on compressed files
+     */
+    private long[] offsets;
+
+    /**
+     * Offset of each entry on the content of its block, 0 on files without compression
+     */
+    private int[] contentOffsets;
+
+    public RunFileIndex() {
+        this(16);
+    }
+
+    /**
+     * @param capacity number of entries expected on the index
+     */
+    public RunFileIndex(int capacity) {
+        terms = new ArrayList<>(capacity);
+        offsets = new long[Math.max(1, capacity)];
+        contentOffsets = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds an entry after the ones already on the index
+     *
+     * @param term term of the entry, after the terms already on the index
+     * @param offset offset on the file of the entry or of its block
+     * @param contentOffset offset of the entry on the content of its block
+     */
+    public void add(String term, long offset, int contentOffset) {
+        int index = terms.size();
+        if (index == offsets.length) {
+            offsets = Arrays.copyOf(offsets, index * 2);
+            contentOffsets = Arrays.copyOf(contentOffsets, index * 2);
+        }
+
+        terms.add(term);
+        offsets[index] = offset;
+        contentOffsets[index] = contentOffset;
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    public List<String> getTerms() {
+        return Collections.unmodifiableList(terms);
+    }
+
+    public String getTerm(int index) {
+        return terms.get(index);
+    }
+
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int getContentOffset(int index) {
+        return contentOffsets[index];
+    }
+
+    /**
+     * Finds where to start reading the file to read the entries from a term
+     *
+     * @return the index of the last entry whose term isn't after the
+     *  term received, or 0 if all are after it
+     */
+    public int floor(String term) {
+        int index = Collections.binarySearch(terms, term);
+
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.data_containers.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable byte encoding of non negative integers.
+ * Each byte holds 7 bits of the value, starting with the least
+ *  significant ones, and has its highest bit set if more bytes
+ *  of the same value follow. Small values, like the gaps between
+ *  document ids of a posting list, take a single byte
+ */
+public final class VByte {
+
+    private VByte() {}
+
+    /**
+     * Writes a value to an output stream
+     *
+     * @param output where to write
+     * @param value non negative value to write
+     * @throws IOException if some error occurs while writing
+     */
+    public static void write(OutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.write(value);
+    }
+
+    /**
+     * Writes a value to an array
+     *
+     * @param buffer where to write. Must have space for the encoded value
+     * @param offset index of the array where to write the first byte
+     * @param value non negative value to write
+     * @return the index after the last byte written
+     */
+    public static int write(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[offset++] = (byte) value;
+
+        return offset;
+    }
+
+    /**
+     * Writes a value at the current position of a buffer,
+     *  advancing its position
+     *
+     * @param buffer where to write. Must have space for the encoded value
+     * @param value non negative value to write
+     */
+    public static void write(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a value from the current position of a buffer,
+     *  advancing its position
+     *
+     * @param buffer from where to read
+     * @return the value read
+     */
+    public static int read(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+
+        byte current;
+        do {
+            current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+
+        return value;
+    }
+
+    /**
+     * Number of bytes needed to encode a value
+     *
+     * @param value non negative value
+     */
+    public static int size(int value) {
+        int size = 1;
+
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+}
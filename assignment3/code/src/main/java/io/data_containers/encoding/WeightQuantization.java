@@ -0,0 +1,76 @@
+package io.data_containers.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Stores document weights, which after the cosine normalization
+ *  are between 0 and 1, on an unsigned short. The interval is
+ *  divided in 65535 equal steps, a resolution far higher than
+ *  the three decimal places used by the text format
+ */
+public final class WeightQuantization {
+
+    /**
+     * Number of bytes of a quantized weight
+     */
+    public static final int BYTES = 2;
+
+    private static final int MAX_QUANTIZED = 0xFFFF;
+
+    private WeightQuantization() {}
+
+    /**
+     * Converts a weight to its quantized value. Weights
+     *  outside [0, 1] are clamped
+     *
+     * @param weight to quantize
+     * @return a value between 0 and 65535
+     */
+    public static int quantize(float weight) {
+        if (weight <= 0) {
+            return 0;
+        }
+        if (weight >= 1) {
+            return MAX_QUANTIZED;
+        }
+
+        return Math.round(weight * MAX_QUANTIZED);
+    }
+
+    /**
+     * Converts a quantized value back to a weight
+     *
+     * @param quantized value between 0 and 65535
+     */
+    public static float dequantize(int quantized) {
+        return (float) quantized / MAX_QUANTIZED;
+    }
+
+    /**
+     * Writes a weight quantized, most significant byte first
+     *
+     * @param output where to write
+     * @param weight to write
+     * @throws IOException if some error occurs while writing
+     */
+    public static void write(OutputStream output, float weight) throws IOException {
+        int quantized = quantize(weight);
+
+        output.write(quantized >>> 8);
+        output.write(quantized);
+    }
+
+    /**
+     * Reads a quantized weight from the current position of
+     *  a buffer, advancing its position
+     *
+     * @param buffer from where to read
+     * @return the weight read
+     */
+    public static float read(ByteBuffer buffer) {
+        return dequantize(buffer.getShort() & MAX_QUANTIZED);
+    }
+
+}
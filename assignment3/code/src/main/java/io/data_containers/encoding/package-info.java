@@ -0,0 +1,5 @@
+/**
+ * Encodings shared by the binary persisters
+ *  and loaders of the data_containers
+ */
+package io.data_containers.encoding;
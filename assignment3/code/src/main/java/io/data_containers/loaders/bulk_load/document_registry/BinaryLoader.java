@@ -0,0 +1,46 @@
+package io.data_containers.loaders.bulk_load.document_registry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Document registry bulk loader for the files written by the
+ *  binary persister, where each identifier is written as a
+ *  four byte int.
+ * The files can either be read to an int array or mapped into
+ *  memory, where the identifiers are read from the mapped file
+ *  on every translation
+ */
+public class BinaryLoader extends DocRegBulkLoader {
+
+    /**
+     * If the files are mapped into memory instead of read
+     */
+    private boolean memoryMapped;
+
+    public BinaryLoader(String folder) {
+        this(folder, false);
+    }
+
+    public BinaryLoader(String folder, boolean memoryMapped) {
+        super(folder);
+        this.memoryMapped = memoryMapped;
+    }
+
+    @Override
+    public DocumentRegistry load(String filename, int firstDocId) throws IOException {
+        if (memoryMapped) {
+            return new MappedDocumentRegistry(Paths.get(folder + filename), firstDocId);
+        }
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(Paths.get(folder + filename)));
+
+        int[] translations = new int[content.remaining() / Integer.BYTES];
+        content.asIntBuffer().get(translations);
+
+        return new DocumentRegistry(firstDocId, translations);
+    }
+
+}
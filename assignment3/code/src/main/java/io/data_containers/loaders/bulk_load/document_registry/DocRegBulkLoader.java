@@ -39,23 +39,46 @@ public abstract class DocRegBulkLoader implements BaseLoader {
         /**
          * The original identifier of the documents
          */
-        private Integer[] translations;
+        private int[] translations;
 
-        public DocumentRegistry(int firstDocId, Integer[] translations) {
+        public DocumentRegistry(int firstDocId, int[] translations) {
             this.firstDocId = firstDocId;
             this.translations = translations;
         }
 
+        /**
+         * Constructor for document registries that store
+         *  the identifiers elsewhere
+         */
+        protected DocumentRegistry(int firstDocId) {
+            this.firstDocId = firstDocId;
+        }
+
         /**
          * Translates an internal id to the document's original document.
          * If this document registry doesn't have the translations return null
          */
         public Integer translate(int docId) {
-            if (docId < firstDocId || docId > firstDocId + translations.length) {
+            int index = docId - firstDocId;
+            if (index < 0 || index >= size()) {
                 return null;
             }
 
-            return translations[docId - firstDocId];
+            return identifier(index);
+        }
+
+        /**
+         * Number of identifiers on this document registry
+         */
+        protected int size() {
+            return translations.length;
+        }
+
+        /**
+         * Identifier of the document on a position of this document registry
+         */
+        protected int identifier(int index) {
+            return translations[index];
         }
     }
 }
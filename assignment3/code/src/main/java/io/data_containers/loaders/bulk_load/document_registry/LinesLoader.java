@@ -21,7 +21,7 @@ public class LinesLoader extends DocRegBulkLoader {
 
         return new DocumentRegistry(
             firstDocId,
-            lines.stream().parallel().map(Integer::parseInt).toArray(Integer[]::new)
+            lines.stream().parallel().mapToInt(Integer::parseInt).toArray()
         );
     }
 
@@ -0,0 +1,50 @@
+package io.data_containers.loaders.bulk_load.document_registry;
+
+import org.github.jamm.Unmetered;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary document registry file mapped into memory.
+ * Nothing proportional to the number of documents is kept
+ *  on the heap, the identifiers are read from the mapped file
+ */
+class MappedDocumentRegistry extends DocRegBulkLoader.DocumentRegistry {
+
+    /**
+     * Outside of the heap
+     */
+    @Unmetered
+    private final IntBuffer translations;
+
+    /**
+     * Maps a file written by the binary persister
+     *
+     * @param file binary document registry file. Must have less than 2GB
+     * @param firstDocId to which document id the first identifier is associated to
+     * @throws IOException if some error occurs while mapping the file
+     */
+    MappedDocumentRegistry(Path file, int firstDocId) throws IOException {
+        super(firstDocId);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            translations = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+        }
+    }
+
+    @Override
+    protected int size() {
+        return translations.limit();
+    }
+
+    @Override
+    protected int identifier(int index) {
+        return translations.get(index);
+    }
+
+}
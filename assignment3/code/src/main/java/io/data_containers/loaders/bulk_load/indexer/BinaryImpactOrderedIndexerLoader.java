@@ -0,0 +1,62 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.WeightsPostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Specific type of binary bulk loader for indexer with weights written
+ *  with the impact ordered strategy (BinaryImpactOrderedWeightStrategy).
+ * The posting lists keep the impact order: they are sorted by document id
+ *  only inside each block of PostingList.BLOCK_SIZE postings, and the block
+ *  maximum weights of the term information are the maximum weights of the
+ *  segments. They should only be read sequentially
+ */
+public class BinaryImpactOrderedIndexerLoader extends BinaryWeightsIndexerLoader {
+
+    public BinaryImpactOrderedIndexerLoader(String folder) {
+        super(folder);
+    }
+
+    public BinaryImpactOrderedIndexerLoader(String folder, boolean memoryMapped) {
+        super(folder, memoryMapped);
+    }
+
+    public BinaryImpactOrderedIndexerLoader(String folder, boolean memoryMapped, boolean useDictionary) {
+        super(folder, memoryMapped, useDictionary);
+    }
+
+    @Override
+    protected List<Document<Float>> decodePostings(ByteBuffer postings, int documentFrequency) {
+        WeightsPostingList postingList = new WeightsPostingList(documentFrequency);
+
+        int docId = 0;
+        for (int i = 0; i < documentFrequency; i++) {
+            if (i % PostingList.BLOCK_SIZE == 0) {
+                docId = 0; // each segment starts with a document id instead of a gap
+            }
+            docId += VByte.read(postings);
+
+            postingList.add(docId, WeightQuantization.read(postings));
+        }
+
+        return postingList;
+    }
+
+    /**
+     * Document ids aren't sorted across segments, so the
+     *  skip entries can't be used to find documents and
+     *  all postings are decoded
+     */
+    @Override
+    protected List<Document<Float>> createBlockPostingList(ByteBuffer postings, int documentFrequency,
+                                                           int[] blocksLastDocIds, int[] blocksOffsets) {
+        return decodePostings(postings, documentFrequency);
+    }
+
+}
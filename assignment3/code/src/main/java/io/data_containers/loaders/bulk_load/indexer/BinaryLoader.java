@@ -0,0 +1,186 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.TermInfoWithIDF;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type of indexer bulk loader for the files written with a
+ *  binary weight strategy (BinaryWeightStrategyBase).
+ * On load only the terms and the headers of each entry are read,
+ *  the postings are kept encoded and only decoded when the
+ *  term is requested. Posting lists with more than one block
+ *  stay encoded even then, each block is decoded when read.
+ * The files can either be read entirely to the heap or mapped
+ *  into memory. If mapped, the decoded postings aren't stored on
+ *  the loaded map, they are decoded from the mapped file every
+ *  time the term is requested. The same happens if only the
+ *  dictionaries of the files are loaded
+ *
+ * @param <D> type of the document
+ */
+public abstract class BinaryLoader<D extends Document<Float>>
+    extends IndexerBulkLoader<String, Float, D, TermInfoWithIDF<Float, D>> {
+
+    /**
+     * If the files are mapped into memory instead of read
+     */
+    private boolean memoryMapped;
+
+    public BinaryLoader(String folder) {
+        this(folder, false);
+    }
+
+    public BinaryLoader(String folder, boolean memoryMapped) {
+        this(folder, memoryMapped, false);
+    }
+
+    public BinaryLoader(String folder, boolean memoryMapped, boolean useDictionary) {
+        super(folder, useDictionary);
+        this.memoryMapped = memoryMapped;
+    }
+
+    @Override
+    public Map<String, Object> load(String filename) throws IOException {
+        if (useDictionary) {
+            return loadDictionary(filename, memoryMapped);
+        }
+        else if (memoryMapped) {
+            return new MappedSegment(Paths.get(folder + filename));
+        }
+
+        byte[] content = Files.readAllBytes(Paths.get(folder + filename));
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+
+        Map<String, Object> map = new ConcurrentHashMap<>();
+
+        while (buffer.hasRemaining()) {
+            int termLength = VByte.read(buffer);
+            String term = new String(content, buffer.position(), termLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + termLength);
+
+            int documentFrequency = VByte.read(buffer);
+            float idf = buffer.getFloat();
+            int postingsLength = VByte.read(buffer);
+
+            map.put(term, new EncodedTermInfo(documentFrequency, idf, buffer, buffer.position(), postingsLength));
+
+            buffer.position(buffer.position() + postingsLength);
+        }
+
+        return map;
+    }
+
+    @Override
+    public TermInfoWithIDF<Float, D> getValue(Map<String, Object> loadedMap, String term) {
+        Object value = loadedMap.get(term);
+
+        if (value == null) {
+            return null;
+        }
+
+        // if the value is already in a TermInfoWithIdf object
+        if (value instanceof TermInfoWithIDF) {
+            // return it, the map only ever holds values of this loader's type
+            @SuppressWarnings("unchecked")
+            TermInfoWithIDF<Float, D> termInfo = (TermInfoWithIDF<Float, D>) value;
+
+            return termInfo;
+        }
+        else {
+            // else decode the postings and convert it to a TermInfoWithIdf object
+            TermInfoWithIDF<Float, D> termInfo = decode((EncodedTermInfo) value);
+
+            if (!memoryMapped) {
+                // update the term information from raw data to the term information object
+                loadedMap.put(term, termInfo);
+            }
+
+            return termInfo;
+        }
+    }
+
+    @Override
+    public TermInfoWithIDF<Float, D> decodeEntry(String term, ByteBuffer entry) {
+        int termLength = VByte.read(entry);
+        entry.position(entry.position() + termLength);
+
+        int documentFrequency = VByte.read(entry);
+        float idf = entry.getFloat();
+        int postingsLength = VByte.read(entry);
+
+        return decode(new EncodedTermInfo(documentFrequency, idf, entry, entry.position(), postingsLength));
+    }
+
+    private TermInfoWithIDF<Float, D> decode(EncodedTermInfo encoded) {
+        ByteBuffer postings = encoded.getPostings();
+
+        int blocksCount = (encoded.documentFrequency + PostingList.BLOCK_SIZE - 1) / PostingList.BLOCK_SIZE;
+
+        float[] blockMaxWeights = new float[blocksCount];
+        for (int i = 0; i < blocksCount; i++) {
+            blockMaxWeights[i] = WeightQuantization.read(postings);
+        }
+
+        List<D> postingList;
+        if (blocksCount > 1) {
+            int[] blocksLastDocIds = new int[blocksCount];
+            int[] blocksOffsets = new int[blocksCount];
+            for (int i = 0; i < blocksCount; i++) {
+                blocksLastDocIds[i] = postings.getInt();
+                blocksOffsets[i] = postings.getInt();
+            }
+
+            postingList = createBlockPostingList(
+                postings.slice(),
+                encoded.documentFrequency,
+                blocksLastDocIds,
+                blocksOffsets
+            );
+        }
+        else {
+            postingList = decodePostings(postings, encoded.documentFrequency);
+        }
+
+        TermInfoWithIDF<Float, D> termInfo = new TermInfoWithIDF<>(postingList, encoded.idf);
+        termInfo.setBlockMaxWeights(blockMaxWeights);
+
+        return termInfo;
+    }
+
+    /**
+     * Decodes the postings of a term
+     *
+     * @param postings buffer positioned at the first posting
+     * @param documentFrequency number of postings
+     * @return the posting list of the term
+     */
+    protected abstract List<D> decodePostings(ByteBuffer postings, int documentFrequency);
+
+    /**
+     * Creates the posting list of a term with more than one block of
+     *  postings, which keeps the postings encoded and decodes only the
+     *  blocks that are read (BlockPostingList)
+     *
+     * @param postings buffer whose position 0 is the first posting
+     * @param documentFrequency number of postings
+     * @param blocksLastDocIds last document id of each block, from the skip entries
+     * @param blocksOffsets offset of the first posting of each block on the
+     *  postings buffer, from the skip entries
+     * @return the posting list of the term
+     */
+    protected abstract List<D> createBlockPostingList(ByteBuffer postings, int documentFrequency,
+                                                      int[] blocksLastDocIds, int[] blocksOffsets);
+
+}
@@ -0,0 +1,62 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Specific type of binary bulk loader for indexer with weights and positions
+ */
+public class BinaryWeightsAndPositionsIndexerLoader extends BinaryLoader<DocumentWithInfo<Float, List<Integer>>> {
+
+    public BinaryWeightsAndPositionsIndexerLoader(String folder) {
+        super(folder);
+    }
+
+    public BinaryWeightsAndPositionsIndexerLoader(String folder, boolean memoryMapped) {
+        super(folder, memoryMapped);
+    }
+
+    public BinaryWeightsAndPositionsIndexerLoader(String folder, boolean memoryMapped, boolean useDictionary) {
+        super(folder, memoryMapped, useDictionary);
+    }
+
+    @Override
+    protected List<DocumentWithInfo<Float, List<Integer>>> decodePostings(ByteBuffer postings, int documentFrequency) {
+        WeightsAndPositionsPostingList postingList = new WeightsAndPositionsPostingList(documentFrequency);
+
+        int[] positions = new int[0];
+
+        int docId = 0;
+        for (int i = 0; i < documentFrequency; i++) {
+            docId += VByte.read(postings);
+            float weight = WeightQuantization.read(postings);
+
+            int positionsCount = VByte.read(postings);
+            if (positions.length < positionsCount) {
+                positions = new int[positionsCount];
+            }
+
+            int position = 0;
+            for (int p = 0; p < positionsCount; p++) {
+                position += VByte.read(postings);
+                positions[p] = position;
+            }
+
+            postingList.add(docId, weight, positions, 0, positionsCount);
+        }
+
+        return postingList;
+    }
+
+    @Override
+    protected List<DocumentWithInfo<Float, List<Integer>>> createBlockPostingList(ByteBuffer postings, int documentFrequency,
+                                                                                  int[] blocksLastDocIds, int[] blocksOffsets) {
+        return new EncodedPostingList.WeightsAndPositions(postings, documentFrequency, blocksLastDocIds, blocksOffsets);
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.WeightsPostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Specific type of binary bulk loader for indexer with weights
+ */
+public class BinaryWeightsIndexerLoader extends BinaryLoader<Document<Float>> {
+
+    public BinaryWeightsIndexerLoader(String folder) {
+        super(folder);
+    }
+
+    public BinaryWeightsIndexerLoader(String folder, boolean memoryMapped) {
+        super(folder, memoryMapped);
+    }
+
+    public BinaryWeightsIndexerLoader(String folder, boolean memoryMapped, boolean useDictionary) {
+        super(folder, memoryMapped, useDictionary);
+    }
+
+    @Override
+    protected List<Document<Float>> decodePostings(ByteBuffer postings, int documentFrequency) {
+        WeightsPostingList postingList = new WeightsPostingList(documentFrequency);
+
+        int docId = 0;
+        for (int i = 0; i < documentFrequency; i++) {
+            docId += VByte.read(postings);
+
+            postingList.add(docId, WeightQuantization.read(postings));
+        }
+
+        return postingList;
+    }
+
+    @Override
+    protected List<Document<Float>> createBlockPostingList(ByteBuffer postings, int documentFrequency,
+                                                           int[] blocksLastDocIds, int[] blocksOffsets) {
+        return new EncodedPostingList.Weights(postings, documentFrequency, blocksLastDocIds, blocksOffsets);
+    }
+
+}
@@ -0,0 +1,141 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import io.data_containers.encoding.FrontCodedDictionary;
+import org.github.jamm.Unmetered;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Indexer file of which only the dictionary is kept in memory.
+ * When a term is requested its entry is searched on the dictionary,
+ *  only the bytes of that entry are read from the indexer file, or
+ *  from the file mapped into memory, and decoded.
+ * Values are returned already decoded and aren't kept, the map
+ *  is read only and can only be accessed by key
+ *
+ * @param <K> type of the keys
+ * @param <I> type of the term information
+ */
+class DictionarySegment<K, I> extends AbstractMap<K, Object> {
+
+    @Unmetered
+    private final Path indexerFile;
+
+    private final FrontCodedDictionary dictionary;
+
+    /**
+     * Indexer file mapped into memory or null if entries
+     *  are read from the file on each request. Outside of the heap
+     */
+    @Unmetered
+    private final MappedByteBuffer content;
+
+    /**
+     * Belongs to the loader, so it isn't part of the memory of the segment
+     */
+    @Unmetered
+    private final BiFunction<K, ByteBuffer, I> decoder;
+
+    /**
+     * Loads the dictionary of an indexer file
+     *
+     * @param indexerFile indexer file. Its dictionary must be on the same folder
+     * @param memoryMapped if the indexer file should be mapped into memory
+     * @param decoder converts the bytes of an entry into the term information
+     * @throws IOException if some error occurs while reading the dictionary
+     */
+    DictionarySegment(Path indexerFile, boolean memoryMapped, BiFunction<K, ByteBuffer, I> decoder) throws IOException {
+        this.indexerFile = indexerFile;
+        this.decoder = decoder;
+        this.dictionary = new FrontCodedDictionary(
+            Files.readAllBytes(Paths.get(indexerFile.toString() + FrontCodedDictionary.FILE_SUFFIX))
+        );
+
+        if (memoryMapped) {
+            try (FileChannel channel = FileChannel.open(indexerFile, StandardOpenOption.READ)) {
+                content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        else {
+            content = null;
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        FrontCodedDictionary.Entry entry = dictionary.get(key.toString());
+
+        if (entry == null) {
+            return null;
+        }
+
+        // the segment is only ever looked up with keys of its own type
+        @SuppressWarnings("unchecked")
+        K segmentKey = (K) key;
+
+        return decoder.apply(segmentKey, readEntry(entry));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return dictionary.get(key.toString()) != null;
+    }
+
+    @Override
+    public int size() {
+        return dictionary.size();
+    }
+
+    /**
+     * Iterating would read the entire indexer file, which is
+     *  what the dictionary is meant to avoid
+     */
+    @Override
+    public Set<Map.Entry<K, Object>> entrySet() {
+        throw new UnsupportedOperationException("Entries of a dictionary segment can only be accessed by key");
+    }
+
+    private ByteBuffer readEntry(FrontCodedDictionary.Entry entry) {
+        if (content != null) {
+            ByteBuffer buffer = content.duplicate();
+
+            buffer.position(entry.getOffset());
+            buffer.limit(entry.getOffset() + entry.getLength());
+
+            return buffer;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entry.getLength());
+
+        try (FileChannel channel = FileChannel.open(indexerFile, StandardOpenOption.READ)) {
+            long position = entry.getOffset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file " + indexerFile);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR while reading entry from indexer file " + indexerFile);
+            e.printStackTrace();
+            System.exit(2);
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+}
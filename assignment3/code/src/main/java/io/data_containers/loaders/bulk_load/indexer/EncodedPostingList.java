@@ -0,0 +1,216 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.BlockPostingList;
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.PositionalPostingList;
+import data_containers.indexer.structures.PostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block posting list over the postings of an entry of a binary
+ *  indexer file, using the skip entries of the entry to find
+ *  where each block starts
+ *
+ * @param <D> type of the document
+ */
+abstract class EncodedPostingList<D extends Document<Float>> extends BlockPostingList<D> {
+
+    /**
+     * Buffer whose position 0 is the first posting of the list
+     */
+    private final ByteBuffer postings;
+
+    /**
+     * Offset of the first posting of each block on the postings buffer
+     */
+    private final int[] blocksOffsets;
+
+    /**
+     * Main constructor
+     *
+     * @param postings buffer whose position 0 is the first posting of the list
+     * @param size number of postings
+     * @param blocksLastDocIds last document id of each block
+     * @param blocksOffsets offset of the first posting of each block on the postings buffer
+     */
+    EncodedPostingList(ByteBuffer postings, int size, int[] blocksLastDocIds, int[] blocksOffsets) {
+        super(size, blocksLastDocIds);
+        this.postings = postings;
+        this.blocksOffsets = blocksOffsets;
+    }
+
+    @Override
+    public int decodeBlock(int block, int[] docIds, float[] weights) {
+        ByteBuffer buffer = blockBuffer(block);
+
+        int count = blockSize(block);
+        int docId = block == 0 ? 0 : getBlockLastDocId(block - 1);
+        for (int i = 0; i < count; i++) {
+            docId += VByte.read(buffer);
+
+            docIds[i] = docId;
+            weights[i] = WeightQuantization.read(buffer);
+
+            skipExtraInfo(buffer);
+        }
+
+        return count;
+    }
+
+    @Override
+    public D get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        int block = index / PostingList.BLOCK_SIZE;
+        ByteBuffer buffer = blockBuffer(block);
+
+        int docId = block == 0 ? 0 : getBlockLastDocId(block - 1);
+        for (int i = block * PostingList.BLOCK_SIZE; i < index; i++) {
+            docId += VByte.read(buffer);
+            WeightQuantization.read(buffer);
+            skipExtraInfo(buffer);
+        }
+
+        docId += VByte.read(buffer);
+
+        return readDocument(docId, WeightQuantization.read(buffer), buffer);
+    }
+
+    /**
+     * Creates a buffer positioned after the weight of a posting,
+     *  without decoding the document ids of the previous postings
+     *  of the block
+     *
+     * @param index of the posting
+     */
+    protected ByteBuffer extraInfoBuffer(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        ByteBuffer buffer = blockBuffer(index / PostingList.BLOCK_SIZE);
+
+        for (int i = index - index % PostingList.BLOCK_SIZE; i < index; i++) {
+            VByte.read(buffer);
+            WeightQuantization.read(buffer);
+            skipExtraInfo(buffer);
+        }
+
+        VByte.read(buffer);
+        WeightQuantization.read(buffer);
+
+        return buffer;
+    }
+
+    /**
+     * Creates a buffer positioned at the first posting of a block.
+     *  Each call returns a new buffer
+     */
+    private ByteBuffer blockBuffer(int block) {
+        ByteBuffer buffer = postings.duplicate();
+        buffer.position(blocksOffsets[block]);
+
+        return buffer;
+    }
+
+    private int blockSize(int block) {
+        return Math.min(PostingList.BLOCK_SIZE, size() - block * PostingList.BLOCK_SIZE);
+    }
+
+    /**
+     * Moves the buffer over the information written after the weight of a posting
+     *
+     * @param buffer positioned after the weight of a posting
+     */
+    protected abstract void skipExtraInfo(ByteBuffer buffer);
+
+    /**
+     * Creates the document of a posting, reading the information
+     *  written after its weight
+     *
+     * @param docId of the posting
+     * @param weight of the posting
+     * @param buffer positioned after the weight of the posting
+     */
+    protected abstract D readDocument(int docId, float weight, ByteBuffer buffer);
+
+    /**
+     * Encoded posting list of the weights format
+     */
+    static class Weights extends EncodedPostingList<Document<Float>> {
+
+        Weights(ByteBuffer postings, int size, int[] blocksLastDocIds, int[] blocksOffsets) {
+            super(postings, size, blocksLastDocIds, blocksOffsets);
+        }
+
+        @Override
+        protected void skipExtraInfo(ByteBuffer buffer) {
+            // no extra information
+        }
+
+        @Override
+        protected Document<Float> readDocument(int docId, float weight, ByteBuffer buffer) {
+            return new Document<>(docId, weight);
+        }
+
+    }
+
+    /**
+     * Encoded posting list of the weights and positions format
+     */
+    static class WeightsAndPositions
+        extends EncodedPostingList<DocumentWithInfo<Float, List<Integer>>>
+        implements PositionalPostingList {
+
+        WeightsAndPositions(ByteBuffer postings, int size, int[] blocksLastDocIds, int[] blocksOffsets) {
+            super(postings, size, blocksLastDocIds, blocksOffsets);
+        }
+
+        @Override
+        protected void skipExtraInfo(ByteBuffer buffer) {
+            int positionsCount = VByte.read(buffer);
+
+            for (int p = 0; p < positionsCount; p++) {
+                VByte.read(buffer);
+            }
+        }
+
+        @Override
+        public int[] getPositions(int index) {
+            ByteBuffer buffer = extraInfoBuffer(index);
+
+            int[] positions = new int[VByte.read(buffer)];
+            int position = 0;
+            for (int p = 0; p < positions.length; p++) {
+                position += VByte.read(buffer);
+                positions[p] = position;
+            }
+
+            return positions;
+        }
+
+        @Override
+        protected DocumentWithInfo<Float, List<Integer>> readDocument(int docId, float weight, ByteBuffer buffer) {
+            int positionsCount = VByte.read(buffer);
+
+            List<Integer> positions = new ArrayList<>(positionsCount);
+            int position = 0;
+            for (int p = 0; p < positionsCount; p++) {
+                position += VByte.read(buffer);
+                positions.add(position);
+            }
+
+            return new DocumentWithInfo<>(docId, weight, positions);
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Header of an entry of a binary indexer file with
+ *  its postings still encoded
+ */
+class EncodedTermInfo {
+
+    final int documentFrequency;
+
+    final float idf;
+
+    /**
+     * Content of the entire file, shared by all entries
+     */
+    private final ByteBuffer content;
+
+    private final int postingsOffset;
+
+    private final int postingsLength;
+
+    EncodedTermInfo(int documentFrequency, float idf, ByteBuffer content, int postingsOffset, int postingsLength) {
+        this.documentFrequency = documentFrequency;
+        this.idf = idf;
+        this.content = content;
+        this.postingsOffset = postingsOffset;
+        this.postingsLength = postingsLength;
+    }
+
+    /**
+     * Creates a buffer over the postings of the entry. Each call
+     *  returns a new buffer, so the same content can be
+     *  decoded by several threads at the same time
+     */
+    ByteBuffer getPostings() {
+        ByteBuffer postings = content.duplicate();
+
+        postings.position(postingsOffset);
+        postings.limit(postingsOffset + postingsLength);
+
+        return postings;
+    }
+
+}
@@ -6,6 +6,8 @@ import io.data_containers.loaders.BaseLoader;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.Map;
 
 /**
@@ -15,7 +17,11 @@ import java.util.Map;
  *  method can contain the raw data retrieved from the file
  *  or the objects List<D>. This avoids having to waste time
  *  on converting all the terms into objects since only
- *  some of the term's posting lists will be used
+ *  some of the term's posting lists will be used.
+ * If the indexer files were written with a dictionary
+ *  (IndexerWithDictionaryPersister) the loaders can load only
+ *  the dictionary and read the entry of a term from the indexer
+ *  file when the term is requested
  *
  * @param <K> type of the key
  * @param <W> type of the document weight
@@ -30,8 +36,18 @@ public abstract class IndexerBulkLoader<
 
     protected String folder;
 
+    /**
+     * If only the dictionary of each indexer file is loaded
+     */
+    protected boolean useDictionary;
+
     public IndexerBulkLoader(String folder) {
+        this(folder, false);
+    }
+
+    public IndexerBulkLoader(String folder, boolean useDictionary) {
         this.folder = folder;
+        this.useDictionary = useDictionary;
     }
 
     /**
@@ -47,4 +63,25 @@ public abstract class IndexerBulkLoader<
      */
     public abstract I getValue(Map<K, Object> loadedMap, K key);
 
+    /**
+     * Converts a single entry of an indexer file, read with the help
+     *  of the dictionary, into the term information object
+     *
+     * @param key of the entry
+     * @param entry buffer with the bytes of the entry, without the entry terminator
+     */
+    public abstract I decodeEntry(K key, ByteBuffer entry);
+
+    /**
+     * Loads the dictionary of an indexer file. The map returned reads
+     *  and decodes the entry of a term every time the term is requested
+     *
+     * @param filename of the indexer file
+     * @param memoryMapped if the indexer file should be mapped into memory
+     *  instead of read on each request
+     */
+    protected Map<K, Object> loadDictionary(String filename, boolean memoryMapped) throws IOException {
+        return new DictionarySegment<>(Paths.get(folder + filename), memoryMapped, this::decodeEntry);
+    }
+
 }
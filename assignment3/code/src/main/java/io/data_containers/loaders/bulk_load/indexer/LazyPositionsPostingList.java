@@ -0,0 +1,147 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.PositionalPostingList;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive posting list for entries of the text format of the indexer with
+ *  weights and positions where the positions stay unparsed.
+ * Document ids and weights are parsed when loading, but the positions of
+ *  each posting are kept as the range of characters of the entry where they
+ *  are written (comma separated) and are only parsed when requested, so
+ *  scoring the documents costs the same as with an indexer without positions
+ */
+class LazyPositionsPostingList
+    extends PostingList<DocumentWithInfo<Float, List<Integer>>>
+    implements PositionalPostingList {
+
+    /**
+     * Text of the entry where the positions are
+     */
+    private final String entry;
+
+    /**
+     * The positions of the posting on the array index i are written on
+     *  the entry between the characters positionsStarts[i] (inclusive)
+     *  and positionsEnds[i] (exclusive)
+     */
+    private int[] positionsStarts;
+
+    private int[] positionsEnds;
+
+    /**
+     * Main constructor
+     *
+     * @param entry text of the entry where the positions are
+     * @param capacity number of postings of the entry
+     */
+    LazyPositionsPostingList(String entry, int capacity) {
+        super(capacity);
+        this.entry = entry;
+
+        positionsStarts = new int[docIds.length];
+        positionsEnds = new int[docIds.length];
+    }
+
+    /**
+     * The copy is a posting list that can be written, since
+     *  this one can only be filled from an entry
+     */
+    @Override
+    public WeightsAndPositionsPostingList emptyCopy(int capacity) {
+        return new WeightsAndPositionsPostingList(capacity);
+    }
+
+    /**
+     * Appends a posting keeping its positions unparsed
+     *
+     * @param docId id of the document
+     * @param weight of the term on the document
+     * @param positionsStart index of the entry where the positions start
+     * @param positionsEnd index of the entry after the last position
+     */
+    void add(int docId, float weight, int positionsStart, int positionsEnd) {
+        int arrayIndex = appendDocIdAndWeight(docId, weight);
+
+        positionsStarts[arrayIndex] = positionsStart;
+        positionsEnds[arrayIndex] = positionsEnd;
+    }
+
+    @Override
+    public int[] getPositions(int index) {
+        int arrayIndex = toArrayIndex(index);
+        int from = positionsStarts[arrayIndex];
+        int to = positionsEnds[arrayIndex];
+
+        int count = 1;
+        for (int c = from; c < to; c++) {
+            if (entry.charAt(c) == ',') {
+                count++;
+            }
+        }
+
+        int[] positions = new int[count];
+        int position = 0;
+        int p = 0;
+        for (int c = from; c < to; c++) {
+            char character = entry.charAt(c);
+
+            if (character == ',') {
+                positions[p++] = position;
+                position = 0;
+            }
+            else {
+                position = position * 10 + (character - '0');
+            }
+        }
+        positions[p] = position;
+
+        return positions;
+    }
+
+    @Override
+    public DocumentWithInfo<Float, List<Integer>> get(int index) {
+        int arrayIndex = toArrayIndex(index);
+
+        int[] positions = getPositions(index);
+        List<Integer> documentPositions = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            documentPositions.add(position);
+        }
+
+        return new DocumentWithInfo<>(docIds[arrayIndex], weights[arrayIndex], documentPositions);
+    }
+
+    @Override
+    protected void grow(int minCapacity) {
+        super.grow(minCapacity);
+
+        positionsStarts = Arrays.copyOf(positionsStarts, docIds.length);
+        positionsEnds = Arrays.copyOf(positionsEnds, docIds.length);
+    }
+
+    @Override
+    public void trimToSize() {
+        if (start > 0 || end < docIds.length) {
+            positionsStarts = Arrays.copyOfRange(positionsStarts, start, end);
+            positionsEnds = Arrays.copyOfRange(positionsEnds, start, end);
+
+            super.trimToSize();
+        }
+    }
+
+    @Override
+    protected void shiftLeft(int fromArrayIndex, int distance) {
+        super.shiftLeft(fromArrayIndex, distance);
+
+        System.arraycopy(positionsStarts, fromArrayIndex, positionsStarts, fromArrayIndex - distance, end - fromArrayIndex);
+        System.arraycopy(positionsEnds, fromArrayIndex, positionsEnds, fromArrayIndex - distance, end - fromArrayIndex);
+    }
+
+}
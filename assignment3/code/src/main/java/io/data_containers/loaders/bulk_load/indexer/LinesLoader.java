@@ -29,8 +29,16 @@ public abstract class LinesLoader<
         super(folder);
     }
 
+    public LinesLoader(String folder, boolean useDictionary) {
+        super(folder, useDictionary);
+    }
+
     @Override
     public Map<K, Object> load(String filename) throws IOException {
+        if (useDictionary) {
+            return loadDictionary(filename, false);
+        }
+
         List<String> lines = Files.readAllLines(Paths.get(folder + filename));
 
         return parseLines(lines);
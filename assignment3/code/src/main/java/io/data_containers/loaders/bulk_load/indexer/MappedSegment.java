@@ -0,0 +1,181 @@
+package io.data_containers.loaders.bulk_load.indexer;
+
+import io.data_containers.encoding.VByte;
+import org.github.jamm.Unmetered;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Binary indexer file mapped into memory.
+ * Only a table with the terms, sorted, and the headers of their
+ *  entries is kept on the heap. The postings stay on the mapped
+ *  file and are read from it every time a term is requested, so
+ *  it's the page cache of the operating system that decides which
+ *  parts of the file stay in memory.
+ * Values are returned as encoded entries and the map is read only.
+ */
+class MappedSegment extends AbstractMap<String, Object> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Outside of the heap
+     */
+    @Unmetered
+    private final MappedByteBuffer content;
+
+    /**
+     * Terms of the file, sorted since the entries
+     *  are written sorted by term
+     */
+    private String[] terms;
+
+    private int[] documentFrequencies;
+
+    private float[] idfs;
+
+    private int[] postingsOffsets;
+
+    private int[] postingsLengths;
+
+    private int size;
+
+    /**
+     * Maps a file and reads the headers of all its entries
+     *
+     * @param file binary indexer file. Must have less than 2GB
+     * @throws IOException if some error occurs while mapping the file
+     */
+    MappedSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        terms = new String[DEFAULT_CAPACITY];
+        documentFrequencies = new int[DEFAULT_CAPACITY];
+        idfs = new float[DEFAULT_CAPACITY];
+        postingsOffsets = new int[DEFAULT_CAPACITY];
+        postingsLengths = new int[DEFAULT_CAPACITY];
+        size = 0;
+
+        ByteBuffer buffer = content.duplicate();
+        byte[] termBytes = new byte[64];
+
+        while (buffer.hasRemaining()) {
+            int termLength = VByte.read(buffer);
+            if (termBytes.length < termLength) {
+                termBytes = new byte[termLength];
+            }
+            buffer.get(termBytes, 0, termLength);
+
+            if (size == terms.length) {
+                grow();
+            }
+
+            terms[size] = new String(termBytes, 0, termLength, StandardCharsets.UTF_8);
+            documentFrequencies[size] = VByte.read(buffer);
+            idfs[size] = buffer.getFloat();
+            postingsLengths[size] = VByte.read(buffer);
+            postingsOffsets[size] = buffer.position();
+
+            buffer.position(buffer.position() + postingsLengths[size]);
+            size++;
+        }
+    }
+
+    @Override
+    public Object get(Object term) {
+        int index = indexOf(term);
+
+        return index < 0 ? null : getEncoded(index);
+    }
+
+    @Override
+    public boolean containsKey(Object term) {
+        return indexOf(term) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(terms[index], getEncoded(index));
+                        index++;
+
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(Object term) {
+        if (!(term instanceof String)) {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(terms, 0, size, term);
+
+        return index < 0 ? -1 : index;
+    }
+
+    private EncodedTermInfo getEncoded(int index) {
+        return new EncodedTermInfo(
+            documentFrequencies[index],
+            idfs[index],
+            content,
+            postingsOffsets[index],
+            postingsLengths[index]
+        );
+    }
+
+    private void grow() {
+        int newCapacity = terms.length << 1;
+
+        terms = Arrays.copyOf(terms, newCapacity);
+        documentFrequencies = Arrays.copyOf(documentFrequencies, newCapacity);
+        idfs = Arrays.copyOf(idfs, newCapacity);
+        postingsOffsets = Arrays.copyOf(postingsOffsets, newCapacity);
+        postingsLengths = Arrays.copyOf(postingsLengths, newCapacity);
+    }
+
+}
@@ -3,11 +3,11 @@ package io.data_containers.loaders.bulk_load.indexer;
 import data_containers.indexer.structures.DocumentWithInfo;
 import data_containers.indexer.structures.TermInfoWithIDF;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
 
 /**
  * Specific type of bulk loader for indexer with weights and positions
@@ -18,12 +18,14 @@ public class WeightsAndPositionsIndexerLoader extends LinesLoader<
     DocumentWithInfo<Float, List<Integer>>,
     TermInfoWithIDF<Float, DocumentWithInfo<Float, List<Integer>>>> {
 
-    private static final Pattern separatorsRegex = Pattern.compile("[:;]");
-
     public WeightsAndPositionsIndexerLoader(String folder) {
         super(folder);
     }
 
+    public WeightsAndPositionsIndexerLoader(String folder, boolean useDictionary) {
+        super(folder, useDictionary);
+    }
+
     @Override
     public Map<String, Object> parseLines(List<String> lines) {
         Map<String, Object> map = new ConcurrentHashMap<>(lines.size());
@@ -55,37 +57,81 @@ public class WeightsAndPositionsIndexerLoader extends LinesLoader<
         }
         else {
             // else parse the string and convert it to a TermInfoWithIdf object
-            String[] elements = separatorsRegex.split((String) value);
+            TermInfoWithIDF<Float, DocumentWithInfo<Float, List<Integer>>> termInfo = parseValue((String) value);
+
+            // update the term information from raw data to the term information object
+            loadedMap.put(term, termInfo);
 
-            List<DocumentWithInfo<Float, List<Integer>>> postingList = new ArrayList<>((elements.length - 1) / 3);
+            return termInfo;
+        }
+    }
 
-            for (int i = 1; i < elements.length; i += 3) {
-                String[] positionsStrings = elements[i + 2].split(",");
+    @Override
+    public TermInfoWithIDF<Float, DocumentWithInfo<Float, List<Integer>>> decodeEntry(String term, ByteBuffer entry) {
+        String line = StandardCharsets.UTF_8.decode(entry).toString();
 
-                List<Integer> positions = new ArrayList<>(positionsStrings.length);
-                for (String positionsString : positionsStrings) {
-                    positions.add(Integer.parseInt(positionsString));
-                }
+        return parseValue(line.substring(line.indexOf(':') + 1));
+    }
 
-                postingList.add(
-                    new DocumentWithInfo<>(
-                        Integer.parseInt(elements[i]), // docId
-                        Float.parseFloat(elements[i + 1]),
-                        positions
-                    )
-                );
+    /**
+     * Parses the part of a line after the term. Only the document ids
+     *  and weights are parsed, the positions of each posting are kept
+     *  unparsed until requested (LazyPositionsPostingList)
+     */
+    private TermInfoWithIDF<Float, DocumentWithInfo<Float, List<Integer>>> parseValue(String value) {
+        int idfEnd = value.indexOf(';');
+
+        int postingsCount = 0;
+        for (int c = idfEnd; c < value.length(); c++) {
+            if (value.charAt(c) == ';') {
+                postingsCount++;
             }
+        }
 
-            TermInfoWithIDF<Float, DocumentWithInfo<Float, List<Integer>>> termInfo = new TermInfoWithIDF<>(
-                postingList,
-                Float.parseFloat(elements[0]) // idf
+        LazyPositionsPostingList postingList = new LazyPositionsPostingList(value, postingsCount);
+
+        int postingStart = idfEnd + 1;
+        for (int i = 0; i < postingsCount; i++) {
+            int docIdEnd = value.indexOf(':', postingStart);
+            int weightEnd = value.indexOf(':', docIdEnd + 1);
+
+            int postingEnd = value.indexOf(';', weightEnd + 1);
+            if (postingEnd == -1) {
+                postingEnd = value.length(); // last posting
+            }
+
+            postingList.add(
+                parseInt(value, postingStart, docIdEnd), // docId
+                Float.parseFloat(value.substring(docIdEnd + 1, weightEnd)),
+                weightEnd + 1,
+                postingEnd
             );
 
-            // update the term information from raw data to the term information object
-            loadedMap.put(term, termInfo);
+            postingStart = postingEnd + 1;
+        }
 
-            return termInfo;
+        return new TermInfoWithIDF<>(
+            postingList,
+            Float.parseFloat(value.substring(0, idfEnd)) // idf
+        );
+    }
+
+    /**
+     * Parses a non negative integer written on part of a string
+     *  without creating a substring
+     *
+     * @param value where the integer is written
+     * @param from index of the first digit
+     * @param to index after the last digit
+     */
+    private static int parseInt(String value, int from, int to) {
+        int result = 0;
+
+        for (int c = from; c < to; c++) {
+            result = result * 10 + (value.charAt(c) - '0');
         }
+
+        return result;
     }
 
 }
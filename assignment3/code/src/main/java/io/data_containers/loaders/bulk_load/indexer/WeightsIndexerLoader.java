@@ -2,8 +2,10 @@ package io.data_containers.loaders.bulk_load.indexer;
 
 import data_containers.indexer.structures.Document;
 import data_containers.indexer.structures.TermInfoWithIDF;
+import data_containers.indexer.structures.WeightsPostingList;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,6 +27,10 @@ public class WeightsIndexerLoader extends LinesLoader<
         super(folder);
     }
 
+    public WeightsIndexerLoader(String folder, boolean useDictionary) {
+        super(folder, useDictionary);
+    }
+
     @Override
     public Map<String, Object> parseLines(List<String> lines) {
         Map<String, Object> map = new ConcurrentHashMap<>(lines.size());
@@ -56,23 +62,7 @@ public class WeightsIndexerLoader extends LinesLoader<
         }
         else {
             // else parse the string and convert it to a TermInfo object
-            String[] elements = separatorsRegex.split((String) value);
-
-            List<Document<Float>> postingList = new ArrayList<>((elements.length - 1) / 2);
-
-            for (int i = 1; i < elements.length; i += 2) {
-                postingList.add(
-                    new Document<>(
-                        Integer.parseInt(elements[i]), // docId
-                        Float.parseFloat(elements[i + 1])
-                    )
-                );
-            }
-
-            TermInfoWithIDF<Float, Document<Float>> termInfo = new TermInfoWithIDF<>(
-                postingList,
-                Float.parseFloat(elements[0]) // idf
-            );
+            TermInfoWithIDF<Float, Document<Float>> termInfo = parseValue((String) value);
 
             // update the term information from raw data to the term information object
             loadedMap.put(term, termInfo);
@@ -81,4 +71,32 @@ public class WeightsIndexerLoader extends LinesLoader<
         }
     }
 
+    @Override
+    public TermInfoWithIDF<Float, Document<Float>> decodeEntry(String term, ByteBuffer entry) {
+        String line = StandardCharsets.UTF_8.decode(entry).toString();
+
+        return parseValue(line.substring(line.indexOf(':') + 1));
+    }
+
+    /**
+     * Parses the part of a line after the term
+     */
+    private TermInfoWithIDF<Float, Document<Float>> parseValue(String value) {
+        String[] elements = separatorsRegex.split(value);
+
+        WeightsPostingList postingList = new WeightsPostingList((elements.length - 1) / 2);
+
+        for (int i = 1; i < elements.length; i += 2) {
+            postingList.add(
+                Integer.parseInt(elements[i]), // docId
+                Float.parseFloat(elements[i + 1])
+            );
+        }
+
+        return new TermInfoWithIDF<>(
+            postingList,
+            Float.parseFloat(elements[0]) // idf
+        );
+    }
+
 }
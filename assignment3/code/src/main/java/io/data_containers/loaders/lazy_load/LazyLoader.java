@@ -2,6 +2,7 @@ package io.data_containers.loaders.lazy_load;
 
 import io.data_containers.loaders.BaseLoader;
 
+import java.io.Closeable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -23,14 +24,16 @@ public abstract class LazyLoader<K, V> implements BaseLoader {
      * @param filename from where to read the entries
      * @return an iterator to read from a file with entries
      */
-    public abstract Iterator<Map.Entry<K, V>> load(String filename);
+    public abstract EntryIterator<Map.Entry<K, V>> load(String filename);
 
     /**
-     * Iterator to read from a file with entries persisted
+     * Iterator to read from a file with entries persisted.
+     * The file is closed once all entries are read, or
+     *  when the iterator is closed before that
      *
      * @param <T> type of the entries
      */
-    protected static abstract class EntryIterator<T> implements Iterator<T> {
+    public static abstract class EntryIterator<T> implements Iterator<T>, Closeable {
 
         /**
          * To know if the file was/is closed
@@ -0,0 +1,629 @@
+package io.data_containers.loaders.lazy_load;
+
+import data_containers.indexer.structures.TermInfoBase;
+import data_containers.indexer.structures.TermInfoWithIDF;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+import data_containers.indexer.structures.WeightsPostingList;
+import io.data_containers.encoding.RunFileFormat;
+import io.data_containers.encoding.RunFileIndex;
+import io.data_containers.encoding.VByte;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Specific loader for the run files (RunFileFormat) written by the
+ *  run file persister. The file is read in pieces to a direct buffer
+ *  as the entries are decoded. The posting lists are decoded into
+ *  primitive posting lists of the type written, and the term
+ *  information created is a TermInfoWithIDF without idf.
+ * With the index of the file the entries can be read from a term,
+ *  starting on the last entry of the index that isn't after it.
+ * The blocks of compressed files are read and decompressed ahead by a
+ *  pool of threads, while the entries of the previous block are decoded,
+ *  so the decompression overlaps the merge. Each file has at most
+ *  one block being read ahead.
+ * The buffers of the iterators are returned to a pool once they're closed
+ *  and reused by the next files loaded, and the buffers to decompress the
+ *  blocks belong to the threads reading ahead, so they're shared by all
+ *  files. The loader must be closed once all files are read, to end the
+ *  threads reading ahead and free the native memory of their inflaters
+ *
+ * @param <V> type of the term information
+ */
+public class RunFileLoader<V extends TermInfoBase<?, ?>> extends LazyLoader<String, V> implements Closeable {
+
+    /**
+     * Reads and decompresses the blocks of compressed files ahead
+     */
+    private final ExecutorService readAheadExecutor;
+
+    /**
+     * Buffers of the iterators already closed
+     */
+    private final ConcurrentLinkedQueue<ReadBuffers> buffersPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Buffers to read and decompress the blocks, of each thread reading ahead
+     */
+    private final ThreadLocal<BlockBuffers> blockBuffers = ThreadLocal.withInitial(this::createBlockBuffers);
+
+    /**
+     * All buffers to read and decompress the blocks created,
+     *  so their inflaters are ended once the loader is closed
+     */
+    private final ConcurrentLinkedQueue<BlockBuffers> createdBlockBuffers = new ConcurrentLinkedQueue<>();
+
+    public RunFileLoader() {
+        this(1);
+    }
+
+    /**
+     * @param readAheadThreads number of threads reading ahead the blocks of
+     *  compressed files, which should be the number of threads reading files
+     */
+    public RunFileLoader(int readAheadThreads) {
+        readAheadExecutor = Executors.newFixedThreadPool(readAheadThreads, runnable -> {
+            // daemon so the program doesn't wait for the pool to end
+            Thread thread = new Thread(runnable, "run-file-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the entries of a run file
+     *
+     * @param filename from where to read the entries
+     * @return an iterator to read from a file with entries
+     */
+    @Override
+    public EntryIterator<Map.Entry<String, V>> load(String filename) {
+        return load(filename, null, null);
+    }
+
+    /**
+     * Reads the index of a run file
+     *
+     * @param filename run file from where to read the index
+     * @return the index of the file
+     */
+    public RunFileIndex loadIndex(String filename) {
+        RunFileIndex index = null;
+
+        try (FileChannel input = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long indexOffset = readContentEnd(input, filename);
+
+            ByteBuffer indexBuffer = ByteBuffer.allocate(
+                (int) (input.size() - RunFileFormat.FOOTER_SIZE - indexOffset)
+            );
+            readFully(input, indexBuffer, indexOffset, filename);
+            indexBuffer.flip();
+
+            int size = VByte.read(indexBuffer);
+            index = new RunFileIndex(size);
+
+            byte[] termBytes = new byte[64];
+            for (int i = 0; i < size; i++) {
+                int termLength = VByte.read(indexBuffer);
+                if (termBytes.length < termLength) {
+                    termBytes = new byte[termLength];
+                }
+                indexBuffer.get(termBytes, 0, termLength);
+
+                index.add(
+                    new String(termBytes, 0, termLength, StandardCharsets.UTF_8),
+                    indexBuffer.getLong(),
+                    indexBuffer.getInt()
+                );
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            System.err.println("ERROR while reading the index of run file " + filename);
+            e.printStackTrace();
+            System.exit(2);
+        }
+
+        return index;
+    }
+
+    /**
+     * Reads the entries of a run file from a term. The reading starts on the
+     *  last entry of the index whose term isn't after the term received, so
+     *  entries before it can also be read
+     *
+     * @param filename from where to read the entries
+     * @param index index of the file, or null to read all entries
+     * @param from term of the first entry needed, ignored without index
+     * @return an iterator to read from a file with entries
+     */
+    public EntryIterator<Map.Entry<String, V>> load(String filename, RunFileIndex index, String from) {
+        FileChannel tmp = null;
+        byte tmpCodec = RunFileFormat.NONE;
+        byte tmpType = RunFileFormat.WEIGHTS;
+        long tmpContentEnd = 0;
+        try {
+            tmp = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+
+            ByteBuffer header = ByteBuffer.allocate(RunFileFormat.HEADER_SIZE);
+            readFully(tmp, header, 0, filename);
+            tmpCodec = header.get(0);
+            tmpType = header.get(1);
+
+            tmpContentEnd = readContentEnd(tmp, filename);
+        } catch (IOException e) {
+            System.err.println("ERROR while opening run file " + filename);
+            e.printStackTrace();
+            System.exit(2);
+        }
+        FileChannel input = tmp;
+        byte codec = tmpCodec;
+        byte type = tmpType;
+        long contentEnd = tmpContentEnd;
+
+        int start = index == null || index.size() == 0 ? -1 : index.floor(from);
+        long startOffset = start < 0 ? RunFileFormat.HEADER_SIZE : index.getOffset(start);
+        int startContentOffset = start < 0 ? 0 : index.getContentOffset(start);
+
+        return new EntryIterator<Map.Entry<String, V>>() {
+
+            private final ReadBuffers buffers = takeBuffers(codec);
+
+            /**
+             * Content of the file ready to be decoded
+             */
+            private final ByteBuffer buffer = buffers.buffer;
+
+            /**
+             * Content of the blocks of compressed files. While the content of one
+             *  block is moved to the buffer the next block is read to the other
+             */
+            private final byte[][] blocksContents = buffers.blocksContents;
+
+            /**
+             * Content of the current block not yet moved to the buffer
+             */
+            private ByteBuffer currentBlock = ByteBuffer.allocate(0);
+
+            /**
+             * Index of the blocks contents where the next block is read to
+             */
+            private int nextBlockContent = 0;
+
+            /**
+             * Offset on the file of what is read next
+             */
+            private long position = startOffset;
+
+            /**
+             * Bytes of the content of the first block of a compressed
+             *  file to skip, the ones before the first entry read
+             */
+            private int skip = startContentOffset;
+
+            /**
+             * Size of the content of the block being read ahead, or -1 if the
+             *  end of the content was reached. Null if there isn't a next block
+             */
+            private Future<Integer> nextBlock = readAhead();
+
+            /**
+             * Reused to read the terms
+             */
+            private byte[] termBytes = new byte[64];
+
+            /**
+             * Reused to read the positions of a posting
+             */
+            private int[] positions = new int[16];
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected boolean readEntry() {
+                try {
+                    if (!ensureAvailable(RunFileFormat.MAX_VBYTE_SIZE)) {
+                        close();
+                        return false;
+                    }
+
+                    int termLength = VByte.read(buffer);
+                    if (termBytes.length < termLength) {
+                        termBytes = new byte[termLength];
+                    }
+                    for (int offset = 0; offset < termLength; ) {
+                        ensureEntryAvailable(1);
+
+                        int length = Math.min(buffer.remaining(), termLength - offset);
+                        buffer.get(termBytes, offset, length);
+                        offset += length;
+                    }
+                    String term = new String(termBytes, 0, termLength, StandardCharsets.UTF_8);
+
+                    ensureEntryAvailable(RunFileFormat.MAX_VBYTE_SIZE);
+                    int documentFrequency = VByte.read(buffer);
+
+                    TermInfoBase<?, ?> termInfo = type == RunFileFormat.WEIGHTS_AND_POSITIONS
+                        ? new TermInfoWithIDF<>(readWeightsAndPositionsPostings(documentFrequency))
+                        : new TermInfoWithIDF<>(readWeightsPostings(documentFrequency));
+
+                    currentEntry = new Entry<>(term, (V) termInfo);
+                } catch (IOException | BufferUnderflowException e) {
+                    // an underflow means the file ended in the middle of a value
+                    System.err.println("ERROR while reading run file " + filename);
+                    e.printStackTrace();
+                    System.exit(2);
+                }
+
+                return true;
+            }
+
+            private WeightsPostingList readWeightsPostings(int documentFrequency) throws IOException {
+                WeightsPostingList postingList = new WeightsPostingList(documentFrequency);
+
+                int docId = 0;
+                for (int i = 0; i < documentFrequency; i++) {
+                    ensureEntryAvailable(RunFileFormat.MAX_VBYTE_SIZE + Float.BYTES);
+
+                    docId += VByte.read(buffer);
+                    postingList.add(docId, buffer.getFloat());
+                }
+
+                return postingList;
+            }
+
+            private WeightsAndPositionsPostingList readWeightsAndPositionsPostings(int documentFrequency)
+                throws IOException {
+                WeightsAndPositionsPostingList postingList = new WeightsAndPositionsPostingList(documentFrequency);
+
+                int docId = 0;
+                for (int i = 0; i < documentFrequency; i++) {
+                    ensureEntryAvailable(2 * RunFileFormat.MAX_VBYTE_SIZE + Float.BYTES);
+
+                    docId += VByte.read(buffer);
+                    float weight = buffer.getFloat();
+
+                    int positionsCount = VByte.read(buffer);
+                    if (positions.length < positionsCount) {
+                        positions = new int[Math.max(positions.length * 2, positionsCount)];
+                    }
+
+                    int position = 0;
+                    for (int p = 0; p < positionsCount; p++) {
+                        ensureEntryAvailable(RunFileFormat.MAX_VBYTE_SIZE);
+
+                        position += VByte.read(buffer);
+                        positions[p] = position;
+                    }
+
+                    postingList.add(docId, weight, positions, 0, positionsCount);
+                }
+
+                return postingList;
+            }
+
+            /**
+             * Reads more of the file to the buffer if it has less than the
+             *  number of bytes received, as much as fits on the buffer
+             *
+             * @return false if the end of the file was reached and
+             *  there isn't anything left on the buffer
+             */
+            private boolean ensureAvailable(int bytes) throws IOException {
+                if (buffer.remaining() < bytes) {
+                    buffer.compact();
+                    while (buffer.position() < bytes && fill()) {
+                        // each fill reads as much as available
+                    }
+                    buffer.flip();
+                }
+
+                return buffer.hasRemaining();
+            }
+
+            /**
+             * Same as ensureAvailable, but in the middle of an entry,
+             *  where the end of the file means it was truncated
+             *
+             * @throws EOFException if the end of the file was reached
+             */
+            private void ensureEntryAvailable(int bytes) throws IOException {
+                if (!ensureAvailable(bytes)) {
+                    throw new EOFException("Truncated run file " + filename);
+                }
+            }
+
+            /**
+             * Moves content of the file to the buffer. On compressed files the
+             *  content comes from the current block, waiting for the block read
+             *  ahead once the current one is all moved
+             *
+             * @return false if the end of the content was reached
+             */
+            private boolean fill() throws IOException {
+                if (codec != RunFileFormat.DEFLATE) {
+                    if (position >= contentEnd) {
+                        return false;
+                    }
+
+                    // the index after the content isn't read
+                    int limit = buffer.limit();
+                    if (contentEnd - position < buffer.remaining()) {
+                        buffer.limit(buffer.position() + (int) (contentEnd - position));
+                    }
+                    int read = input.read(buffer, position);
+                    buffer.limit(limit);
+
+                    if (read < 0) {
+                        throw new EOFException("Truncated run file " + filename);
+                    }
+                    position += read;
+
+                    return true;
+                }
+
+                if (!currentBlock.hasRemaining()) {
+                    if (nextBlock == null) {
+                        return false;
+                    }
+
+                    int contentSize;
+                    try {
+                        contentSize = nextBlock.get();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException("Interrupted while reading run file " + filename);
+                    } catch (ExecutionException e) {
+                        throw new IOException(e.getCause());
+                    }
+
+                    if (contentSize < 0) {
+                        nextBlock = null;
+                        return false;
+                    }
+
+                    currentBlock = ByteBuffer.wrap(blocksContents[nextBlockContent], 0, contentSize);
+                    currentBlock.position(skip);
+                    skip = 0;
+                    nextBlockContent = 1 - nextBlockContent;
+                    nextBlock = readAhead();
+                }
+
+                int length = Math.min(currentBlock.remaining(), buffer.remaining());
+                buffer.put(currentBlock.array(), currentBlock.position(), length);
+                currentBlock.position(currentBlock.position() + length);
+
+                return true;
+            }
+
+            /**
+             * Starts reading the next block of a compressed file
+             *
+             * @return the block being read, or null if the file isn't compressed
+             */
+            private Future<Integer> readAhead() {
+                if (codec != RunFileFormat.DEFLATE) {
+                    return null;
+                }
+
+                byte[] content = blocksContents[nextBlockContent];
+
+                return readAheadExecutor.submit(() -> readBlock(content));
+            }
+
+            /**
+             * Reads a block of a compressed file and decompresses it, if it was
+             *  compressed, to the array received
+             *
+             * @return the size of the content of the block, or -1
+             *  if the end of the content was reached
+             */
+            private int readBlock(byte[] content) throws IOException, DataFormatException {
+                BlockBuffers threadBuffers = blockBuffers.get();
+                ByteBuffer blockHeader = threadBuffers.blockHeader;
+                byte[] compressedBlock = threadBuffers.compressedBlock;
+                Inflater inflater = threadBuffers.inflater;
+
+                if (position >= contentEnd) {
+                    return -1;
+                }
+
+                blockHeader.clear();
+                readFully(blockHeader);
+                int contentSize = blockHeader.getInt(0);
+                int compressedSize = blockHeader.getInt(Integer.BYTES);
+
+                // a block stored as is has both sizes equal
+                ByteBuffer blockBytes = compressedSize == contentSize
+                    ? ByteBuffer.wrap(content, 0, contentSize)
+                    : ByteBuffer.wrap(compressedBlock, 0, compressedSize);
+                readFully(blockBytes);
+
+                if (compressedSize == contentSize) {
+                    return contentSize;
+                }
+
+                inflater.reset();
+                inflater.setInput(compressedBlock, 0, compressedSize);
+
+                int decompressedSize = 0;
+                while (decompressedSize < contentSize) {
+                    int decompressed = inflater.inflate(content, decompressedSize, contentSize - decompressedSize);
+                    if (decompressed == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new DataFormatException("Truncated block on run file " + filename);
+                    }
+                    decompressedSize += decompressed;
+                }
+
+                return contentSize;
+            }
+
+            /**
+             * Reads from the file until the buffer received is full
+             */
+            private void readFully(ByteBuffer toRead) throws IOException {
+                int length = toRead.remaining();
+                RunFileLoader.readFully(input, toRead, position, filename);
+                position += length;
+            }
+
+            /**
+             * Closes the file, after the block being read ahead, if any, since it
+             *  reads from the file, and returns the buffers to the pool
+             */
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    if (nextBlock != null) {
+                        try {
+                            nextBlock.get();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (ExecutionException e) {
+                            // the block isn't needed anymore
+                        }
+                        nextBlock = null;
+                    }
+
+                    input.close();
+                    closed = true;
+
+                    buffersPool.offer(buffers);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the offset of the index of a run file, from its footer,
+     *  which is where its content ends
+     *
+     * @throws EOFException if the file is too short for the offset read
+     */
+    private static long readContentEnd(FileChannel input, String filename) throws IOException {
+        long footerOffset = input.size() - RunFileFormat.FOOTER_SIZE;
+        if (footerOffset < RunFileFormat.HEADER_SIZE) {
+            throw new EOFException("Truncated run file " + filename);
+        }
+
+        ByteBuffer footer = ByteBuffer.allocate(RunFileFormat.FOOTER_SIZE);
+        readFully(input, footer, footerOffset, filename);
+
+        long contentEnd = footer.getLong(0);
+        if (contentEnd < RunFileFormat.HEADER_SIZE || contentEnd > footerOffset) {
+            throw new EOFException("Truncated run file " + filename);
+        }
+
+        return contentEnd;
+    }
+
+    /**
+     * Reads from a position of a file until the buffer received is full
+     *
+     * @throws EOFException if the end of the file was reached before
+     */
+    private static void readFully(FileChannel input, ByteBuffer toRead, long position, String filename)
+        throws IOException {
+        while (toRead.hasRemaining()) {
+            int read = input.read(toRead, position);
+            if (read < 0) {
+                throw new EOFException("Truncated run file " + filename);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Takes buffers from the pool, or creates new ones if it's empty,
+     *  with the buffer empty and the arrays for blocks if the file
+     *  is compressed
+     */
+    private ReadBuffers takeBuffers(byte codec) {
+        ReadBuffers buffers = buffersPool.poll();
+        if (buffers == null) {
+            buffers = new ReadBuffers();
+        }
+
+        buffers.buffer.clear();
+        buffers.buffer.limit(0);
+
+        if (codec == RunFileFormat.DEFLATE && buffers.blocksContents == null) {
+            buffers.blocksContents = new byte[2][RunFileFormat.BUFFER_SIZE];
+        }
+
+        return buffers;
+    }
+
+    private BlockBuffers createBlockBuffers() {
+        BlockBuffers buffers = new BlockBuffers();
+        createdBlockBuffers.add(buffers);
+
+        return buffers;
+    }
+
+    /**
+     * Drops the pooled buffers and ends the threads reading ahead, waiting
+     *  for the blocks being read, and the inflaters of their buffers.
+     *  Files still being read can't read ahead anymore
+     */
+    @Override
+    public void close() {
+        buffersPool.clear();
+
+        readAheadExecutor.shutdown();
+        try {
+            readAheadExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // the inflaters can still be in use, so they're left to be finalized
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (BlockBuffers buffers : createdBlockBuffers) {
+            buffers.inflater.end();
+        }
+        createdBlockBuffers.clear();
+    }
+
+    /**
+     * Buffers of an iterator, reused by the next one once it's closed
+     */
+    private static class ReadBuffers {
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(RunFileFormat.BUFFER_SIZE);
+
+        /**
+         * Only created for compressed files
+         */
+        private byte[][] blocksContents;
+
+    }
+
+    /**
+     * Buffers of a thread reading ahead the blocks of compressed files
+     */
+    private static class BlockBuffers {
+
+        private final ByteBuffer blockHeader = ByteBuffer.allocate(RunFileFormat.BLOCK_HEADER_SIZE);
+
+        private final byte[] compressedBlock = new byte[RunFileFormat.BUFFER_SIZE];
+
+        private final Inflater inflater = new Inflater();
+
+    }
+
+}
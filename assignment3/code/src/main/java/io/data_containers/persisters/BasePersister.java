@@ -6,6 +6,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +81,20 @@ public abstract class BasePersister<K extends Comparable, V> implements Closeabl
         return filesCounter;
     }
 
+    /**
+     * Getter of the names of the files created so far,
+     *  in the order they were created
+     */
+    public List<String> getFilesCreated() {
+        List<String> filenames = new ArrayList<>(filesCounter);
+
+        for (int i = 0; i < filesCounter; i++) {
+            filenames.add(String.format("%s%s", outputFolder, i));
+        }
+
+        return filenames;
+    }
+
     /**
      * Sorts the entries of a map by its key into a list to be persisted
      *
@@ -96,33 +111,50 @@ public abstract class BasePersister<K extends Comparable, V> implements Closeabl
 
     /**
      * Persists a list of sorted entries by keys.
+     *
+     * @param sortedEntries entries to persist
+     * @param isLast if its the last set of entries to write
+     * @throws IOException if some error occurs while persisting the entries
+     */
+    public void persist(List<Map.Entry<K, V>> sortedEntries, boolean isLast) throws IOException {
+        persist(sortedEntries.iterator(), isLast);
+    }
+
+    /**
+     * Persists the entries of an iterator sorted by keys.
      * If the output is null before persisting a new
      *  output is created.
      * If the maximum of entries per file is greater than 0
      *  whenever the count reaches the maximum, a new output
      *  is created/used
      *
-     * @param sortedEntries entries to persist
+     * @param sortedEntries iterator over the entries to persist
      * @param isLast if its the last set of entries to write
      * @throws IOException if some error occurs while persisting the entries
      */
-    public void persist(List<Map.Entry<K, V>> sortedEntries, boolean isLast) throws IOException {
-        if (outputIsNull()) {
+    public void persist(Iterator<Map.Entry<K, V>> sortedEntries, boolean isLast) throws IOException {
+        // the entry after the current one is read before writing
+        //  the current one to know if the current is the last entry
+        Map.Entry<K, V> entry = sortedEntries.hasNext() ? sortedEntries.next() : null;
+
+        if (entry != null && outputIsNull()) {
             String newFilename = String.format(
                 "%s%s",
                 outputFolder,
                 filesCounter++
             );
             createNewOutput(newFilename);
-            firstKeys.add(sortedEntries.get(0).getKey().toString());
+            firstKeys.add(entry.getKey().toString());
         }
 
-        for (int i = 0; i < sortedEntries.size(); i++) {
+        while (entry != null) {
+            Map.Entry<K, V> nextEntry = sortedEntries.hasNext() ? sortedEntries.next() : null;
+
             long currentEntrySize = 0;
             if (limitFileSize > 0) {
                 // if there is not limit for the file size don't calculate the entry size
                 currentEntrySize = meter.measureDeep(
-                    considerOnlyValueForMemory ? sortedEntries.get(i).getValue() : sortedEntries.get(i)
+                    considerOnlyValueForMemory ? entry.getValue() : entry
                 );
 
                 if ( currentFileSize + currentEntrySize > limitFileSize ) {
@@ -134,15 +166,17 @@ public abstract class BasePersister<K extends Comparable, V> implements Closeabl
                         filesCounter++
                     );
                     createNewOutput(newFilename);
-                    firstKeys.add(sortedEntries.get(i).getKey().toString());
+                    firstKeys.add(entry.getKey().toString());
 
                     currentFileSize = 0;
                 }
             }
 
-            writeEntry(sortedEntries.get(i), i == sortedEntries.size() - 1 && isLast);
+            writeEntry(entry, nextEntry == null && isLast);
 
             currentFileSize += currentEntrySize;
+
+            entry = nextEntry;
         }
 
         if (isLast) {
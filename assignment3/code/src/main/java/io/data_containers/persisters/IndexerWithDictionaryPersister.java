@@ -0,0 +1,135 @@
+package io.data_containers.persisters;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.TermInfoWithIDF;
+import io.data_containers.encoding.FrontCodedDictionary;
+import io.data_containers.persisters.strategies.OutputStreamStrategy;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Persists the entries of an indexer to a byte output stream and,
+ *  next to each indexer file, a dictionary file with the offset,
+ *  length, document frequency and idf of each term, so loaders
+ *  can read a single entry without reading the whole indexer file.
+ * Works with any strategy, since the offsets are counted on
+ *  the bytes written
+ *
+ * @param <W> type of the weight
+ * @param <D> type of the document
+ */
+public class IndexerWithDictionaryPersister<W extends Number, D extends Document<W>>
+    extends OutputStreamPersister<String, TermInfoWithIDF<W, D>> {
+
+    private OutputStreamStrategy<String, TermInfoWithIDF<W, D>> strategy;
+
+    /**
+     * Counts the bytes written to the current indexer file
+     */
+    private CountingOutputStream currentOutputCounter;
+
+    private String currentFilename;
+
+    /**
+     * Dictionary of the current indexer file
+     */
+    private FrontCodedDictionary.Writer dictionary;
+
+    public IndexerWithDictionaryPersister(String outputFolder,
+                                          int limitFileSize,
+                                          OutputStreamStrategy<String, TermInfoWithIDF<W, D>> strategy) {
+        super(outputFolder, limitFileSize, strategy);
+        this.strategy = strategy;
+        this.dictionary = new FrontCodedDictionary.Writer();
+    }
+
+    @Override
+    protected void createNewOutput(String newFilename) throws IOException {
+        currentFilename = newFilename;
+
+        super.createNewOutput(newFilename);
+    }
+
+    @Override
+    protected OutputStream openOutput(String filename) throws IOException {
+        currentOutputCounter = new CountingOutputStream(super.openOutput(filename));
+
+        return currentOutputCounter;
+    }
+
+    /**
+     * Writes the entry and adds its term to the dictionary. The length of
+     *  the entry doesn't include the entry terminator
+     */
+    @Override
+    protected void writeEntry(Map.Entry<String, TermInfoWithIDF<W, D>> entry, boolean lastEntry) throws IOException {
+        int entryOffset = (int) currentOutputCounter.count;
+
+        super.writeEntry(entry, lastEntry);
+
+        int entryLength = (int) currentOutputCounter.count - entryOffset;
+        if (!lastEntry) {
+            entryLength -= strategy.getEntryTerminator().length;
+        }
+
+        dictionary.add(
+            entry.getKey(),
+            entryOffset,
+            entryLength,
+            entry.getValue().getPostingList().size(),
+            entry.getValue().getIdf()
+        );
+    }
+
+    /**
+     * Closes the current indexer file and writes its dictionary
+     */
+    @Override
+    public void close() throws IOException {
+        if (!outputIsNull()) {
+            OutputStream dictionaryOutput = new BufferedOutputStream(
+                new FileOutputStream(
+                    currentFilename + FrontCodedDictionary.FILE_SUFFIX
+                )
+            );
+            dictionary.writeTo(dictionaryOutput);
+            dictionaryOutput.close();
+
+            currentOutputCounter = null;
+        }
+
+        super.close();
+    }
+
+    /**
+     * Output stream that counts the bytes written
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream output) {
+            super(output);
+            this.count = 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+    }
+
+}
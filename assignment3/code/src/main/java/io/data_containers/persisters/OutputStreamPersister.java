@@ -48,9 +48,21 @@ public class OutputStreamPersister<K extends Comparable, V> extends BasePersiste
 
     @Override
     protected void createNewOutput(String newFilename) throws IOException {
-        currentOutput = new BufferedOutputStream(
+        currentOutput = openOutput(newFilename);
+    }
+
+    /**
+     * Opens the output stream of a new file. Descendent classes
+     *  can override it to wrap the stream
+     *
+     * @param filename of the file to open
+     * @return the stream where the entries will be written
+     * @throws IOException if some error occurs while opening the file
+     */
+    protected OutputStream openOutput(String filename) throws IOException {
+        return new BufferedOutputStream(
             new FileOutputStream(
-                newFilename
+                filename
             )
         );
     }
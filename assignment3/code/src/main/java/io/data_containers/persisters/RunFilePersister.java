@@ -0,0 +1,325 @@
+package io.data_containers.persisters;
+
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.TermInfoBase;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+import io.data_containers.encoding.RunFileFormat;
+import io.data_containers.encoding.RunFileIndex;
+import io.data_containers.encoding.VByte;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Persists the entries of an indexer to run files (RunFileFormat),
+ *  the temporary files of the SPIMI pipelines.
+ * The entries are encoded into a direct buffer which is written to
+ *  the file whenever it's full, so posting lists of any size are
+ *  written with the same memory. Only primitive posting lists
+ *  are supported. Where each INDEX_INTERVAL entries start is kept
+ *  and written as the index of the file once it's closed.
+ * Optionally each buffer is compressed with deflate before being written,
+ *  trading some processing for less data written to and read from disk.
+ *  The bytes encoded and the bytes written are counted, to know how much
+ *  the compression saves
+ *
+ * @param <V> type of the term information
+ */
+public class RunFilePersister<V extends TermInfoBase<?, ?>> extends BasePersister<String, V> {
+
+    /**
+     * Channel of the file currently open to write entries
+     */
+    private FileChannel currentOutput;
+
+    /**
+     * Entries are encoded here before being written to the file
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * If the header was already written to the current file. It's written
+     *  with the first entry, which gives the type of the posting lists
+     */
+    private boolean wroteHeader;
+
+    /**
+     * Number of entries written to the current file
+     */
+    private int entriesWritten;
+
+    /**
+     * Index of the entries of the current file
+     */
+    private RunFileIndex index;
+
+    /**
+     * If the content of the files is compressed
+     */
+    private final boolean compress;
+
+    /**
+     * Compresses the buffer before being written to the file. Created
+     *  for each compressed file and ended once the file is closed,
+     *  so its native memory isn't kept between files
+     */
+    private Deflater deflater;
+
+    /**
+     * Where the buffer is compressed to, preceded by the header of the block
+     */
+    private byte[] compressedBlock;
+
+    /**
+     * Count of bytes of the encoded entries, on all files
+     */
+    private long encodedBytes;
+
+    /**
+     * Count of bytes written to disk, on all files
+     */
+    private long writtenBytes;
+
+    public RunFilePersister(String outputFolder, int limitFileSize) {
+        this(outputFolder, limitFileSize, false);
+    }
+
+    /**
+     * @param compress if the content of the files is compressed with deflate
+     */
+    public RunFilePersister(String outputFolder, int limitFileSize, boolean compress) {
+        super(outputFolder, limitFileSize);
+        this.compress = compress;
+
+        if (compress) {
+            // the buffer is compressed from its array
+            buffer = ByteBuffer.allocate(RunFileFormat.BUFFER_SIZE);
+            compressedBlock = new byte[RunFileFormat.BLOCK_HEADER_SIZE + RunFileFormat.BUFFER_SIZE];
+        }
+        else {
+            buffer = ByteBuffer.allocateDirect(RunFileFormat.BUFFER_SIZE);
+        }
+    }
+
+    public long getEncodedBytes() {
+        return encodedBytes;
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    @Override
+    protected boolean outputIsNull() {
+        return currentOutput == null;
+    }
+
+    @Override
+    protected void createNewOutput(String newFilename) throws IOException {
+        currentOutput = FileChannel.open(
+            Paths.get(newFilename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        );
+
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+
+        buffer.clear();
+        wroteHeader = false;
+        entriesWritten = 0;
+        index = new RunFileIndex();
+    }
+
+    /**
+     * Writes the term and the postings of an entry.
+     *  The header is written before the first entry, and the entry is
+     *  added to the index if it's one of every INDEX_INTERVAL entries
+     */
+    @Override
+    protected void writeEntry(Map.Entry<String, V> entry, boolean lastEntry) throws IOException {
+        if (!(entry.getValue().getPostingList() instanceof PostingList)) {
+            throw new IllegalArgumentException("Run files only support primitive posting lists");
+        }
+
+        PostingList<?> postingList = (PostingList<?>) entry.getValue().getPostingList();
+        WeightsAndPositionsPostingList positionsPostingList = postingList instanceof WeightsAndPositionsPostingList
+            ? (WeightsAndPositionsPostingList) postingList
+            : null;
+
+        if (!wroteHeader) {
+            // nothing was encoded to the buffer yet, so the header is written first
+            ByteBuffer header = ByteBuffer.allocate(RunFileFormat.HEADER_SIZE);
+            header.put(compress ? RunFileFormat.DEFLATE : RunFileFormat.NONE);
+            header.put(positionsPostingList != null ? RunFileFormat.WEIGHTS_AND_POSITIONS : RunFileFormat.WEIGHTS);
+            header.flip();
+            encodedBytes += header.remaining();
+            write(header);
+            wroteHeader = true;
+        }
+
+        byte[] termBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(RunFileFormat.MAX_VBYTE_SIZE);
+
+        // the buffer is only written on the next flush, after what is already on the file
+        if (entriesWritten++ % RunFileFormat.INDEX_INTERVAL == 0) {
+            if (!compress) {
+                index.add(entry.getKey(), currentOutput.position() + buffer.position(), 0);
+            }
+            else {
+                index.add(entry.getKey(), currentOutput.position(), buffer.position());
+            }
+        }
+
+        VByte.write(buffer, termBytes.length);
+        for (int offset = 0; offset < termBytes.length; ) {
+            ensureRemaining(1);
+
+            int length = Math.min(buffer.remaining(), termBytes.length - offset);
+            buffer.put(termBytes, offset, length);
+            offset += length;
+        }
+
+        ensureRemaining(RunFileFormat.MAX_VBYTE_SIZE);
+        VByte.write(buffer, postingList.size());
+
+        int previousDocId = 0;
+        for (int i = 0; i < postingList.size(); i++) {
+            ensureRemaining(2 * RunFileFormat.MAX_VBYTE_SIZE + Float.BYTES);
+
+            int docId = postingList.getDocId(i);
+            VByte.write(buffer, docId - previousDocId);
+            buffer.putFloat(postingList.getWeight(i));
+            previousDocId = docId;
+
+            if (positionsPostingList != null) {
+                int positionsCount = positionsPostingList.getPositionsCount(i);
+                VByte.write(buffer, positionsCount);
+
+                int previousPosition = 0;
+                for (int p = 0; p < positionsCount; p++) {
+                    ensureRemaining(RunFileFormat.MAX_VBYTE_SIZE);
+
+                    int position = positionsPostingList.getPosition(i, p);
+                    VByte.write(buffer, position - previousPosition);
+                    previousPosition = position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer to the file if it doesn't have
+     *  the number of bytes received available
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the file,
+     *  compressed as a block if the files are compressed
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        encodedBytes += buffer.remaining();
+
+        if (!compress) {
+            write(buffer);
+        }
+        else if (buffer.hasRemaining()) {
+            int contentSize = buffer.remaining();
+
+            deflater.reset();
+            deflater.setInput(buffer.array(), 0, contentSize);
+            deflater.finish();
+
+            // the compressed bytes are only kept if they fit on less space than the content
+            int compressedSize = 0;
+            while (!deflater.finished() && compressedSize < contentSize) {
+                compressedSize += deflater.deflate(
+                    compressedBlock,
+                    RunFileFormat.BLOCK_HEADER_SIZE + compressedSize,
+                    contentSize - compressedSize
+                );
+            }
+
+            ByteBuffer block = ByteBuffer.wrap(compressedBlock);
+            block.putInt(contentSize);
+            if (deflater.finished() && compressedSize < contentSize) {
+                block.putInt(compressedSize);
+            }
+            else {
+                compressedSize = contentSize;
+                block.putInt(compressedSize);
+                block.put(buffer.array(), 0, contentSize);
+            }
+
+            write(ByteBuffer.wrap(compressedBlock, 0, RunFileFormat.BLOCK_HEADER_SIZE + compressedSize));
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Writes the index of the current file, which is never compressed,
+     *  followed by its offset
+     */
+    private void writeIndex() throws IOException {
+        long indexOffset = currentOutput.position();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        VByte.write(output, index.size());
+        for (int i = 0; i < index.size(); i++) {
+            byte[] termBytes = index.getTerm(i).getBytes(StandardCharsets.UTF_8);
+            VByte.write(output, termBytes.length);
+            output.write(termBytes);
+            output.writeLong(index.getOffset(i));
+            output.writeInt(index.getContentOffset(i));
+        }
+        output.writeLong(indexOffset);
+        output.flush();
+
+        ByteBuffer toWrite = ByteBuffer.wrap(bytes.toByteArray());
+        encodedBytes += toWrite.remaining();
+        write(toWrite);
+    }
+
+    private void write(ByteBuffer toWrite) throws IOException {
+        writtenBytes += toWrite.remaining();
+
+        while (toWrite.hasRemaining()) {
+            currentOutput.write(toWrite);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentOutput != null) {
+            flush();
+            writeIndex();
+            currentOutput.close();
+            currentOutput = null;
+
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+        }
+    }
+
+}
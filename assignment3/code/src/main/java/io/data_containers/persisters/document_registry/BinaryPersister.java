@@ -0,0 +1,54 @@
+package io.data_containers.persisters.document_registry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Persists the document registry in binary, the identifier of
+ *  each document as a four byte int. Since all identifiers have
+ *  the same size, the identifier of a document id is found
+ *  directly on the file, without decoding the ones before it
+ */
+public class BinaryPersister extends DocumentRegistryPersister {
+
+    /**
+     * Currently open output stream to write identifiers
+     */
+    private DataOutputStream currentOutput;
+
+    public BinaryPersister(String outputFolder, long limitFileSize) {
+        super(outputFolder, limitFileSize);
+    }
+
+    @Override
+    protected boolean outputIsNull() {
+        return currentOutput == null;
+    }
+
+    @Override
+    protected void createNewOutput(String newFilename) throws IOException {
+        currentOutput = new DataOutputStream(
+            new BufferedOutputStream(
+                new FileOutputStream(
+                    newFilename
+                )
+            )
+        );
+    }
+
+    @Override
+    protected void writeIdentifier(int identifier, boolean lastIdentifier) throws IOException {
+        currentOutput.writeInt(identifier);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentOutput != null) {
+            currentOutput.close();
+            currentOutput = null;
+        }
+    }
+
+}
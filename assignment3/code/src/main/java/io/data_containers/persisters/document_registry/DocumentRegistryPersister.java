@@ -0,0 +1,127 @@
+package io.data_containers.persisters.document_registry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class of the persisters of the document registry.
+ * The identifiers are written in document id order directly
+ *  from an int array, without creating entry objects.
+ * A maximum size per file can be defined, where each identifier
+ *  counts as the size of an int, however all identifiers can
+ *  be written to the same file.
+ */
+public abstract class DocumentRegistryPersister implements Closeable {
+
+    protected String outputFolder;
+
+    /**
+     * Size of the identifiers currently written to the current file
+     */
+    protected long currentFileSize;
+
+    /**
+     * Maximum size of the identifiers per file
+     */
+    protected long limitFileSize;
+
+    /**
+     * Counter to ensure the several files created
+     *  have different names
+     */
+    protected int filesCounter;
+
+    /**
+     * Contains the document ids, as Strings, of the first
+     *  identifier of each file created, in order
+     */
+    protected List<String> firstKeys;
+
+    public DocumentRegistryPersister(String outputFolder, long limitFileSize) {
+        this.outputFolder = outputFolder;
+        this.limitFileSize = limitFileSize;
+
+        this.currentFileSize = 0;
+        this.filesCounter = 0;
+        this.firstKeys = new ArrayList<>();
+    }
+
+    public List<String> getFirstKeys() {
+        return firstKeys;
+    }
+
+    public int getAmountOfFilesCreated() {
+        return filesCounter;
+    }
+
+    /**
+     * Persists the identifiers of a range of documents with
+     *  consecutive document ids.
+     * If the output is null before persisting a new
+     *  output is created.
+     * If the maximum size per file is greater than 0
+     *  whenever the size reaches the maximum, a new output
+     *  is created/used
+     *
+     * @param firstDocId document id of the first identifier
+     * @param identifiers array with the identifiers
+     * @param from index of the first identifier on the array
+     * @param count number of identifiers to persist
+     * @param isLast if its the last set of identifiers to write
+     * @throws IOException if some error occurs while persisting the identifiers
+     */
+    public void persist(int firstDocId, int[] identifiers, int from, int count, boolean isLast) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (outputIsNull() || (limitFileSize > 0 && currentFileSize + Integer.BYTES > limitFileSize)) {
+                close();
+
+                String newFilename = String.format(
+                    "%s%s",
+                    outputFolder,
+                    filesCounter++
+                );
+                createNewOutput(newFilename);
+                firstKeys.add(Integer.toString(firstDocId + i));
+
+                currentFileSize = 0;
+            }
+
+            writeIdentifier(identifiers[from + i], isLast && i == count - 1);
+
+            currentFileSize += Integer.BYTES;
+        }
+
+        if (isLast) {
+            currentFileSize = 0;
+            close();
+        }
+    }
+
+    /**
+     * Checks if the output stream/writer is null
+     *
+     * @return true if the output is null, false otherwise
+     */
+    protected abstract boolean outputIsNull();
+
+    /**
+     * Creates a new output
+     *
+     * @param newFilename filename for the new output
+     * @throws IOException if some error occurs while opening the new output
+     */
+    protected abstract void createNewOutput(String newFilename) throws IOException;
+
+    /**
+     * Descendent classes implement this method accordingly
+     *  to the specific output format
+     *
+     * @param identifier to write
+     * @param lastIdentifier if its the last identifier to write to the output
+     * @throws IOException if some error occurs while writing an identifier
+     */
+    protected abstract void writeIdentifier(int identifier, boolean lastIdentifier) throws IOException;
+
+}
@@ -0,0 +1,90 @@
+package io.data_containers.persisters.document_registry;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Persists the document registry in text, the identifier
+ *  of each document on its own line
+ */
+public class LinesPersister extends DocumentRegistryPersister {
+
+    private static final byte LINE_TERMINATOR = '\n';
+
+    /**
+     * Currently open output stream to write identifiers
+     */
+    private OutputStream currentOutput;
+
+    /**
+     * Buffer reused to convert the identifiers to text
+     */
+    private byte[] digits;
+
+    /**
+     * If no identifier was written to the current output yet
+     */
+    private boolean firstOfOutput;
+
+    public LinesPersister(String outputFolder, long limitFileSize) {
+        super(outputFolder, limitFileSize);
+        digits = new byte[11];
+    }
+
+    @Override
+    protected boolean outputIsNull() {
+        return currentOutput == null;
+    }
+
+    @Override
+    protected void createNewOutput(String newFilename) throws IOException {
+        currentOutput = new BufferedOutputStream(
+            new FileOutputStream(
+                newFilename
+            )
+        );
+        firstOfOutput = true;
+    }
+
+    /**
+     * Writes the identifier in decimal, preceded by the line terminator
+     *  if it's not the first of the file, so files never end with one
+     *  even if the last identifier was written by an earlier persist
+     */
+    @Override
+    protected void writeIdentifier(int identifier, boolean lastIdentifier) throws IOException {
+        long value = identifier;
+        boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (negative) {
+            digits[--start] = '-';
+        }
+
+        if (!firstOfOutput) {
+            currentOutput.write(LINE_TERMINATOR);
+        }
+        firstOfOutput = false;
+
+        currentOutput.write(digits, start, digits.length - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentOutput != null) {
+            currentOutput.close();
+            currentOutput = null;
+        }
+    }
+
+}
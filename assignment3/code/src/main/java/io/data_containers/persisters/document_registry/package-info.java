@@ -0,0 +1,5 @@
+/**
+ * Classes that persist the document registry
+ *  directly from its primitive identifiers array
+ */
+package io.data_containers.persisters.document_registry;
@@ -0,0 +1,85 @@
+package io.data_containers.persisters.strategies;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.WeightsPostingList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary format for indexer with weights where the postings of each term
+ *  are ordered by impact: they are sorted by decreasing weight and split
+ *  into segments of PostingList.BLOCK_SIZE postings, so every weight of
+ *  a segment is equal or lower than every weight of the previous segment.
+ * Inside a segment the postings are sorted by document id, to keep the
+ *  document id gaps small. The first posting of each segment stores its
+ *  document id instead of the gap.
+ * The maximum weight of each block written by the base format is the
+ *  maximum weight of each segment, and the skip entries point to the
+ *  start of each segment
+ */
+public class BinaryImpactOrderedWeightStrategy extends BinaryWeightStrategy {
+
+    @Override
+    protected List<Document<Float>> arrangePostings(List<Document<Float>> postingList) {
+        int size = postingList.size();
+
+        // primitive posting lists are read without creating document objects
+        PostingList<?> primitivePostingList = postingList instanceof PostingList
+            ? (PostingList<?>) postingList
+            : null;
+
+        // weights aren't negative so the bits of the float sort the same way
+        //  as the float, which allows sorting primitive longs by weight and docId
+        long[] byImpact = new long[size];
+        for (int i = 0; i < size; i++) {
+            int docId;
+            float weight;
+            if (primitivePostingList != null) {
+                docId = primitivePostingList.getDocId(i);
+                weight = primitivePostingList.getWeight(i);
+            }
+            else {
+                Document<Float> document = postingList.get(i);
+                docId = document.getDocId();
+                weight = document.getWeight();
+            }
+
+            int weightBits = Float.floatToIntBits(weight);
+            byImpact[i] = ((long) (Integer.MAX_VALUE - weightBits) << 32) | docId;
+        }
+        Arrays.sort(byImpact);
+
+        WeightsPostingList arranged = new WeightsPostingList(size);
+
+        long[] segment = new long[PostingList.BLOCK_SIZE];
+        for (int segmentStart = 0; segmentStart < size; segmentStart += PostingList.BLOCK_SIZE) {
+            int segmentSize = Math.min(PostingList.BLOCK_SIZE, size - segmentStart);
+
+            for (int i = 0; i < segmentSize; i++) {
+                long docId = byImpact[segmentStart + i] & 0xFFFFFFFFL;
+                int weightBits = Integer.MAX_VALUE - (int) (byImpact[segmentStart + i] >>> 32);
+
+                segment[i] = (docId << 32) | (weightBits & 0xFFFFFFFFL);
+            }
+            Arrays.sort(segment, 0, segmentSize);
+
+            for (int i = 0; i < segmentSize; i++) {
+                arranged.add((int) (segment[i] >>> 32), Float.intBitsToFloat((int) segment[i]));
+            }
+        }
+
+        return arranged;
+    }
+
+    @Override
+    protected int writePosting(OutputStream output, List<Document<Float>> postingList, int index, int previousDocId)
+        throws IOException {
+        // document ids only increase inside a segment
+        return super.writePosting(output, postingList, index, index % PostingList.BLOCK_SIZE == 0 ? 0 : previousDocId);
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.data_containers.persisters.strategies;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.WeightsPostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Binary format for indexer with weights.
+ * Each posting is the VByte document id gap followed
+ *  by the quantized weight
+ */
+public class BinaryWeightStrategy extends BinaryWeightStrategyBase<Float, Document<Float>> {
+
+    @Override
+    protected int writePosting(OutputStream output, List<Document<Float>> postingList, int index, int previousDocId)
+        throws IOException {
+        int docId;
+        float weight;
+
+        if (postingList instanceof WeightsPostingList) {
+            WeightsPostingList weightsPostingList = (WeightsPostingList) postingList;
+
+            docId = weightsPostingList.getDocId(index);
+            weight = weightsPostingList.getWeight(index);
+        }
+        else {
+            Document<Float> document = postingList.get(index);
+
+            docId = document.getDocId();
+            weight = document.getWeight();
+        }
+
+        VByte.write(output, docId - previousDocId);
+        WeightQuantization.write(output, weight);
+
+        return docId;
+    }
+
+}
@@ -0,0 +1,147 @@
+package io.data_containers.persisters.strategies;
+
+import data_containers.indexer.post_indexing_actions.CalculateMaxWeightsAction;
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
+import data_containers.indexer.structures.TermInfoWithIDF;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary format for indexers with weights. Each entry has:
+ * <ul>
+ *     <li>the term: VByte length of its UTF-8 bytes followed by the bytes</li>
+ *     <li>VByte document frequency</li>
+ *     <li>idf, as a 4 bytes float</li>
+ *     <li>VByte length in bytes of the rest of the entry</li>
+ *     <li>the maximum weight of each block of PostingList.BLOCK_SIZE postings, quantized</li>
+ *     <li>if there's more than one block, a skip entry per block: the last document id
+ *      of the block and the offset in bytes of its first posting from the first
+ *      posting of the list, both as 4 bytes ints</li>
+ *     <li>the postings: VByte gap to the previous document id (the first one is
+ *      the document id itself), the quantized weight and whatever extra
+ *      information the specific strategy writes</li>
+ * </ul>
+ * There are no separators nor terminators. The length of the rest of the entry
+ *  lets loaders skip the postings of terms that aren't needed, and the skip
+ *  entries let them jump to the block where a document would be without
+ *  decoding the blocks before
+ *
+ * @param <W> type of the weight
+ * @param <D> type of the document
+ */
+public abstract class BinaryWeightStrategyBase<W extends Number, D extends Document<W>>
+    extends IndexerStrategy<W, D, TermInfoWithIDF<W, D>> {
+
+    /**
+     * The postings are encoded here first to know their
+     *  length. Reused between entries
+     */
+    private ByteArrayOutputStream postingsBuffer;
+
+    public BinaryWeightStrategyBase() {
+        super(new byte[0], new byte[0]);
+        postingsBuffer = new ByteArrayOutputStream();
+    }
+
+    @Override
+    public byte[] handleKey(String key) {
+        byte[] termBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        byte[] keyBytes = new byte[VByte.size(termBytes.length) + termBytes.length];
+        int offset = VByte.write(keyBytes, 0, termBytes.length);
+        System.arraycopy(termBytes, 0, keyBytes, offset, termBytes.length);
+
+        return keyBytes;
+    }
+
+    @Override
+    public void handleValue(OutputStream output, TermInfoWithIDF<W, D> value) {
+        List<D> postingList = arrangePostings(value.getPostingList());
+
+        postingsBuffer.reset();
+
+        // block upper bounds calculated at indexing time follow the document id order
+        float[] blockMaxWeights = postingList == value.getPostingList() ? value.getBlockMaxWeights() : null;
+        if (blockMaxWeights == null) {
+            blockMaxWeights = CalculateMaxWeightsAction.calculateBlockMaxWeights(postingList);
+        }
+
+        int blocksCount = blockMaxWeights.length;
+        int[] blocksLastDocIds = new int[blocksCount];
+        int[] blocksOffsets = new int[blocksCount];
+
+        try {
+            int previousDocId = 0;
+            for (int i = 0; i < postingList.size(); i++) {
+                if (i % PostingList.BLOCK_SIZE == 0) {
+                    blocksOffsets[i / PostingList.BLOCK_SIZE] = postingsBuffer.size();
+                }
+
+                previousDocId = writePosting(postingsBuffer, postingList, i, previousDocId);
+
+                blocksLastDocIds[i / PostingList.BLOCK_SIZE] = previousDocId;
+            }
+
+            int skipsLength = blocksCount > 1 ? blocksCount * 2 * Integer.BYTES : 0;
+
+            VByte.write(output, postingList.size());
+            writeInt(output, Float.floatToIntBits(value.getIdf()));
+            VByte.write(output, blocksCount * WeightQuantization.BYTES + skipsLength + postingsBuffer.size());
+
+            for (float blockMaxWeight : blockMaxWeights) {
+                WeightQuantization.write(output, blockMaxWeight);
+            }
+
+            if (blocksCount > 1) {
+                for (int block = 0; block < blocksCount; block++) {
+                    writeInt(output, blocksLastDocIds[block]);
+                    writeInt(output, blocksOffsets[block]);
+                }
+            }
+
+            postingsBuffer.writeTo(output);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void writeInt(OutputStream output, int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+
+    /**
+     * Defines the order the postings are written. By default
+     *  the order of the posting list, by document id
+     *
+     * @param postingList posting list to write
+     * @return the postings on the order to write
+     */
+    protected List<D> arrangePostings(List<D> postingList) {
+        return postingList;
+    }
+
+    /**
+     * Writes a posting of a posting list
+     *
+     * @param output where to write
+     * @param postingList posting list being written
+     * @param index of the posting to write
+     * @param previousDocId document id of the previous posting, 0 for the first
+     * @return the document id of the posting written
+     * @throws IOException if some error occurs while writing
+     */
+    protected abstract int writePosting(OutputStream output, List<D> postingList, int index, int previousDocId)
+        throws IOException;
+
+}
@@ -0,0 +1,65 @@
+package io.data_containers.persisters.strategies;
+
+import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+import io.data_containers.encoding.VByte;
+import io.data_containers.encoding.WeightQuantization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Binary format for indexer with weights and positions.
+ * Each posting is the VByte document id gap, the quantized
+ *  weight, the VByte number of positions and the VByte gaps
+ *  between positions (the first one is the position itself)
+ */
+public class BinaryWeightsAndPositionStrategy
+    extends BinaryWeightStrategyBase<Float, DocumentWithInfo<Float, List<Integer>>> {
+
+    @Override
+    protected int writePosting(OutputStream output,
+                               List<DocumentWithInfo<Float, List<Integer>>> postingList,
+                               int index,
+                               int previousDocId) throws IOException {
+        if (!(postingList instanceof WeightsAndPositionsPostingList)) {
+            DocumentWithInfo<Float, List<Integer>> document = postingList.get(index);
+
+            VByte.write(output, document.getDocId() - previousDocId);
+            WeightQuantization.write(output, document.getWeight());
+
+            List<Integer> positions = document.getExtraInfo();
+            VByte.write(output, positions.size());
+
+            int previousPosition = 0;
+            for (int position : positions) {
+                VByte.write(output, position - previousPosition);
+                previousPosition = position;
+            }
+
+            return document.getDocId();
+        }
+
+        WeightsAndPositionsPostingList positionsPostingList = (WeightsAndPositionsPostingList) postingList;
+
+        int docId = positionsPostingList.getDocId(index);
+
+        VByte.write(output, docId - previousDocId);
+        WeightQuantization.write(output, positionsPostingList.getWeight(index));
+
+        int positionsCount = positionsPostingList.getPositionsCount(index);
+        VByte.write(output, positionsCount);
+
+        int previousPosition = 0;
+        for (int p = 0; p < positionsCount; p++) {
+            int position = positionsPostingList.getPosition(index, p);
+
+            VByte.write(output, position - previousPosition);
+            previousPosition = position;
+        }
+
+        return docId;
+    }
+
+}
@@ -18,6 +18,17 @@ public abstract class IndexerStrategy<
         super(separator, "\n".getBytes());
     }
 
+    /**
+     * Constructor for formats that don't terminate
+     *  entries with a new line
+     *
+     * @param separator to write between terms and documents
+     * @param entryTerminator to write after an entry
+     */
+    public IndexerStrategy(byte[] separator, byte[] entryTerminator) {
+        super(separator, entryTerminator);
+    }
+
     @Override
     public byte[] handleKey(String key) {
         return key.getBytes();
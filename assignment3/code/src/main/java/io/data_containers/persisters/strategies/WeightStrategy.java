@@ -1,6 +1,9 @@
 package io.data_containers.persisters.strategies;
 
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.WeightsPostingList;
+
+import java.util.List;
 
 /**
  * Formats the output for indexer with weights.
@@ -18,8 +21,25 @@ public class WeightStrategy extends WeightStrategyBase<Float, Document<Float>> {
 
     @Override
     public byte[] handleDocument(Document<Float> document) {
-        return String.format("%d:%." + precision +"f", document.getDocId(), document.getWeight()).getBytes();
+        return formatPosting(document.getDocId(), document.getWeight());
     }
 
+    @Override
+    protected byte[] handlePosting(List<Document<Float>> postingList, int index) {
+        if (postingList instanceof WeightsPostingList) {
+            WeightsPostingList weightsPostingList = (WeightsPostingList) postingList;
+
+            return formatPosting(weightsPostingList.getDocId(index), weightsPostingList.getWeight(index));
+        }
+
+        return super.handlePosting(postingList, index);
+    }
+
+    /**
+     * docId:weight
+     */
+    private byte[] formatPosting(int docId, float weight) {
+        return String.format("%d:%." + precision +"f", docId, weight).getBytes();
+    }
 
 }
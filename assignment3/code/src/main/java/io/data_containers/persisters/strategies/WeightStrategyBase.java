@@ -41,7 +41,7 @@ public abstract class WeightStrategyBase<W extends Number, D extends Document<W>
 
         List<D> postingList = value.getPostingList();
         for (int i = 0; i < postingList.size(); i++) {
-            byte[] docBytes = handleDocument(postingList.get(i));
+            byte[] docBytes = handlePosting(postingList, i);
 
             try {
                 output.write(docBytes, 0, docBytes.length);
@@ -63,4 +63,17 @@ public abstract class WeightStrategyBase<W extends Number, D extends Document<W>
 
     public abstract byte[] handleDocument(D document);
 
+    /**
+     * Transforms into bytes a posting of a posting list.
+     * By default gets the document from the list, however
+     *  strategies that know the primitive posting lists
+     *  should override this method to avoid creating document objects
+     *
+     * @param postingList posting list being written
+     * @param index of the posting to transform
+     */
+    protected byte[] handlePosting(List<D> postingList, int index) {
+        return handleDocument(postingList.get(index));
+    }
+
 }
@@ -1,6 +1,7 @@
 package io.data_containers.persisters.strategies;
 
 import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
 
 import java.util.List;
 
@@ -28,4 +29,32 @@ public class WeightsAndPositionStrategy extends WeightStrategyBase<Float, Docume
         return sb.toString().getBytes();
     }
 
+    @Override
+    protected byte[] handlePosting(List<DocumentWithInfo<Float, List<Integer>>> postingList, int index) {
+        if (!(postingList instanceof WeightsAndPositionsPostingList)) {
+            return super.handlePosting(postingList, index);
+        }
+
+        WeightsAndPositionsPostingList positionsPostingList = (WeightsAndPositionsPostingList) postingList;
+
+        StringBuilder sb = new StringBuilder(
+            String.format(
+                "%s:%." + precision + "f:",
+                positionsPostingList.getDocId(index),
+                positionsPostingList.getWeight(index)
+            )
+        );
+
+        int positionsCount = positionsPostingList.getPositionsCount(index);
+        for (int p = 0; p < positionsCount; p++) {
+            sb.append(positionsPostingList.getPosition(index, p));
+
+            if (p < positionsCount - 1) {
+                sb.append(',');
+            }
+        }
+
+        return sb.toString().getBytes();
+    }
+
 }
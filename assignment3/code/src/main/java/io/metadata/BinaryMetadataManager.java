@@ -1,7 +1,5 @@
 package io.metadata;
 
-import data_containers.DocumentRegistry;
-
 import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -22,8 +20,10 @@ public class BinaryMetadataManager extends MetadataManager {
 
     @Override
     public void persistMetadata(
+        int numberOfDocuments,
         List<String> docRegFirstKeys,
-        List<String> indexerFirstKeys
+        List<List<String>> indexerFirstKeys,
+        List<String> indexerFilesPrefixes
         ) throws IOException {
 
         ObjectOutputStream output = new ObjectOutputStream(
@@ -32,7 +32,7 @@ public class BinaryMetadataManager extends MetadataManager {
             )
         );
 
-        output.writeInt(DocumentRegistry.getNumberOfDocuments());
+        output.writeInt(numberOfDocuments);
 
         TreeMap<Integer, String> docRegMetadata = new TreeMap<>();
         for (int i = 0; i < docRegFirstKeys.size(); i++) {
@@ -43,9 +43,15 @@ public class BinaryMetadataManager extends MetadataManager {
         }
         output.writeObject(docRegMetadata);
 
+        // the ranges don't overlap, so the first keys of all
+        //  ranges can be stitched on the same map
         TreeMap<String, String> indexerMetadata = new TreeMap<>();
-        for (int i = 0; i < indexerFirstKeys.size(); i++) {
-            indexerMetadata.put(indexerFirstKeys.get(i), i + "");
+        for (int range = 0; range < indexerFirstKeys.size(); range++) {
+            List<String> rangeFirstKeys = indexerFirstKeys.get(range);
+
+            for (int i = 0; i < rangeFirstKeys.size(); i++) {
+                indexerMetadata.put(rangeFirstKeys.get(i), indexerFilesPrefixes.get(range) + i);
+            }
         }
         output.writeObject(indexerMetadata);
 
@@ -53,7 +59,7 @@ public class BinaryMetadataManager extends MetadataManager {
     }
 
     @Override
-    public void loadMetadata(
+    public int loadMetadata(
         TreeMap<Integer, String> docRegMetadata,
         TreeMap<String, String> indexerMetadata
     ) throws IOException {
@@ -63,7 +69,7 @@ public class BinaryMetadataManager extends MetadataManager {
             )
         );
 
-        DocumentRegistry.setNumberOfDocuments(input.readInt());
+        int numberOfDocuments = input.readInt();
 
         TreeMap<Integer, String> docRegMetadataTmp;
         TreeMap<String, String> indexerMetadataTmp;
@@ -78,5 +84,7 @@ public class BinaryMetadataManager extends MetadataManager {
 
         docRegMetadata.putAll(docRegMetadataTmp);
         indexerMetadata.putAll(indexerMetadataTmp);
+
+        return numberOfDocuments;
     }
 }
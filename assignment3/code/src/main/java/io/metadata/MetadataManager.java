@@ -1,6 +1,7 @@
 package io.metadata;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -16,22 +17,58 @@ public abstract class MetadataManager {
         this.filename = filename;
     }
 
-    public abstract void persistMetadata(
+    /**
+     * Persists the metadata of the index
+     *
+     * @param numberOfDocuments number of documents of the corpus
+     * @param docRegFirstKeys first document id of each document registry file
+     * @param indexerFirstKeys first term of each indexer file
+     * @throws IOException if some error occurs while writing
+     */
+    public void persistMetadata(
+        int numberOfDocuments,
         List<String> docRegFirstKeys,
         List<String> indexerFirstKeys
+    ) throws IOException {
+        persistMetadata(
+            numberOfDocuments,
+            docRegFirstKeys,
+            Collections.singletonList(indexerFirstKeys),
+            Collections.singletonList("")
+        );
+    }
+
+    /**
+     * Persists the metadata of an index whose indexer files were written
+     *  by several persisters, each one with the terms of a range. The
+     *  files of each range are named with the prefix of the range followed
+     *  by the number of the file on the range
+     *
+     * @param numberOfDocuments number of documents of the corpus
+     * @param docRegFirstKeys first document id of each document registry file
+     * @param indexerFirstKeys first term of each indexer file of each range,
+     *  with the ranges sorted by term
+     * @param indexerFilesPrefixes prefix of the names of the indexer files of each range
+     * @throws IOException if some error occurs while writing
+     */
+    public abstract void persistMetadata(
+        int numberOfDocuments,
+        List<String> docRegFirstKeys,
+        List<List<String>> indexerFirstKeys,
+        List<String> indexerFilesPrefixes
     ) throws IOException;
 
     /**
-     * Loads the metadata into the received structures.
-     * Also sets the NUMBER_OF_DOCUMENTS variable of the DocumentRegistry class
+     * Loads the metadata into the received structures
      *
      * @param docRegMetadata a treemap reference to where the metadata
      *  of the document registries will be stored
      * @param indexerMetadata a treemap reference to where the metadata
      *  of the indexers will be stored
+     * @return the number of documents of the corpus
      * @throws IOException
      */
-    public abstract void loadMetadata(
+    public abstract int loadMetadata(
         TreeMap<Integer, String> docRegMetadata,
         TreeMap<String, String> indexerMetadata
     ) throws IOException;
@@ -0,0 +1,288 @@
+package mains.benchmarks;
+
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.WeightsPostingList;
+import mains.indexing.pipelines.SPIMIPipeline;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the postings per second of the merge of the posting lists
+ *  of a term from several temporary blocks, done by the SPIMI merge,
+ *  comparing the previous approach, which removed the merged postings
+ *  from the head of the lists and compared every posting with the
+ *  heads of all other lists, with the current one, which concatenates
+ *  lists that don't overlap and copies runs found with binary searches.
+ * Two layouts of a term with millions of postings are merged: blocks
+ *  with consecutive document ids, as written by a single indexing
+ *  thread, and blocks with interleaved batches of document ids, as
+ *  written by several indexing threads.
+ * Each variant runs some warmup rounds, so the JIT compiles the
+ *  code, before the measured rounds. The posting lists are copied
+ *  before every round, outside of the measured time, since the
+ *  previous approach empties them.
+ */
+public class PostingMergeBenchmark {
+
+    /**
+     * Number of consecutive documents handed at once to an
+     *  indexing thread, on the interleaved layout
+     */
+    private static final int DOCUMENTS_PER_BATCH = 512;
+
+    /**
+     * Application starting point
+     *
+     * Exit codes:
+     * <ul>
+     *  <li>0: program executed normally without errors</li>
+     *  <li>1: errors occurred related to program options or arguments</li>
+     * </ul>
+     *
+     * @param args program options and arguments
+     */
+    public static void main(String[] args) {
+        Namespace parsedArgs = parseProgramArguments(args);
+
+        int postings = parsedArgs.getInt("postings");
+        int blocks = parsedArgs.getInt("blocks");
+        long seed = parsedArgs.getLong("seed");
+
+        int warmupRounds = parsedArgs.getInt("warmup_rounds");
+        int rounds = parsedArgs.getInt("rounds");
+
+        for (boolean interleaved : new boolean[] {false, true}) {
+            System.out.println(interleaved ? "Interleaved blocks" : "Consecutive blocks");
+
+            List<WeightsPostingList> postingLists = generatePostingLists(postings, blocks, interleaved, seed);
+
+            double removeHeadRate = run("remove head", new RemoveHeadVariant(), postingLists, warmupRounds, rounds);
+            double concatenationRate = run("concatenation", new ConcatenationVariant(), postingLists, warmupRounds, rounds);
+
+            System.out.printf("Speedup: %.2fx%n", concatenationRate / removeHeadRate);
+        }
+    }
+
+    /**
+     * Parses the program arguments
+     *
+     * @param args program arguments
+     * @return the parsed arguments
+     */
+    private static Namespace parseProgramArguments(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("PostingMergeBenchmark").build()
+            .defaultHelp(true)
+            .description("Benchmark of the merge of the posting lists of a term from several temporary blocks");
+
+        parser.addArgument("--postings")
+            .type(Integer.class)
+            .setDefault(2000000)
+            .help("number of postings of the term, on all blocks");
+        parser.addArgument("--blocks")
+            .type(Integer.class)
+            .setDefault(8)
+            .help("number of temporary blocks with postings of the term");
+        parser.addArgument("--warmup-rounds")
+            .type(Integer.class)
+            .setDefault(3)
+            .help("merges before measuring");
+        parser.addArgument("--rounds")
+            .type(Integer.class)
+            .setDefault(5)
+            .help("measured merges");
+        parser.addArgument("--seed")
+            .type(Long.class)
+            .setDefault(42L)
+            .help("seed of the postings generator");
+
+        try {
+            return parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Merges copies of the posting lists several times and prints
+     *  the postings per second of the measured rounds
+     *
+     * @return postings merged per second
+     */
+    private static double run(String name, Variant variant, List<WeightsPostingList> postingLists,
+                              int warmupRounds, int rounds) {
+        int postings = 0;
+        for (WeightsPostingList postingList : postingLists) {
+            postings += postingList.size();
+        }
+
+        double checksum = 0;
+
+        for (int round = 0; round < warmupRounds; round++) {
+            checksum += checksum(variant.merge(copy(postingLists)));
+        }
+
+        long elapsed = 0;
+        for (int round = 0; round < rounds; round++) {
+            List<List<Document<Float>>> toMerge = copy(postingLists);
+
+            long begin = System.nanoTime();
+            List<Document<Float>> merged = variant.merge(toMerge);
+            elapsed += System.nanoTime() - begin;
+
+            checksum += checksum(merged);
+        }
+
+        double rate = (double) postings * rounds / (elapsed / 1e9);
+
+        // the checksum is printed so the JIT can't discard the work
+        System.out.printf("%-15s %14.0f postings/sec (checksum %.1f)%n", name, rate, checksum);
+
+        return rate;
+    }
+
+    /**
+     * Generates the posting lists of a term on several blocks. On both
+     *  layouts the document ids are split by batches, either consecutive
+     *  on each block or dealt to the blocks in turns
+     */
+    private static List<WeightsPostingList> generatePostingLists(int postings, int blocks,
+                                                                 boolean interleaved, long seed) {
+        Random random = new Random(seed);
+
+        List<WeightsPostingList> postingLists = new ArrayList<>(blocks);
+        for (int block = 0; block < blocks; block++) {
+            postingLists.add(new WeightsPostingList(postings / blocks + 1));
+        }
+
+        int postingsPerBlock = (postings + blocks - 1) / blocks;
+
+        // the term appears on about half of the documents
+        int docId = 0;
+        for (int posting = 0; posting < postings; posting++) {
+            docId += 1 + random.nextInt(3);
+
+            int block = interleaved
+                ? docId / DOCUMENTS_PER_BATCH % blocks
+                : posting / postingsPerBlock;
+
+            postingLists.get(block).add(docId, random.nextFloat());
+        }
+
+        return postingLists;
+    }
+
+    private static List<List<Document<Float>>> copy(List<WeightsPostingList> postingLists) {
+        List<List<Document<Float>>> copies = new ArrayList<>(postingLists.size());
+
+        for (WeightsPostingList postingList : postingLists) {
+            WeightsPostingList copy = postingList.emptyCopy(postingList.size());
+            copy.append(postingList, 0, postingList.size());
+
+            copies.add(copy);
+        }
+
+        return copies;
+    }
+
+    private static double checksum(List<Document<Float>> merged) {
+        WeightsPostingList postingList = (WeightsPostingList) merged;
+
+        return postingList.size() + postingList.getDocId(postingList.size() - 1) / 1e6;
+    }
+
+    /**
+     * Merge of the posting lists of a term from several blocks
+     */
+    private interface Variant {
+
+        List<Document<Float>> merge(List<List<Document<Float>>> postingLists);
+
+    }
+
+    /**
+     * Approach used before: the list with the lowest first document id is
+     *  found by checking the first posting of every list, the postings of
+     *  that list lower than the first of every other list are moved to the
+     *  merged list and removed from the head of the list
+     */
+    private static class RemoveHeadVariant implements Variant {
+
+        @Override
+        public List<Document<Float>> merge(List<List<Document<Float>>> postingLists) {
+            int mergedSize = 0;
+            for (List<Document<Float>> postingList : postingLists) {
+                mergedSize += postingList.size();
+            }
+
+            List<Document<Float>> mergedPostingList = ((WeightsPostingList) postingLists.get(0)).emptyCopy(mergedSize);
+
+            while (!postingLists.isEmpty()) {
+                if (postingLists.size() == 1) {
+                    mergedPostingList.addAll(postingLists.get(0));
+                    postingLists.clear();
+                    break;
+                }
+
+                int idx = postingLists.size() - 1;
+                int lowestDocId = postingLists.get(idx).get(0).getDocId();
+
+                for (int i = idx - 1; i >= 0; i--) {
+                    int firstDocIdOnPostToCheck = postingLists.get(i).get(0).getDocId();
+                    if (firstDocIdOnPostToCheck < lowestDocId) {
+                        lowestDocId = firstDocIdOnPostToCheck;
+                        idx = i;
+                    }
+                }
+
+                List<Document<Float>> postListWithLowestDocId = postingLists.get(idx);
+
+                int furtherIdxWhereDocIdStillLowest = 0;
+for1:           for (int i = 1; i < postListWithLowestDocId.size(); furtherIdxWhereDocIdStillLowest = i++) {
+                    int docId = postListWithLowestDocId.get(i).getDocId();
+
+                    for (List<Document<Float>> postingList : postingLists) {
+                        if (postingList != postListWithLowestDocId && postingList.get(0).getDocId() < docId) {
+                            break for1;
+                        }
+                    }
+                }
+
+                if (furtherIdxWhereDocIdStillLowest == 0) {
+                    mergedPostingList.add(postListWithLowestDocId.remove(0));
+                }
+                else {
+                    mergedPostingList.addAll(postListWithLowestDocId.subList(0, furtherIdxWhereDocIdStillLowest + 1));
+                    postListWithLowestDocId.subList(0, furtherIdxWhereDocIdStillLowest + 1).clear();
+                }
+
+                if (postListWithLowestDocId.isEmpty()) {
+                    postingLists.remove(idx);
+                }
+            }
+
+            return mergedPostingList;
+        }
+
+    }
+
+    /**
+     * Current merge of the SPIMI pipeline
+     */
+    private static class ConcatenationVariant implements Variant {
+
+        @Override
+        public List<Document<Float>> merge(List<List<Document<Float>>> postingLists) {
+            return SPIMIPipeline.mergePostingLists(postingLists);
+        }
+
+    }
+
+}
@@ -0,0 +1,275 @@
+package mains.benchmarks;
+
+import data_containers.indexer.structures.DocumentTerms;
+import data_containers.indexer.weights_calculation.indexing.IndexingCalculations;
+import data_containers.indexer.weights_calculation.indexing.LNC;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the documents per second of the per-document term
+ *  counting and LNC weighting done by the indexers, comparing the
+ *  previous approach, based on a frequencies map and a weights map
+ *  per document, with the reusable DocumentTerms structure.
+ * The documents are generated to look like tokenized MEDLINE
+ *  abstracts: terms follow a Zipf distribution over a fixed
+ *  vocabulary and each document has between 80 and 260 tokens.
+ * Each variant runs some warmup rounds, so the JIT compiles the
+ *  code, before the measured rounds.
+ */
+public class TermCountingBenchmark {
+
+    /**
+     * Application starting point
+     *
+     * Exit codes:
+     * <ul>
+     *  <li>0: program executed normally without errors</li>
+     *  <li>1: errors occurred related to program options or arguments</li>
+     * </ul>
+     *
+     * @param args program options and arguments
+     */
+    public static void main(String[] args) {
+        Namespace parsedArgs = parseProgramArguments(args);
+
+        List<List<String>> documents = generateDocuments(
+            parsedArgs.getInt("documents"),
+            parsedArgs.getInt("vocabulary_size"),
+            parsedArgs.getLong("seed")
+        );
+
+        int warmupRounds = parsedArgs.getInt("warmup_rounds");
+        int rounds = parsedArgs.getInt("rounds");
+
+        double mapsRate = run("maps", new MapsVariant(), documents, warmupRounds, rounds);
+        double documentTermsRate = run("document terms", new DocumentTermsVariant(), documents, warmupRounds, rounds);
+
+        System.out.printf("Speedup: %.2fx%n", documentTermsRate / mapsRate);
+    }
+
+    /**
+     * Parses the program arguments
+     *
+     * @param args program arguments
+     * @return the parsed arguments
+     */
+    private static Namespace parseProgramArguments(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("TermCountingBenchmark").build()
+            .defaultHelp(true)
+            .description("Benchmark of the per-document term counting and weighting");
+
+        parser.addArgument("--documents")
+            .type(Integer.class)
+            .setDefault(20000)
+            .help("number of synthetic documents to generate");
+        parser.addArgument("--vocabulary-size")
+            .type(Integer.class)
+            .setDefault(50000)
+            .help("number of distinct terms of the synthetic corpus");
+        parser.addArgument("--warmup-rounds")
+            .type(Integer.class)
+            .setDefault(5)
+            .help("rounds over all documents before measuring");
+        parser.addArgument("--rounds")
+            .type(Integer.class)
+            .setDefault(10)
+            .help("measured rounds over all documents");
+        parser.addArgument("--seed")
+            .type(Long.class)
+            .setDefault(42L)
+            .help("seed of the corpus generator");
+
+        try {
+            return parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Runs a variant over all documents several times and prints
+     *  the documents per second of the measured rounds
+     *
+     * @return documents processed per second
+     */
+    private static double run(String name, Variant variant, List<List<String>> documents, int warmupRounds, int rounds) {
+        double checksum = 0;
+
+        for (int round = 0; round < warmupRounds; round++) {
+            for (List<String> document : documents) {
+                checksum += variant.process(document);
+            }
+        }
+
+        long begin = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (List<String> document : documents) {
+                checksum += variant.process(document);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        double rate = (double) documents.size() * rounds / (elapsed / 1e9);
+
+        // the checksum is printed so the JIT can't discard the work
+        System.out.printf("%-15s %12.0f docs/sec (checksum %.3f)%n", name, rate, checksum);
+
+        return rate;
+    }
+
+    /**
+     * Generates documents with terms following a Zipf distribution.
+     * Each token is a new String, as the tokenizer returns, so
+     *  the hash codes are not shared between documents
+     */
+    private static List<List<String>> generateDocuments(int documentsCount, int vocabularySize, long seed) {
+        Random random = new Random(seed);
+
+        String[] vocabulary = new String[vocabularySize];
+        char[] chars = new char[10];
+        for (int i = 0; i < vocabularySize; i++) {
+            int length = 3 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                chars[c] = (char) ('a' + random.nextInt(26));
+            }
+            vocabulary[i] = new String(chars, 0, length);
+        }
+
+        // cumulative distribution of the rank of the terms
+        double[] cumulative = new double[vocabularySize];
+        double sum = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+
+        List<List<String>> documents = new ArrayList<>(documentsCount);
+        for (int d = 0; d < documentsCount; d++) {
+            int length = 80 + random.nextInt(181);
+
+            List<String> document = new LinkedList<>();
+            for (int t = 0; t < length; t++) {
+                int rank = sampleRank(cumulative, random.nextDouble() * sum);
+                document.add(new String(vocabulary[rank]));
+            }
+
+            documents.add(document);
+        }
+
+        return documents;
+    }
+
+    /**
+     * Binary search of the first rank with a cumulative
+     *  probability greater than the value received
+     */
+    private static int sampleRank(double[] cumulative, double value) {
+        int low = 0;
+        int high = cumulative.length - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (cumulative[middle] < value) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Counting and weighting of the terms of a document
+     */
+    private interface Variant {
+
+        /**
+         * @return sum of the final weights of the document
+         */
+        float process(List<String> document);
+
+    }
+
+    /**
+     * Approach used before the DocumentTerms structure: a frequencies map
+     *  filled with a containsKey/get/put per token and a weights map
+     *  calculated from it
+     */
+    private static class MapsVariant implements Variant {
+
+        @Override
+        public float process(List<String> document) {
+            Map<String, Integer> frequencies = new HashMap<>();
+
+            for (String term : document) {
+                if (!frequencies.containsKey(term)) {
+                    frequencies.put(term, 0);
+                }
+
+                int currentCount = frequencies.get(term);
+
+                frequencies.put(term, currentCount + 1);
+            }
+
+            Map<String, Float> weights = new HashMap<>(frequencies.size());
+
+            float weightsSquareSum = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                float wordWeight = (float) (1 + Math.log10(entry.getValue()));
+                weights.put(entry.getKey(), wordWeight);
+                weightsSquareSum += Math.pow(wordWeight, 2);
+            }
+
+            float cosineNormalization = (float) Math.sqrt(weightsSquareSum);
+
+            float weightsSum = 0;
+            for (float weight : weights.values()) {
+                weightsSum += weight / cosineNormalization;
+            }
+
+            return weightsSum;
+        }
+
+    }
+
+    /**
+     * Reusable DocumentTerms structure with the weights
+     *  calculated in place
+     */
+    private static class DocumentTermsVariant implements Variant {
+
+        private final DocumentTerms documentTerms = new DocumentTerms();
+
+        private final IndexingCalculations calculations = new LNC();
+
+        @Override
+        public float process(List<String> document) {
+            documentTerms.count(document);
+            calculations.calculateWeights(documentTerms);
+
+            float weightsSum = 0;
+            for (int i = 0; i < documentTerms.size(); i++) {
+                weightsSum += documentTerms.getWeight(i);
+            }
+
+            return weightsSum;
+        }
+
+    }
+
+}
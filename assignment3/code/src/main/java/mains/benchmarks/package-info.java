@@ -0,0 +1,5 @@
+/**
+ * Micro benchmarks of the hot paths of the indexing
+ *  and search pipelines
+ */
+package mains.benchmarks;
@@ -1,19 +1,30 @@
 package mains.indexing;
 
-import io.data_containers.persisters.strategies.DocumentRegistryStrategy;
+import data_containers.indexer.BaseIndexer;
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.TermInfoBase;
+import io.data_containers.persisters.BasePersister;
+import io.data_containers.persisters.document_registry.BinaryPersister;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
+import io.data_containers.persisters.document_registry.LinesPersister;
 import io.metadata.BinaryMetadataManager;
+import io.metadata.MetadataManager;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
 
-import io.data_containers.persisters.OutputStreamPersister;
+import io.data_containers.persisters.IndexerWithDictionaryPersister;
+import io.data_containers.persisters.strategies.BinaryImpactOrderedWeightStrategy;
+import io.data_containers.persisters.strategies.BinaryWeightStrategy;
+import io.data_containers.persisters.strategies.BinaryWeightsAndPositionStrategy;
 import io.data_containers.persisters.strategies.WeightsAndPositionStrategy;
 import io.data_containers.persisters.strategies.WeightStrategy;
 import data_containers.indexer.WeightsAndPositionsIndexer;
 import data_containers.indexer.WeightsIndexer;
 import data_containers.indexer.weights_calculation.indexing.LNC;
+import mains.indexing.pipelines.ParallelSPIMIPipeline;
 import mains.indexing.pipelines.Pipeline;
 import mains.indexing.pipelines.SPIMIPipeline;
 import parsers.corpus.CorpusReader;
@@ -41,6 +52,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Class containing the main method for the indexing pipeline
@@ -96,15 +109,24 @@ public class IndexingMain {
         int maxIndexSize = parsedArgs.getInt("maxIndexersSize") * 1024 * 1024;
         float maxLoadFactor = parsedArgs.getFloat("maxLoadFactor");
 
-        // create an advanced tokenizer
+        int indexingThreads = parsedArgs.getInt("indexingThreads");
+        int mergeThreads = parsedArgs.getInt("mergeThreads");
+        boolean useBinaryFormat = parsedArgs.getString("indexFormat").equals("binary");
+        boolean impactOrdered = parsedArgs.getBoolean("impactOrdered");
+        boolean compressTmpFiles = parsedArgs.getString("tmpFilesCompression").equals("deflate");
+
+        // create an advanced tokenizer. the stemmer and the tokenizer
+        //  keep state between calls, so each indexing thread gets its own
         Set<String> stopWords = readStopWordsFile(parsedArgs.getString("stopWordsFilename"));
 
-        List<LinguisticRule> rules = new ArrayList<>(3);
-        rules.add(new StopWordsRule(stopWords));
-        rules.add(new SnowballStemmerRule());
-        rules.add(new MinLengthRule(3));
+        Supplier<BaseTokenizer> tokenizerFactory = () -> {
+            List<LinguisticRule> rules = new ArrayList<>(3);
+            rules.add(new StopWordsRule(stopWords));
+            rules.add(new SnowballStemmerRule());
+            rules.add(new MinLengthRule(3));
 
-        BaseTokenizer tokenizer = new AdvancedTokenizer(rules);
+            return new AdvancedTokenizer(rules);
+        };
 
         System.out.println("Created the Advanced tokenizer");
 
@@ -137,61 +159,118 @@ public class IndexingMain {
 
         Pipeline pipeline;
         if (parsedArgs.getBoolean("useWeightsAndPositionsIndexer")) {
-            WeightsAndPositionsIndexer indexer = new WeightsAndPositionsIndexer(
-                new LNC()
-            );
             System.out.println("Created weights and positions indexer");
 
-            pipeline = new SPIMIPipeline<>(
-                tokenizer,
-                indexer,
+            pipeline = createPipeline(
+                tokenizerFactory,
+                () -> new WeightsAndPositionsIndexer(new LNC()),
+                indexingThreads,
                 corpusReader,
                 tmpFolder,
-                new OutputStreamPersister<>(
-                    documentRegistryFolder,
-                    maxDocRegSize,
-                    new DocumentRegistryStrategy()
-                ),
-                new OutputStreamPersister<>(
-                    indexerFolder,
+                useBinaryFormat
+                    ? new BinaryPersister(documentRegistryFolder, maxDocRegSize)
+                    : new LinesPersister(documentRegistryFolder, maxDocRegSize),
+                filesPrefix -> new IndexerWithDictionaryPersister<>(
+                    indexerFolder + filesPrefix,
                     maxIndexSize,
-                    new WeightsAndPositionStrategy()
+                    useBinaryFormat
+                        ? new BinaryWeightsAndPositionStrategy()
+                        : new WeightsAndPositionStrategy()
                 ),
                 new BinaryMetadataManager(metadataFile),
-                maxLoadFactor
+                maxLoadFactor,
+                mergeThreads,
+                compressTmpFiles
             );
 
         }
         else {
-            WeightsIndexer indexer = new WeightsIndexer(
-                new LNC()
-            );
             System.out.println("Created weights indexer");
 
-            pipeline = new SPIMIPipeline<>(
-                tokenizer,
-                indexer,
+            pipeline = createPipeline(
+                tokenizerFactory,
+                () -> new WeightsIndexer(new LNC()),
+                indexingThreads,
                 corpusReader,
                 tmpFolder,
-                new OutputStreamPersister<>(
-                    documentRegistryFolder,
-                    maxDocRegSize,
-                    true,
-                    new DocumentRegistryStrategy()
-                ),
-                new OutputStreamPersister<>(
-                    indexerFolder,
+                useBinaryFormat
+                    ? new BinaryPersister(documentRegistryFolder, maxDocRegSize)
+                    : new LinesPersister(documentRegistryFolder, maxDocRegSize),
+                filesPrefix -> new IndexerWithDictionaryPersister<>(
+                    indexerFolder + filesPrefix,
                     maxIndexSize,
-                    new WeightStrategy()
+                    impactOrdered
+                        ? new BinaryImpactOrderedWeightStrategy()
+                        : useBinaryFormat
+                            ? new BinaryWeightStrategy()
+                            : new WeightStrategy()
                 ),
                 new BinaryMetadataManager(metadataFile),
-                maxLoadFactor
+                maxLoadFactor,
+                mergeThreads,
+                compressTmpFiles
             );
         }
 
         pipeline.execute();
     }
 
+    /**
+     * Creates the SPIMI pipeline. With more than one indexing thread the
+     *  parallel version is used, where each thread has its own tokenizer
+     *  and indexer
+     *
+     * @param tokenizerFactory creates tokenizers
+     * @param indexerFactory creates indexers
+     * @param indexingThreads number of threads that tokenize and index documents
+     * @param finalIndexPersisterFactory creates the persisters of the final
+     *  index, receiving the prefix of the names of their files
+     * @param mergeThreads maximum number of threads merging the temporary files
+     * @param compressTmpFiles if the temporary files are compressed
+     * @return the pipeline to execute
+     */
+    private static <W extends Number, D extends Document<W>, I extends TermInfoBase<W, D>>
+    Pipeline<W, D, I> createPipeline(Supplier<BaseTokenizer> tokenizerFactory,
+                                     Supplier<BaseIndexer<W, D, I>> indexerFactory,
+                                     int indexingThreads,
+                                     CorpusReader corpusReader,
+                                     String tmpFolder,
+                                     DocumentRegistryPersister docRegistryPersister,
+                                     Function<String, BasePersister<String, I>> finalIndexPersisterFactory,
+                                     MetadataManager metadataManager,
+                                     float maxLoadFactor,
+                                     int mergeThreads,
+                                     boolean compressTmpFiles) {
+        if (indexingThreads > 1) {
+            return new ParallelSPIMIPipeline<>(
+                tokenizerFactory,
+                indexerFactory,
+                indexingThreads,
+                corpusReader,
+                tmpFolder,
+                docRegistryPersister,
+                finalIndexPersisterFactory,
+                metadataManager,
+                maxLoadFactor,
+                mergeThreads,
+                compressTmpFiles
+            );
+        }
+
+        return new SPIMIPipeline<>(
+            tokenizerFactory.get(),
+            indexerFactory,
+            corpusReader,
+            tmpFolder,
+            docRegistryPersister,
+            finalIndexPersisterFactory,
+            metadataManager,
+            maxLoadFactor,
+            mergeThreads,
+            compressTmpFiles
+        );
+    }
+
     /**
      * Reads a file containing stop words and builds a set with them
      *
@@ -266,6 +345,23 @@ public class IndexingMain {
             .action(Arguments.storeTrue())
             .help("Uses the indexer that calculates weight terms and stores positions");
 
+        argsParser
+            .addArgument("--index-format")
+            .dest("indexFormat")
+            .choices("text", "binary")
+            .setDefault("text")
+            .help("Format of the index files. The binary format stores document id and" +
+                " position gaps with variable byte encoding and weights quantized on two bytes," +
+                " and the document identifiers as four byte ints. Default text");
+
+        argsParser
+            .addArgument("--impact-ordered")
+            .dest("impactOrdered")
+            .action(Arguments.storeTrue())
+            .help("Writes the postings of each term by decreasing weight, in segments" +
+                " sorted by document id, to allow score at a time searching." +
+                " Only available for the binary format without positions");
+
         argsParser
             .addArgument("--max-load-factor")
             .dest("maxLoadFactor")
@@ -292,6 +388,36 @@ public class IndexingMain {
             .setDefault(50)
             .help("Maximum size in memory for a document registry in MB. Default 50");
 
+        argsParser
+            .addArgument("--indexing-threads")
+            .dest("indexingThreads")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(1)
+            .help("Number of threads that tokenize and index documents. With more than" +
+                " one, each thread writes its own temporary files which are merged" +
+                " at the end. Default 1");
+
+        argsParser
+            .addArgument("--merge-threads")
+            .dest("mergeThreads")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(1)
+            .help("Maximum number of threads that merge the temporary files. The terms are" +
+                " split into ranges and each thread merges a range into its own index" +
+                " files. Default 1");
+
+        argsParser
+            .addArgument("--tmp-files-compression")
+            .dest("tmpFilesCompression")
+            .choices("none", "deflate")
+            .setDefault("none")
+            .help("Compression of the temporary files written while indexing. With deflate" +
+                " the temporary files are compressed in blocks, which are read ahead and" +
+                " decompressed while merging. Reduces the disk usage at the cost of" +
+                " processing. Default none");
+
         Namespace parsedArgs = null;
         try {
             parsedArgs = argsParser.parseArgs(args);
@@ -300,6 +426,14 @@ public class IndexingMain {
             System.exit(1);
         }
 
+        if (parsedArgs.getBoolean("impactOrdered")
+            && (!parsedArgs.getString("indexFormat").equals("binary")
+                || parsedArgs.getBoolean("useWeightsAndPositionsIndexer"))) {
+            System.err.println("ERROR impact ordered index files are only available for" +
+                " the binary format without positions");
+            System.exit(1);
+        }
+
         Float maxLoadFactor = parsedArgs.getFloat("maxLoadFactor");
         if (maxLoadFactor != null && (maxLoadFactor < 0 || maxLoadFactor > 1)) {
             System.err.println("ERROR maximum load factor should be a floating point" +
@@ -307,7 +441,7 @@ public class IndexingMain {
             System.exit(1);
         }
 
-        for (String varName : new String[] {"maxIndexersSize", "maxDocRegsSize"}) {
+        for (String varName : new String[] {"maxIndexersSize", "maxDocRegsSize", "indexingThreads", "mergeThreads"}) {
             Integer varValue = parsedArgs.getInt(varName);
             if (varValue != null && varValue <= 0) {
                 System.err.println("ERROR " + varName + " should be a integer" +
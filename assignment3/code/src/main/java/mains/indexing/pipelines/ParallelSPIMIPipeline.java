@@ -0,0 +1,337 @@
+package mains.indexing.pipelines;
+
+import data_containers.indexer.BaseIndexer;
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.TermInfoBase;
+import io.data_containers.persisters.BasePersister;
+import io.data_containers.persisters.RunFilePersister;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
+import io.metadata.MetadataManager;
+import parsers.corpus.CorpusReader;
+import parsers.files.FileParser;
+import tokenizer.BaseTokenizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * SPIMI pipeline that indexes the corpus with several threads.
+ * The calling thread reads the corpus, handing batches of documents
+ *  to worker threads together with a range of consecutive document
+ *  ids reserved on the document registry. Each worker registers the
+ *  documents of its batches and owns its tokenizer and indexer and
+ *  writes its own sorted temporary files whenever the memory load
+ *  factor is exceeded. All temporary files are then merged by the
+ *  same merge of the SPIMI pipeline, which merges posting lists by
+ *  document id, so the final index is the same as the one created
+ *  with a single thread
+ *
+ * @param <W> type of the weight of the documents
+ * @param <D> type of the documents
+ * @param <I> type of info related to the term
+ */
+public class ParallelSPIMIPipeline<
+    W extends Number,
+    D extends Document<W>,
+    I extends TermInfoBase<W, D>
+    > extends SPIMIPipeline<W, D, I> {
+
+    /**
+     * Number of documents handed to a worker at once
+     */
+    private static final int DOCUMENTS_PER_BATCH = 512;
+
+    /**
+     * Batch sent to the workers to signal that the corpus was entirely read
+     */
+    private static final Batch END_OF_CORPUS = new Batch(0, Collections.emptyList());
+
+    private Supplier<BaseTokenizer> tokenizerFactory;
+
+    private Supplier<BaseIndexer<W, D, I>> indexerFactory;
+
+    private int numberOfWorkers;
+
+    /**
+     * Main constructor
+     *
+     * @param tokenizerFactory creates the tokenizer of each worker
+     * @param indexerFactory creates the indexer of each worker
+     * @param numberOfWorkers number of threads that tokenize and index documents
+     * @param corpusReader Class to retrieve the files present on the corpus folder
+     * @param tmpFolder folder where the temporary files are written
+     * @param docRegistryPersister in charge of writing to disk the
+     *  document registry structure
+     * @param finalIndexPersisterFactory creates the persisters in charge of writing
+     *  to disk the inverted index, receiving the prefix of the names of their files
+     * @param maxLoadFactor maximum memory load factor
+     * @param mergeThreads maximum number of threads merging the temporary blocks
+     * @param compressTmpFiles if the temporary files are compressed
+     */
+    public ParallelSPIMIPipeline(Supplier<BaseTokenizer> tokenizerFactory,
+                                 Supplier<BaseIndexer<W, D, I>> indexerFactory,
+                                 int numberOfWorkers,
+                                 CorpusReader corpusReader,
+                                 String tmpFolder,
+                                 DocumentRegistryPersister docRegistryPersister,
+                                 Function<String, BasePersister<String, I>> finalIndexPersisterFactory,
+                                 MetadataManager metadataManager,
+                                 float maxLoadFactor,
+                                 int mergeThreads,
+                                 boolean compressTmpFiles) {
+        // the indexer of the pipeline doesn't index documents, it only
+        //  provides the post indexing actions applied during the merge
+        super(
+            tokenizerFactory.get(),
+            indexerFactory,
+            corpusReader,
+            tmpFolder,
+            docRegistryPersister,
+            finalIndexPersisterFactory,
+            metadataManager,
+            maxLoadFactor,
+            mergeThreads,
+            compressTmpFiles
+        );
+        this.tokenizerFactory = tokenizerFactory;
+        this.indexerFactory = indexerFactory;
+        this.numberOfWorkers = numberOfWorkers;
+    }
+
+    /**
+     * Reads the documents of the corpus and hands them in batches to the
+     *  workers. Returns after all workers wrote their last temporary file
+     */
+    @Override
+    protected void processCorpus() {
+        // bounded so the reading of the corpus doesn't get too
+        //  far ahead of the workers
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(numberOfWorkers * 2);
+
+        List<Thread> workers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            RunFilePersister<I> tmpFilesPersister = new RunFilePersister<>(
+                String.format("%sworker%d_", tmpFolder, i),
+                -1,
+                compressTmpFiles
+            );
+
+            Thread worker = new Thread(
+                new Worker(tokenizerFactory.get(), indexerFactory.get(), tmpFilesPersister, batches),
+                "indexing-worker-" + i
+            );
+            worker.start();
+            workers.add(worker);
+        }
+
+        for (FileParser fileParser : corpusReader) {
+            List<parsers.documents.Document> documents = new ArrayList<>(DOCUMENTS_PER_BATCH);
+
+            for (parsers.documents.Document document : fileParser) {
+                documents.add(document);
+
+                if (documents.size() == DOCUMENTS_PER_BATCH) {
+                    putBatch(batches, createBatch(documents));
+                    documents = new ArrayList<>(DOCUMENTS_PER_BATCH);
+                }
+            }
+
+            if (!documents.isEmpty()) {
+                putBatch(batches, createBatch(documents));
+            }
+
+            try {
+                fileParser.close();
+            } catch (IOException e) {
+                System.err.println("ERROR closing file " + fileParser.getFilename() + "\n");
+                e.printStackTrace();
+            }
+
+            // only the ranges already registered by the workers are written
+            if (maxLoadFactorExceeded()) {
+                try {
+                    documentRegistry.persist(documentRegistryPersister, false);
+                } catch (IOException e) {
+                    System.err.println("ERROR while writing to document registry file");
+                    e.printStackTrace();
+                    System.exit(2);
+                }
+            }
+        }
+
+        for (int i = 0; i < numberOfWorkers; i++) {
+            putBatch(batches, END_OF_CORPUS);
+        }
+
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                System.err.println("ERROR interrupted while waiting for the indexing workers");
+                e.printStackTrace();
+                System.exit(2);
+            }
+        }
+    }
+
+    /**
+     * The workers already wrote all their documents to temporary
+     *  files, so only the merge is left
+     */
+    @Override
+    public void persistIndex() {
+        try {
+            // since is the last time to write to the document registry it will call close internally
+            documentRegistry.persist(documentRegistryPersister, true);
+        } catch (IOException e) {
+            System.err.println("ERROR while persisting final part of the document registry to file");
+            e.printStackTrace();
+            System.exit(2);
+        }
+
+        mergeTmpFiles();
+    }
+
+    /**
+     * Reserves the document ids of a batch of documents. Batches are
+     *  created in the order of the corpus, so the document ids are
+     *  the same as if the corpus was indexed by a single thread
+     */
+    private Batch createBatch(List<parsers.documents.Document> documents) {
+        return new Batch(documentRegistry.allocateDocIds(documents.size()), documents);
+    }
+
+    private static void putBatch(BlockingQueue<Batch> batches, Batch batch) {
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            System.err.println("ERROR interrupted while handing documents to the indexing workers");
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Documents with consecutive document ids, starting at firstDocId
+     */
+    private static class Batch {
+
+        private final int firstDocId;
+
+        private final List<parsers.documents.Document> documents;
+
+        private Batch(int firstDocId, List<parsers.documents.Document> documents) {
+            this.firstDocId = firstDocId;
+            this.documents = documents;
+        }
+
+    }
+
+    /**
+     * Tokenizes and indexes batches of documents, writing the
+     *  content of its indexer to a new temporary file whenever
+     *  the memory load factor is exceeded and at the end
+     */
+    private class Worker implements Runnable {
+
+        private final BaseTokenizer tokenizer;
+
+        private final BaseIndexer<W, D, I> indexer;
+
+        private final RunFilePersister<I> tmpFilesPersister;
+
+        private final BlockingQueue<Batch> batches;
+
+        /**
+         * If there are documents on the indexer not yet written
+         */
+        private boolean hasDocuments;
+
+        /**
+         * Identifiers of the documents of the current batch
+         */
+        private int[] identifiers;
+
+        private Worker(BaseTokenizer tokenizer,
+                       BaseIndexer<W, D, I> indexer,
+                       RunFilePersister<I> tmpFilesPersister,
+                       BlockingQueue<Batch> batches) {
+            this.tokenizer = tokenizer;
+            this.indexer = indexer;
+            this.tmpFilesPersister = tmpFilesPersister;
+            this.batches = batches;
+            this.hasDocuments = false;
+            this.identifiers = new int[DOCUMENTS_PER_BATCH];
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Batch batch;
+                try {
+                    batch = batches.take();
+                } catch (InterruptedException e) {
+                    System.err.println("ERROR indexing worker interrupted");
+                    e.printStackTrace();
+                    System.exit(2);
+                    return;
+                }
+
+                if (batch == END_OF_CORPUS) {
+                    break;
+                }
+
+                if (identifiers.length < batch.documents.size()) {
+                    identifiers = new int[batch.documents.size()];
+                }
+
+                int docId = batch.firstDocId;
+                for (parsers.documents.Document document : batch.documents) {
+                    identifiers[docId - batch.firstDocId] = document.getIdentifier();
+
+                    List<String> terms = tokenizer.tokenizeDocument(document.getToTokenize());
+
+                    if (!terms.isEmpty()) {
+                        indexer.indexTerms(docId, terms);
+                        hasDocuments = true;
+                    }
+
+                    docId++;
+                }
+
+                documentRegistry.registerDocuments(batch.firstDocId, identifiers, batch.documents.size());
+
+                if (hasDocuments && maxLoadFactorExceeded()) {
+                    writeTmpFile();
+
+                    System.gc();
+                }
+            }
+
+            if (hasDocuments) {
+                writeTmpFile();
+            }
+        }
+
+        private void writeTmpFile() {
+            try {
+                writeTmpBlock(tmpFilesPersister, indexer);
+            } catch (IOException e) {
+                System.err.println("ERROR while writing temporary indexing file");
+                e.printStackTrace();
+                System.exit(2);
+            }
+
+            indexer.clear();
+            hasDocuments = false;
+        }
+
+    }
+
+}
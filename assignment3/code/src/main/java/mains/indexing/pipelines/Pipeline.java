@@ -6,12 +6,14 @@ import data_containers.indexer.structures.Document;
 import data_containers.indexer.structures.TermInfoBase;
 import io.metadata.MetadataManager;
 import io.data_containers.persisters.BasePersister;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
 import parsers.corpus.CorpusReader;
 import parsers.files.FileParser;
 import tokenizer.BaseTokenizer;
 
 import java.io.IOException;
-import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Base class of all pipelines. On this class its defined the
@@ -23,11 +25,9 @@ import java.io.Serializable;
  *     <li>3. Persist the final index and its auxiliary structures (document registry)</li>
  * </ul>
  *
- * @param <T> type of the terms
  * @param <D> type of the documents
  */
 public abstract class Pipeline<
-    T extends Comparable<T> & Serializable,
     W extends Number,
     D extends Document<W>,
     I extends TermInfoBase<W, D>
@@ -42,7 +42,7 @@ public abstract class Pipeline<
      * The principal class of the IR system. Associates
      *  a set o documents to a given term
      */
-    protected BaseIndexer<T, W, D, I> indexer;
+    protected BaseIndexer<W, D, I> indexer;
 
     protected DocumentRegistry documentRegistry;
 
@@ -55,13 +55,13 @@ public abstract class Pipeline<
     /**
      * Class to persist the inverted index to disk
      */
-    protected BasePersister<T, I> finalIndexPersister;
+    protected BasePersister<String, I> finalIndexPersister;
 
     /**
      * Class to persist the document registry structure
      *  to disk
      */
-    protected BasePersister<Integer, Integer> documentRegistryPersister;
+    protected DocumentRegistryPersister documentRegistryPersister;
 
     private MetadataManager metadataManager;
 
@@ -76,10 +76,10 @@ public abstract class Pipeline<
      *  document registry structure
      */
     public Pipeline(BaseTokenizer tokenizer,
-                    BaseIndexer<T, W, D, I> indexer,
+                    BaseIndexer<W, D, I> indexer,
                     CorpusReader corpusReader,
-                    BasePersister<T, I> finalIndexPersister,
-                    BasePersister<Integer, Integer> docRegistryPersister,
+                    BasePersister<String, I> finalIndexPersister,
+                    DocumentRegistryPersister docRegistryPersister,
                     MetadataManager metadataManager) {
         this.tokenizer = tokenizer;
         this.indexer = indexer;
@@ -98,17 +98,7 @@ public abstract class Pipeline<
         System.out.println("Started parsing the corpus");
         long begin = System.currentTimeMillis();
 
-        for (FileParser fileParser : corpusReader) {
-
-            processFile(fileParser);
-
-            try {
-                fileParser.close();
-            } catch (IOException e) {
-                System.err.println("ERROR closing file " + fileParser.getFilename() + "\n");
-                e.printStackTrace();
-            }
-        }
+        processCorpus();
 
         System.out.println("Finished parsing the corpus in " + (System.currentTimeMillis() - begin));
         System.out.println("Started storing index to disk");
@@ -122,8 +112,10 @@ public abstract class Pipeline<
         // create metadata file
         try {
             metadataManager.persistMetadata(
+                documentRegistry.getNumberOfDocuments(),
                 documentRegistryPersister.getFirstKeys(),
-                finalIndexPersister.getFirstKeys()
+                getIndexerFirstKeys(),
+                getIndexerFilesPrefixes()
             );
         } catch (IOException e) {
             System.err.println("ERROR while persisting metadata file");
@@ -134,6 +126,25 @@ public abstract class Pipeline<
         System.out.println("Finished creating metadata file");
     }
 
+    /**
+     * Iterates over the files of the corpus and processes them
+     *  one after the other. Pipelines that process the corpus
+     *  in a different way should override this method
+     */
+    protected void processCorpus() {
+        for (FileParser fileParser : corpusReader) {
+
+            processFile(fileParser);
+
+            try {
+                fileParser.close();
+            } catch (IOException e) {
+                System.err.println("ERROR closing file " + fileParser.getFilename() + "\n");
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Processes a file. Should Iterate over the documents present on a file
      *  and:
@@ -154,6 +165,22 @@ public abstract class Pipeline<
      */
     public abstract void persistIndex();
 
+    /**
+     * First term of each indexer file written, per range of terms.
+     *  By default all files are written by the final index persister
+     */
+    protected List<List<String>> getIndexerFirstKeys() {
+        return Collections.singletonList(finalIndexPersister.getFirstKeys());
+    }
+
+    /**
+     * Prefix of the names of the indexer files of each
+     *  range of terms of getIndexerFirstKeys
+     */
+    protected List<String> getIndexerFilesPrefixes() {
+        return Collections.singletonList("");
+    }
+
     public void createMetadataFile() {
     }
 
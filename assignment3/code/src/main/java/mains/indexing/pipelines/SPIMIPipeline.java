@@ -3,54 +3,62 @@ package mains.indexing.pipelines;
 import data_containers.indexer.BaseIndexer;
 import data_containers.indexer.post_indexing_actions.PostIndexingActions;
 import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.PostingList;
 import data_containers.indexer.structures.TermInfoBase;
+import data_containers.indexer.structures.WeightsAndPositionsPostingList;
+import io.data_containers.encoding.RunFileIndex;
 import io.metadata.MetadataManager;
 import io.data_containers.loaders.lazy_load.LazyLoader;
-import io.data_containers.loaders.lazy_load.ObjectStreamLoader;
+import io.data_containers.loaders.lazy_load.RunFileLoader;
 import io.data_containers.persisters.BasePersister;
-import io.data_containers.persisters.ObjectStreamPersister;
+import io.data_containers.persisters.RunFilePersister;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
 import parsers.corpus.CorpusReader;
 import parsers.files.FileParser;
 import tokenizer.BaseTokenizer;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Pipeline implementation that applies the SPIMI algorithm
  *  to index several documents of several files. This approach
  *  takes into consideration the memory usage. Deals with memory
  *  full situations by writing the current indexer's content to
- *  a temporary binary file to later merge into a final index file(s)
+ *  a temporary binary file to later merge into a final index file(s).
+ * Temporary blocks are written by a background thread while the
+ *  documents keep being indexed by another indexer, so each of the
+ *  two indexers can use half of the maximum memory load factor
  *
- * @param <T> type of the terms
  * @param <D> type of the documents
  */
 public class SPIMIPipeline<
-    T extends Comparable<T> & Serializable,
     W extends Number,
     D extends Document<W>,
     I extends TermInfoBase<W, D>
-    > extends Pipeline<T, W, D, I> {
+    > extends Pipeline<W, D, I> {
 
     /**
      * Maximum memory load factor
      */
-    private float maxLoadFactor;
+    protected float maxLoadFactor;
 
     /**
      * Persister for the final index
      */
-    private ObjectStreamPersister<T, I> indexingTmpFilesPersister;
+    private RunFilePersister<I> indexingTmpFilesPersister;
 
     /**
      * Persister for the temporary indexing files
      */
-    private ObjectStreamLoader<T, I> indexingTmpFilesLoader;
+    private RunFileLoader<I> indexingTmpFilesLoader;
 
     /**
      * Variable to know if on the indexing step the
@@ -58,39 +66,131 @@ public class SPIMIPipeline<
      */
     private boolean wroteToDisk;
 
-    private String tmpFolder;
+    protected String tmpFolder;
+
+    /**
+     * Creates the persisters of the final index, receiving
+     *  the prefix of the names of the files to create
+     */
+    private Function<String, BasePersister<String, I>> finalIndexPersisterFactory;
+
+    /**
+     * Maximum number of threads merging the temporary blocks
+     */
+    protected int mergeThreads;
+
+    /**
+     * If the temporary files are compressed
+     */
+    protected boolean compressTmpFiles;
+
+    /**
+     * Temporary files written so far, one per block
+     */
+    private List<String> tmpFiles;
+
+    /**
+     * Persisters of the final index of each range of terms merged by
+     *  its own thread, and the prefixes of the names of their files
+     */
+    private List<BasePersister<String, I>> rangesPersisters;
+
+    private List<String> rangesFilesPrefixes;
+
+    private Supplier<BaseIndexer<W, D, I>> indexerFactory;
+
+    /**
+     * Indexer that receives the documents while the current one is
+     *  written to a temporary block. Created on the first block written
+     */
+    private BaseIndexer<W, D, I> spareIndexer;
+
+    /**
+     * Thread writing the last temporary block, null if none was started
+     */
+    private Thread tmpBlockWriter;
+
+    /**
+     * Number of terms indexed by the current indexer
+     */
+    private long blockTerms;
+
+    /**
+     * Number of terms of the first temporary block, 0 until it's written.
+     *  The memory is only collected when the JVM needs it, so after the first
+     *  block the memory load also counts blocks already written, and the next
+     *  blocks are written once they have as many terms as the first one
+     */
+    private long termsPerBlock;
+
+    /**
+     * Bytes written to the temporary files by all blocks
+     */
+    private long tmpFilesWrittenBytes;
+
+    /**
+     * Bytes saved by the compression of the temporary files of all blocks
+     */
+    private long tmpFilesSavedBytes;
 
     /**
      * Main constructor
      *
      * @param tokenizer Parsers a document's content an splits it into tokens
-     * @param indexer Associates a set o documents to a given term
+     * @param indexerFactory creates the indexers, which associate a set o documents to a given term
      * @param corpusReader Class to retrieve the files present on the corpus folder
-     * @param finalIndexPersister in charge of writing to disk the inverted index
+     * @param tmpFolder folder where the temporary files are written
      * @param docRegistryPersister in charge of writing to disk the
      *  document registry structure
+     * @param finalIndexPersisterFactory creates the persisters in charge of writing
+     *  to disk the inverted index, receiving the prefix of the names of their files
      * @param maxLoadFactor maximum memory load factor
      *  storing the final index
+     * @param mergeThreads maximum number of threads merging the temporary blocks
+     * @param compressTmpFiles if the temporary files are compressed
      */
     public SPIMIPipeline(BaseTokenizer tokenizer,
-                         BaseIndexer<T, W, D, I> indexer,
+                         Supplier<BaseIndexer<W, D, I>> indexerFactory,
                          CorpusReader corpusReader,
                          String tmpFolder,
-                         BasePersister<Integer, Integer> docRegistryPersister,
-                         BasePersister<T, I> finalIndexPersister,
+                         DocumentRegistryPersister docRegistryPersister,
+                         Function<String, BasePersister<String, I>> finalIndexPersisterFactory,
                          MetadataManager metadataManager,
-                         float maxLoadFactor) {
-        super(tokenizer, indexer, corpusReader, finalIndexPersister, docRegistryPersister, metadataManager);
+                         float maxLoadFactor,
+                         int mergeThreads,
+                         boolean compressTmpFiles) {
+        super(
+            tokenizer,
+            indexerFactory.get(),
+            corpusReader,
+            finalIndexPersisterFactory.apply(""),
+            docRegistryPersister,
+            metadataManager
+        );
+        this.indexerFactory = indexerFactory;
         this.maxLoadFactor = maxLoadFactor;
         this.tmpFolder = tmpFolder;
+        this.finalIndexPersisterFactory = finalIndexPersisterFactory;
+        this.mergeThreads = mergeThreads;
+        this.compressTmpFiles = compressTmpFiles;
+
+        this.indexingTmpFilesPersister = new RunFilePersister<>(tmpFolder, -1, compressTmpFiles);
+        this.indexingTmpFilesLoader = new RunFileLoader<>(mergeThreads);
 
-        this.indexingTmpFilesPersister = new ObjectStreamPersister<>(tmpFolder, -1);
-        this.indexingTmpFilesLoader = new ObjectStreamLoader<>();
+        this.tmpFiles = Collections.synchronizedList(new ArrayList<>());
+        this.rangesPersisters = new ArrayList<>();
+        this.rangesFilesPrefixes = new ArrayList<>();
     }
 
     /**
-     * Indexes in memory the documents present on a file until the
-     *  memory load surpasses the limit defined
+     * Indexes in memory the documents present on a file. When the memory
+     *  load of the first block surpasses half of the limit defined, or the
+     *  next blocks reach the number of terms of the first, the current indexer
+     *  is handed to a background thread, which writes it as a temporary block,
+     *  and the documents keep being indexed by the spare indexer. Only one
+     *  block is written at a time, so if the previous block is still being
+     *  written the indexing continues until the limit, where it waits for
+     *  the previous block to be written
      * @param fileParser the file to parse
      */
     @Override
@@ -102,32 +202,90 @@ public class SPIMIPipeline<
 
             if (!terms.isEmpty()) {
                 indexer.indexTerms(docId, terms);
+                blockTerms += terms.size();
             }
 
-            if (maxLoadFactorExceeded()) {
-                try {
-                    indexingTmpFilesPersister.persist(indexer.getInvertedIndex(), true);
-                } catch (IOException e) {
-                    System.err.println("ERROR while writing temporary indexing file");
-                    e.printStackTrace();
-                    System.exit(2);
-                }
+            boolean blockFull = termsPerBlock == 0
+                ? maxLoadFactorExceeded(maxLoadFactor / 2)
+                : blockTerms >= termsPerBlock;
 
-                try {
-                    documentRegistryPersister.persist(documentRegistry.getRegistry(), false);
-                } catch (IOException e) {
-                    System.err.println("ERROR while writing to document registry file");
-                    e.printStackTrace();
-                    System.exit(2);
+            if (blockFull) {
+                if (tmpBlockWriter != null && tmpBlockWriter.isAlive()) {
+                    if (maxLoadFactorExceeded()) {
+                        awaitTmpBlockWriter();
+                        startTmpBlockWriter();
+                    }
                 }
+                else {
+                    startTmpBlockWriter();
+                }
+            }
+        }
+    }
 
-                indexer.clear();
-                documentRegistry.clear();
-                System.gc();
+    /**
+     * Hands the current indexer to a new thread that writes it as a temporary
+     *  block, along with the documents registered so far, and replaces it
+     *  with the spare indexer. Once written the indexer is cleared and
+     *  becomes the spare indexer
+     */
+    private void startTmpBlockWriter() {
+        awaitTmpBlockWriter();
+
+        if (spareIndexer == null) {
+            spareIndexer = indexerFactory.get();
+        }
+
+        BaseIndexer<W, D, I> toWrite = indexer;
+        indexer = spareIndexer;
+        spareIndexer = toWrite;
+
+        if (termsPerBlock == 0) {
+            termsPerBlock = blockTerms;
+        }
+        blockTerms = 0;
+
+        tmpBlockWriter = new Thread(() -> {
+            try {
+                writeTmpBlock(indexingTmpFilesPersister, toWrite);
+            } catch (IOException e) {
+                System.err.println("ERROR while writing temporary indexing file");
+                e.printStackTrace();
+                System.exit(2);
+            }
 
-                wroteToDisk = true;
+            try {
+                documentRegistry.persist(documentRegistryPersister, false);
+            } catch (IOException e) {
+                System.err.println("ERROR while writing to document registry file");
+                e.printStackTrace();
+                System.exit(2);
             }
+
+            toWrite.clear();
+        }, "tmp-block-writer");
+        tmpBlockWriter.start();
+
+        wroteToDisk = true;
+    }
+
+    /**
+     * Waits for the thread writing the last temporary block, if any
+     */
+    private void awaitTmpBlockWriter() {
+        if (tmpBlockWriter == null) {
+            return;
         }
+
+        try {
+            tmpBlockWriter.join();
+        } catch (InterruptedException e) {
+            System.err.println("ERROR while waiting for the temporary block to be written");
+            e.printStackTrace();
+            System.exit(2);
+        }
+
+        tmpBlockWriter = null;
     }
 
     /**
@@ -137,9 +295,11 @@ public class SPIMIPipeline<
      */
     @Override
     public void persistIndex() {
+        awaitTmpBlockWriter();
+
         try {
             // since is the last time to write to the document registry it will call close internally
-            documentRegistryPersister.persist(documentRegistry.getRegistry(), true);
+            documentRegistry.persist(documentRegistryPersister, true);
         } catch (IOException e) {
             System.err.println("ERROR while persisting final part of the document registry to file");
             e.printStackTrace();
@@ -149,7 +309,7 @@ public class SPIMIPipeline<
         if (wroteToDisk) {
             try {
                 // since is the last time to write to the indexer it will call close internally
-                indexingTmpFilesPersister.persist(indexer.getInvertedIndex(), true);
+                writeTmpBlock(indexingTmpFilesPersister, indexer);
             } catch (IOException e) {
                 System.err.println("ERROR while persisting last temporary indexing file");
                 e.printStackTrace();
@@ -157,19 +317,20 @@ public class SPIMIPipeline<
             }
 
             indexer.clear();
-            documentRegistry.clear();
             System.gc();
         }
         else {
+            int numberOfDocuments = documentRegistry.getNumberOfDocuments();
+
             PostIndexingActions<W, D, I> postIndexingActions = indexer.getPostIndexingActions();
             if (postIndexingActions != null) {
-                for (Map.Entry<T, I> entry : indexer.getInvertedIndex().entrySet()) {
-                    postIndexingActions.apply(entry.getValue());
+                for (I termInfo : indexer.getInvertedIndex().values()) {
+                    postIndexingActions.apply(termInfo, numberOfDocuments);
                 }
             }
 
             try {
-                finalIndexPersister.persist(indexer.getInvertedIndex(), true);
+                finalIndexPersister.persist(indexer.getSortedEntries(), true);
 
                 finalIndexPersister.close();
             } catch (IOException e) {
@@ -181,93 +342,254 @@ public class SPIMIPipeline<
             return;
         }
 
-        // iterators used to retrieve the entries from each temporary file
-        List<Iterator<Map.Entry<T, I>>> tmpFilesReaders = new ArrayList<>();
+        mergeTmpFiles();
+    }
 
-        for (int i = 0; i < indexingTmpFilesPersister.getAmountOfFilesCreated(); i++) {
-            String filename = String.format("%s%s", tmpFolder, i);
-            tmpFilesReaders.add(
-                indexingTmpFilesLoader.load(filename)
+    /**
+     * Writes the content of an indexer to a new temporary file, as a
+     *  block. The index of the file is used by the merge to split the
+     *  terms into ranges and to start reading each block where its
+     *  range starts.
+     *  Reports the bytes written and, if the temporary files are
+     *  compressed, the bytes saved by the compression
+     *
+     * @param tmpFilesPersister persister of the temporary files
+     * @param indexer with the entries to write
+     * @throws IOException if some error occurs while writing the temporary files
+     */
+    protected void writeTmpBlock(RunFilePersister<I> tmpFilesPersister,
+                                 BaseIndexer<W, D, I> indexer) throws IOException {
+        int filesCreated = tmpFilesPersister.getAmountOfFilesCreated();
+        long encodedBytes = tmpFilesPersister.getEncodedBytes();
+        long writtenBytes = tmpFilesPersister.getWrittenBytes();
+
+        tmpFilesPersister.persist(indexer.getSortedEntries(), true);
+
+        if (filesCreated < tmpFilesPersister.getAmountOfFilesCreated()) {
+            tmpFiles.add(tmpFilesPersister.getFilesCreated().get(filesCreated));
+
+            encodedBytes = tmpFilesPersister.getEncodedBytes() - encodedBytes;
+            writtenBytes = tmpFilesPersister.getWrittenBytes() - writtenBytes;
+            addTmpFilesBytes(writtenBytes, encodedBytes - writtenBytes);
+
+            System.out.println(
+                "Wrote temporary block with " + formatTmpFilesBytes(writtenBytes, encodedBytes - writtenBytes)
             );
         }
+    }
+
+    /**
+     * Adds the bytes of a block to the totals of all blocks,
+     *  which can be written by several threads
+     */
+    private synchronized void addTmpFilesBytes(long writtenBytes, long savedBytes) {
+        tmpFilesWrittenBytes += writtenBytes;
+        tmpFilesSavedBytes += savedBytes;
+    }
+
+    /**
+     * Describes the bytes written to temporary files, with the
+     *  bytes saved only if the temporary files are compressed
+     */
+    private String formatTmpFilesBytes(long writtenBytes, long savedBytes) {
+        if (!compressTmpFiles) {
+            return writtenBytes + " bytes";
+        }
 
-        // holds the top entry for each temporary file being merged
-        List<Map.Entry<T, I>> tmpFilesTopEntries = new ArrayList<>(tmpFilesReaders .size());
-        // to do a match between top entry and each temporary file their
-        //  size must be the same. for that null are inserted
-        for (int i = 0; i < tmpFilesReaders.size(); i++) {
-            tmpFilesTopEntries.add(null);
+        return String.format("%d bytes, %d bytes saved by compression", writtenBytes, savedBytes);
+    }
+
+    /**
+     * Merges the temporary blocks into the final index. The terms are split
+     *  into ranges, sampled from the indexes of the files of all blocks,
+     *  and each range is merged by its own thread into its own indexer files.
+     *  Posting lists of the same term are merged by document id, so the
+     *  temporary blocks can have been written in any order.
+     *  Reports the bytes of all temporary blocks before merging them, and
+     *  the loader of the temporary files is closed at the end
+     */
+    protected void mergeTmpFiles() {
+        System.out.println(
+            "Wrote " + tmpFiles.size() + " temporary blocks with "
+                + formatTmpFilesBytes(tmpFilesWrittenBytes, tmpFilesSavedBytes)
+        );
+
+        int numberOfDocuments = documentRegistry.getNumberOfDocuments();
+
+        List<TmpBlock> blocks = new ArrayList<>(tmpFiles.size());
+        for (String filename : tmpFiles) {
+            blocks.add(new TmpBlock(filename, indexingTmpFilesLoader.loadIndex(filename)));
         }
 
-        // stores the entries for the commons terms lexicographically lower across
-        //  all top entries of the different temporary files
-        List<Map.Entry<T, I>> lowerCommonTerms = new ArrayList<>();
+        List<String> boundaries = sampleRangesBoundaries(blocks);
 
-        // used to know from which files the lowerCommonTerms were retrieved
-        List<Integer> retrievedTmpFilesTopEntriesIdx = new ArrayList<>();
+        if (boundaries.isEmpty()) {
+            mergeRange(blocks, null, null, finalIndexPersister, numberOfDocuments, getMergeBudget(1));
+        }
+        else {
+            mergeRanges(blocks, boundaries, numberOfDocuments);
+        }
 
-        // stores the terms and their posting lists to later write and
-        //  the memory load factor retches the maximum
-        List<Map.Entry<T, I>> entriesToWrite = new ArrayList<>();
+        indexingTmpFilesLoader.close();
+    }
 
-        // while there is entries on the temporary files to retrieve
-        while (hasTmpFilesToRead(tmpFilesReaders, tmpFilesTopEntries)) {
+    /**
+     * Merges each range of terms on its own thread into its own indexer files
+     *
+     * @param blocks temporary blocks to merge
+     * @param boundaries the first term of each range after the first one
+     * @param numberOfDocuments number of documents of the corpus
+     */
+    private void mergeRanges(List<TmpBlock> blocks, List<String> boundaries, int numberOfDocuments) {
+        long rangeBudget = getMergeBudget(boundaries.size() + 1);
 
-            // calculates which entries has the terms lexicographically lower across
-            //  all top entries of the different temporary files
-            for (int i = 0; i < tmpFilesTopEntries.size(); i++) {
-                Map.Entry<T, I> entry = tmpFilesTopEntries.get(i);
+        List<Thread> mergers = new ArrayList<>(boundaries.size() + 1);
+        for (int range = 0; range <= boundaries.size(); range++) {
+            String filesPrefix = range + "_";
+            BasePersister<String, I> rangePersister = finalIndexPersisterFactory.apply(filesPrefix);
 
-                // if lowerCommonTerms is empty then is the first to be retrieved
-                if (lowerCommonTerms.isEmpty()) {
-                    lowerCommonTerms.add(entry);
-                    retrievedTmpFilesTopEntriesIdx.add(i);
-                } else {
-                    // compare the stored terms (all are common, so the first one is used) against the current one
-                    int compareResult = entry.getKey().compareTo(lowerCommonTerms.get(0).getKey());
+            rangesPersisters.add(rangePersister);
+            rangesFilesPrefixes.add(filesPrefix);
 
-                    // if its lexicographically lower
-                    if (compareResult < 0) {
-                        lowerCommonTerms.clear();
-                        retrievedTmpFilesTopEntriesIdx.clear();
-                    }
+            String from = range == 0 ? null : boundaries.get(range - 1);
+            String to = range == boundaries.size() ? null : boundaries.get(range);
 
-                    // if its lexicographically lower or equal
-                    if (compareResult <= 0) {
-                        lowerCommonTerms.add(entry);
-                        retrievedTmpFilesTopEntriesIdx.add(i);
-                    }
-                }
+            Thread merger = new Thread(
+                () -> mergeRange(blocks, from, to, rangePersister, numberOfDocuments, rangeBudget),
+                "merge-" + range
+            );
+            merger.start();
+            mergers.add(merger);
+        }
+
+        for (Thread merger : mergers) {
+            try {
+                merger.join();
+            } catch (InterruptedException e) {
+                System.err.println("ERROR interrupted while waiting for the merge threads");
+                e.printStackTrace();
+                System.exit(2);
+            }
+        }
+    }
+
+    /**
+     * Chooses the terms where the ranges merged by each thread start, from
+     *  the terms on the indexes of all temporary blocks, which are evenly
+     *  spaced by number of entries. Fewer ranges are created if there
+     *  aren't enough different terms
+     *
+     * @return the first term of each range after the first one, sorted
+     */
+    private List<String> sampleRangesBoundaries(List<TmpBlock> blocks) {
+        List<String> samples = new ArrayList<>();
+        for (TmpBlock block : blocks) {
+            samples.addAll(block.index.getTerms());
+        }
+        if (samples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(samples);
+
+        List<String> boundaries = new ArrayList<>(mergeThreads - 1);
+        for (int range = 1; range < mergeThreads; range++) {
+            String boundary = samples.get(range * samples.size() / mergeThreads);
+
+            // every range must have at least a term
+            String previous = boundaries.isEmpty() ? samples.get(0) : boundaries.get(boundaries.size() - 1);
+            if (boundary.compareTo(previous) > 0) {
+                boundaries.add(boundary);
             }
+        }
+
+        return boundaries;
+    }
+
+    /**
+     * Memory each range can use to hold merged entries before writing them,
+     *  the memory of the maximum load factor split evenly by the ranges.
+     *  Each range keeps to its own budget, so ranges don't depend on the
+     *  memory used by the others
+     *
+     * @param ranges number of ranges merged at the same time
+     * @return the budget of each range in estimated bytes
+     */
+    private long getMergeBudget(int ranges) {
+        return (long) (Runtime.getRuntime().maxMemory() * maxLoadFactor) / ranges;
+    }
+
+    /**
+     * Merges the entries of a range of terms of all temporary blocks with a
+     *  k-way merge, where the blocks are ordered by their next term on a heap.
+     *  The merged entries are written whenever their estimated size
+     *  reaches the budget of the range
+     *
+     * @param blocks temporary blocks to merge
+     * @param from first term of the range, or null if the range has no lower limit
+     * @param to first term after the range, or null if the range has no upper limit
+     * @param persister to where the merged entries are written
+     * @param numberOfDocuments number of documents of the corpus
+     * @param budget estimated bytes of merged entries held before writing them
+     */
+    private void mergeRange(List<TmpBlock> blocks,
+                            String from,
+                            String to,
+                            BasePersister<String, I> persister,
+                            int numberOfDocuments,
+                            long budget) {
+        PriorityQueue<TmpBlockReader> readers = new PriorityQueue<>(
+            Math.max(1, blocks.size()),
+            Comparator.comparing((TmpBlockReader reader) -> reader.top.getKey())
+        );
+        for (TmpBlock block : blocks) {
+            TmpBlockReader reader = new TmpBlockReader(block, from, to);
+            if (reader.advance()) {
+                readers.add(reader);
+            }
+        }
+
+        PostIndexingActions<W, D, I> postIndexingActions = indexer.getPostIndexingActions();
+
+        // stores the entries of the same term retrieved from different temporary blocks
+        List<Map.Entry<String, I>> commonTerms = new ArrayList<>();
 
-            // set to null the tmpFilesTopEntries positions related to the
-            //  files which the lowerCommonTerms were retrieved
-            retrievedTmpFilesTopEntriesIdx.forEach(usedFileIdx -> tmpFilesTopEntries.set(usedFileIdx, null));
-            retrievedTmpFilesTopEntriesIdx.clear();
+        // stores the terms and their posting lists to later write
+        //  once their estimated size reaches the budget
+        List<Map.Entry<String, I>> entriesToWrite = new ArrayList<>();
+        long entriesToWriteBytes = 0;
 
-            // variables to store the current term being parsed and
-            //  its posting list
-            {I commonTermInfo = lowerCommonTerms.get(0).getValue();
-            T term = lowerCommonTerms.get(0).getKey();
-            List<D> docs = mergePostingLists(lowerCommonTerms);
+        while (!readers.isEmpty()) {
+            String term = readers.peek().top.getKey();
 
-            commonTermInfo.setPostingList(docs);
+            // takes the entries of the lowest term from all blocks that have it
+            while (!readers.isEmpty() && readers.peek().top.getKey().equals(term)) {
+                TmpBlockReader reader = readers.poll();
+                commonTerms.add(reader.top);
+
+                if (reader.advance()) {
+                    readers.add(reader);
+                }
+            }
+
+            I commonTermInfo = commonTerms.get(0).getValue();
+            commonTermInfo.setPostingList(mergeCommonTermsPostingLists(commonTerms));
             // TODO WARNING here it is assumed that the data present on
             //  the term info structure beyond the posting list
             //  is the same for different termInfos
+            commonTerms.clear();
 
-            entriesToWrite.add(new LazyLoader.Entry<>(term, commonTermInfo));}
+            entriesToWrite.add(new LazyLoader.Entry<>(term, commonTermInfo));
+            entriesToWriteBytes += estimateEntryBytes(term, commonTermInfo.getPostingList());
 
-            if (maxLoadFactorExceeded()) {
-                PostIndexingActions<W, D, I> postIndexingActions = indexer.getPostIndexingActions();
+            if (entriesToWriteBytes >= budget) {
                 if (postIndexingActions != null) {
-                    for (Map.Entry<T, I> entry : entriesToWrite) {
-                        postIndexingActions.apply(entry.getValue());
+                    for (Map.Entry<String, I> entry : entriesToWrite) {
+                        postIndexingActions.apply(entry.getValue(), numberOfDocuments);
                     }
                 }
 
                 try {
-                    finalIndexPersister.persist(entriesToWrite, false);
+                    persister.persist(entriesToWrite, false);
                 } catch (IOException e) {
                     System.err.println("ERROR while persisting final index file");
                     e.printStackTrace();
@@ -275,29 +597,72 @@ public class SPIMIPipeline<
                 }
 
                 entriesToWrite = new ArrayList<>();
-
-                System.gc();
+                entriesToWriteBytes = 0;
             }
         }
 
-        PostIndexingActions<W, D, I> postIndexingActions = indexer.getPostIndexingActions();
         if (postIndexingActions != null) {
-            for (Map.Entry<T, I> entry : entriesToWrite) {
-                postIndexingActions.apply(entry.getValue());
+            for (Map.Entry<String, I> entry : entriesToWrite) {
+                postIndexingActions.apply(entry.getValue(), numberOfDocuments);
             }
         }
 
         try {
-            finalIndexPersister.persist(entriesToWrite, true);
+            persister.persist(entriesToWrite, true);
 
-            finalIndexPersister.close();
+            persister.close();
         } catch (IOException e) {
             System.err.println("ERROR while writing the last part of the final index to file");
             e.printStackTrace();
             System.exit(2);
         }
+    }
+
+    /**
+     * Estimates the bytes of a merged entry from its term and the arrays of
+     *  its posting list: a document id and a weight per posting and, on
+     *  positional posting lists, the positions and their offsets
+     */
+    private static long estimateEntryBytes(String term, List<?> postingList) {
+        long bytes = (long) term.length() * Character.BYTES
+            + (long) postingList.size() * (Integer.BYTES + Float.BYTES);
+
+        if (postingList instanceof WeightsAndPositionsPostingList) {
+            WeightsAndPositionsPostingList positionsPostingList = (WeightsAndPositionsPostingList) postingList;
+
+            for (int i = 0; i < positionsPostingList.size(); i++) {
+                bytes += (long) (positionsPostingList.getPositionsCount(i) + 1) * Integer.BYTES;
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * If the merge was split into ranges, the indexer files of
+     *  each range were written by its own persister
+     */
+    @Override
+    protected List<List<String>> getIndexerFirstKeys() {
+        if (rangesPersisters.isEmpty()) {
+            return super.getIndexerFirstKeys();
+        }
 
-        System.gc();
+        List<List<String>> firstKeys = new ArrayList<>(rangesPersisters.size());
+        for (BasePersister<String, I> rangePersister : rangesPersisters) {
+            firstKeys.add(rangePersister.getFirstKeys());
+        }
+
+        return firstKeys;
+    }
+
+    @Override
+    protected List<String> getIndexerFilesPrefixes() {
+        if (rangesFilesPrefixes.isEmpty()) {
+            return super.getIndexerFilesPrefixes();
+        }
+
+        return rangesFilesPrefixes;
     }
 
     /**
@@ -305,128 +670,265 @@ public class SPIMIPipeline<
      *
      * @return true if it reached the max load factor, false otherwise
      */
-    private boolean maxLoadFactorExceeded() {
+    protected boolean maxLoadFactorExceeded() {
+        return maxLoadFactorExceeded(maxLoadFactor);
+    }
+
+    /**
+     * Checks if the memory reached a load factor
+     *
+     * @return true if it reached the load factor, false otherwise
+     */
+    protected boolean maxLoadFactorExceeded(float loadFactor) {
         Runtime runtime = Runtime.getRuntime();
 
         double used = runtime.totalMemory() - runtime.freeMemory();
         double max = runtime.maxMemory();
 
-        return used / max >= maxLoadFactor;
+        return used / max >= loadFactor;
     }
 
     /**
-     * Checks if there is any file to read entries to merge to the
-     *  final or intermediate index
+     * Merges the posting lists of common terms retrieved from different
+     *  temporary blocks
      *
-     * @param tmpFiles iterators used to retrieve the entries from each temporary file
-     * @param tmpFilesTopEntry holds the top entry for each temporary file being merged
-     * @return true if exists at least one file to read from more entries
-     */
-    private boolean hasTmpFilesToRead(List<Iterator<Map.Entry<T, I>>> tmpFiles,
-                                      List<Map.Entry<T, I>> tmpFilesTopEntry) {
-        // for each temporary file
-        for (int i = tmpFiles.size() - 1; i >= 0; i--) {
-            Iterator<Map.Entry<T, I>> it = tmpFiles.get(i);
-
-            // if the top entry stored is null it means that it was used
-            //  or its the first time read
-            if (tmpFilesTopEntry.get(i) == null) {
-                // if the file doesn't has more entries
-                if (!it.hasNext()) {
-                    // remove it from the tmp files list
-                    tmpFiles.remove(i);
-                    // and remove its stop on the top entries list
-                    tmpFilesTopEntry.remove(i);
-                }
-                else { // else read one more entry
-                    tmpFilesTopEntry.set(i, it.next());
-                }
-            }
+     * @param commonTerms entries of the same term from different temporary blocks
+     * @return a posting list with all the posting lists merged
+     */
+    private List<D> mergeCommonTermsPostingLists(List<Map.Entry<String, I>> commonTerms) {
+        List<List<D>> postingLists = new ArrayList<>(commonTerms.size());
+        for (Map.Entry<String, I> entry : commonTerms) {
+            postingLists.add(entry.getValue().getPostingList());
         }
 
-        return !tmpFiles.isEmpty();
+        return mergePostingLists(postingLists);
     }
 
     /**
-     * Merges the posting lists of common terms retrieved from different
-     *  temporary files
+     * Merges posting lists sorted by document id into a single one.
+     * The blocks written by the same indexing thread have increasing
+     *  document ids, so usually the posting lists of a term don't overlap
+     *  and, sorted by their first document id, are just concatenated.
+     *  Otherwise, as with blocks of several indexing threads, the posting
+     *  list with the lowest next document id is copied until the next
+     *  document id of the others, found with a binary search. Primitive
+     *  posting lists are copied with array copies
      *
-     * @param lowerCommonTerms stores the entries for the commons terms lexicographically lower across
-     *  all top entries of the different temporary files
-     * @return a posting list with all the posting lists merged
+     * @param postingLists posting lists to merge, each one sorted by document id
+     * @return a posting list with all the posting lists merged, which is the
+     *  received posting list if there's only one
      */
-    private List<D> mergePostingLists(List<Map.Entry<T, I>> lowerCommonTerms) {
-        List<D> mergedPostingList = new ArrayList<>();
+    public static <D extends Document<?>> List<D> mergePostingLists(List<List<D>> postingLists) {
+        if (postingLists.size() == 1) {
+            return postingLists.get(0);
+        }
 
-        // merge posting lists
-        while (!lowerCommonTerms.isEmpty()) {
-            // if there's only a posting list add it entirely
-            if (lowerCommonTerms.size() == 1) {
-                mergedPostingList.addAll(lowerCommonTerms.get(0).getValue().getPostingList());
-                lowerCommonTerms.clear();
-                break;
+        int mergedSize = 0;
+        List<List<D>> sortedPostingLists = new ArrayList<>(postingLists.size());
+        for (List<D> postingList : postingLists) {
+            if (!postingList.isEmpty()) {
+                sortedPostingLists.add(postingList);
+                mergedSize += postingList.size();
             }
+        }
+        sortedPostingLists.sort(Comparator.comparingInt(postingList -> getDocId(postingList, 0)));
 
-            // variables to know with posting list has the lowest document id
-            // points to the last non empty posting list
-            int idx = lowerCommonTerms.size() - 1;
-            int lowestDocId = lowerCommonTerms.get(idx).getValue().getPostingList().get(0).getDocId();
+        List<D> mergedPostingList = createMergedPostingList(postingLists.get(0), mergedSize);
+
+        boolean overlap = false;
+        for (int i = 1; i < sortedPostingLists.size() && !overlap; i++) {
+            List<D> previous = sortedPostingLists.get(i - 1);
+            overlap = getDocId(previous, previous.size() - 1) >= getDocId(sortedPostingLists.get(i), 0);
+        }
 
-            // removes the entries where the posting list are empty
-            while (lowerCommonTerms.get(idx).getValue().getPostingList().isEmpty()) {
-                lowerCommonTerms.remove(idx);
-                idx--; // and move the index to the next posting list (starting from the end)
+        if (!overlap) {
+            for (List<D> postingList : sortedPostingLists) {
+                appendPostings(mergedPostingList, postingList, 0, postingList.size());
             }
 
-            // for subsequent posting lists after the one checked above
-            for (int i = idx - 1; i >= 0; i--) {
-                // if it is empty
-                List<D> postingListToCheck = lowerCommonTerms.get(i).getValue().getPostingList();
-                if (postingListToCheck.isEmpty()) {
-                    lowerCommonTerms.remove(i);
-                    idx--; // a remove shifts the elements on the list
-                    //  and since we are iterating from the end
-                    //  we need to also shift the index of the posting list with current document
-                    //  with the lowest document id
+            return mergedPostingList;
+        }
+
+        // position of the next posting to merge of each posting list
+        int[] positions = new int[sortedPostingLists.size()];
+
+        for (int merged = 0; merged < mergedSize; ) {
+            int lowest = -1;
+            int lowestDocId = Integer.MAX_VALUE;
+            int secondLowestDocId = Integer.MAX_VALUE;
+
+            for (int i = 0; i < sortedPostingLists.size(); i++) {
+                if (positions[i] == sortedPostingLists.get(i).size()) {
                     continue;
                 }
 
-                int firstDocIdOnPostToCheck = postingListToCheck.get(0).getDocId();
-                if (firstDocIdOnPostToCheck < lowestDocId) {
-                    lowestDocId = firstDocIdOnPostToCheck;
-                    idx = i;
+                int docId = getDocId(sortedPostingLists.get(i), positions[i]);
+                if (docId < lowestDocId) {
+                    secondLowestDocId = lowestDocId;
+                    lowestDocId = docId;
+                    lowest = i;
+                }
+                else if (docId < secondLowestDocId) {
+                    secondLowestDocId = docId;
                 }
             }
 
-            List<D> postListWithLowestDocId = lowerCommonTerms.get(idx).getValue().getPostingList();
+            List<D> postListWithLowestDocId = sortedPostingLists.get(lowest);
+            int runEnd = findFirstNotLower(postListWithLowestDocId, positions[lowest] + 1, secondLowestDocId);
 
-            // check if more documents can be inserted to the final posting list from the postListWithLowestDocId
-            //  if they are lower than the first on the other posting lists
-            //  that had documents with higher document ids
-            int furtherIdxWhereDocIdStillLowest = 0;
-for1:         for (int i = 1; i < postListWithLowestDocId.size(); furtherIdxWhereDocIdStillLowest = i++) {
-                // for each posting list to merge
-                for (Map.Entry<T, I> entry : lowerCommonTerms) {
+            appendPostings(mergedPostingList, postListWithLowestDocId, positions[lowest], runEnd);
 
-                    if (entry.getValue() != postListWithLowestDocId && entry.getValue().getPostingList().get(0).getDocId() < lowestDocId) {
-                        break for1;
-                    }
-                }
-            }
+            merged += runEnd - positions[lowest];
+            positions[lowest] = runEnd;
+        }
 
-            if (furtherIdxWhereDocIdStillLowest  == 0) {
-                mergedPostingList.add(postListWithLowestDocId.remove(0));
+        return mergedPostingList;
+    }
+
+    /**
+     * Binary search of the first posting, from an index, whose
+     *  document id isn't lower than the document id received
+     *
+     * @return the index of the posting or the size of the posting list if there's none
+     */
+    private static int findFirstNotLower(List<? extends Document<?>> postingList, int fromIndex, int docId) {
+        int low = fromIndex;
+        int high = postingList.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (getDocId(postingList, middle) < docId) {
+                low = middle + 1;
             }
             else {
-                mergedPostingList.addAll(postListWithLowestDocId.subList(0, furtherIdxWhereDocIdStillLowest + 1));
-                postListWithLowestDocId.subList(0, furtherIdxWhereDocIdStillLowest + 1).clear();
+                high = middle;
             }
+        }
+
+        return low;
+    }
+
+    /**
+     * Appends a range of postings of a posting list to the merged posting list,
+     *  without creating document objects if both are primitive posting lists
+     */
+    private static <D> void appendPostings(List<D> mergedPostingList, List<D> postingList, int fromIndex, int toIndex) {
+        if (mergedPostingList instanceof PostingList && mergedPostingList.getClass() == postingList.getClass()) {
+            ((PostingList<?>) mergedPostingList).append((PostingList<?>) postingList, fromIndex, toIndex);
+        }
+        else {
+            mergedPostingList.addAll(postingList.subList(fromIndex, toIndex));
+        }
+    }
+
+    /**
+     * Document id of a posting, read without creating the document
+     *  object if the posting list is a primitive posting list
+     */
+    private static int getDocId(List<? extends Document<?>> postingList, int index) {
+        if (postingList instanceof PostingList) {
+            return ((PostingList<?>) postingList).getDocId(index);
+        }
+
+        return postingList.get(index).getDocId();
+    }
+
+    /**
+     * Creates the list to where posting lists will be merged. If the
+     *  posting lists being merged are primitive posting lists the merged one
+     *  will also be, so the memory savings are kept during the merge
+     *
+     * @param postingListToMerge one of the posting lists being merged
+     * @param capacity sum of the sizes of the posting lists being merged
+     * @return an empty posting list
+     */
+    @SuppressWarnings("unchecked")
+    private static <D> List<D> createMergedPostingList(List<D> postingListToMerge, int capacity) {
+        if (postingListToMerge instanceof PostingList) {
+            return (List<D>) ((PostingList<?>) postingListToMerge).emptyCopy(capacity);
+        }
+
+        return new ArrayList<>(capacity);
+    }
+
+    /**
+     * Temporary file of a block, with its index
+     */
+    private static class TmpBlock {
+
+        private final String filename;
+
+        private final RunFileIndex index;
+
+        private TmpBlock(String filename, RunFileIndex index) {
+            this.filename = filename;
+            this.index = index;
+        }
+
+    }
+
+    /**
+     * Reads the entries of a range of terms of a temporary block.
+     *  Starts on the entry of the index where the range starts and
+     *  stops as soon as a term after the range is read
+     */
+    private class TmpBlockReader {
+
+        private final String from;
+
+        private final String to;
 
-            if (postListWithLowestDocId.isEmpty()) {
-                lowerCommonTerms.remove(idx);
+        private final LazyLoader.EntryIterator<Map.Entry<String, I>> entries;
+
+        /**
+         * Entry with the next term of the block to merge
+         */
+        private Map.Entry<String, I> top;
+
+        private TmpBlockReader(TmpBlock block, String from, String to) {
+            this.from = from;
+            this.to = to;
+
+            entries = from == null
+                ? indexingTmpFilesLoader.load(block.filename)
+                : indexingTmpFilesLoader.load(block.filename, block.index, from);
+        }
+
+        /**
+         * Reads the next entry of the range to the top
+         *
+         * @return false if there are no more entries on the range
+         */
+        private boolean advance() {
+            while (true) {
+                if (!entries.hasNext()) {
+                    top = null;
+                    return false;
+                }
+
+                top = entries.next();
+
+                if (from != null && top.getKey().compareTo(from) < 0) {
+                    continue;
+                }
+
+                if (to != null && top.getKey().compareTo(to) >= 0) {
+                    try {
+                        entries.close();
+                    } catch (IOException e) {
+                        System.err.println("ERROR while closing temporary indexing file");
+                        e.printStackTrace();
+                        System.exit(2);
+                    }
+
+                    top = null;
+                    return false;
+                }
+
+                return true;
             }
         }
 
-        return mergedPostingList;
     }
 }
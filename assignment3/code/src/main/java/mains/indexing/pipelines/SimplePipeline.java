@@ -5,13 +5,13 @@ import data_containers.indexer.post_indexing_actions.PostIndexingActions;
 import data_containers.indexer.structures.TermInfoBase;
 import io.metadata.MetadataManager;
 import io.data_containers.persisters.BasePersister;
+import io.data_containers.persisters.document_registry.DocumentRegistryPersister;
 import parsers.corpus.CorpusReader;
 import parsers.documents.Document;
 import parsers.files.FileParser;
 import tokenizer.BaseTokenizer;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
@@ -21,11 +21,10 @@ import java.util.Map;
  *  single file
  */
 public class SimplePipeline<
-    T extends Comparable<T> & Serializable,
     W extends Number,
     D extends data_containers.indexer.structures.Document<W>,
     I extends TermInfoBase<W, D>
-    > extends Pipeline<T, W, D, I> {
+    > extends Pipeline<W, D, I> {
 
     /**
      * SimplePipeline main constructor
@@ -38,10 +37,10 @@ public class SimplePipeline<
      *  document registry structure
      */
     public SimplePipeline(BaseTokenizer tokenizer,
-                          BaseIndexer<T, W, D, I> indexer,
+                          BaseIndexer<W, D, I> indexer,
                           CorpusReader corpusReader,
-                          BasePersister<T, I> finalIndexPersister,
-                          BasePersister<Integer, Integer> docRegistryPersister,
+                          BasePersister<String, I> finalIndexPersister,
+                          DocumentRegistryPersister docRegistryPersister,
                           MetadataManager metadataManager) {
         super(tokenizer, indexer, corpusReader, finalIndexPersister, docRegistryPersister, metadataManager);
     }
@@ -77,16 +76,18 @@ public class SimplePipeline<
      */
     @Override
     public void persistIndex() {
+        int numberOfDocuments = documentRegistry.getNumberOfDocuments();
+
         PostIndexingActions<W, D, I> postIndexingActions = indexer.getPostIndexingActions();
         if (indexer.getPostIndexingActions() != null) {
-            for (Map.Entry<T, I> entry : indexer.getInvertedIndex().entrySet()) {
-                postIndexingActions.apply(entry.getValue());
+            for (I termInfo : indexer.getInvertedIndex().values()) {
+                postIndexingActions.apply(termInfo, numberOfDocuments);
             }
         }
 
         try {
-            finalIndexPersister.persist(indexer.getInvertedIndex(), true);
-            documentRegistryPersister.persist(documentRegistry.getRegistry(), true);
+            finalIndexPersister.persist(indexer.getSortedEntries(), true);
+            documentRegistry.persist(documentRegistryPersister, true);
         } catch (IOException e) {
             System.err.println("ERROR while writing the index to disk\n");
             e.printStackTrace();
@@ -1,7 +1,12 @@
 package mains.search;
 
 import data_containers.indexer.weights_calculation.searching.LTC;
+import io.data_containers.loaders.bulk_load.document_registry.BinaryLoader;
+import io.data_containers.loaders.bulk_load.document_registry.DocRegBulkLoader;
 import io.data_containers.loaders.bulk_load.document_registry.LinesLoader;
+import io.data_containers.loaders.bulk_load.indexer.BinaryImpactOrderedIndexerLoader;
+import io.data_containers.loaders.bulk_load.indexer.BinaryWeightsAndPositionsIndexerLoader;
+import io.data_containers.loaders.bulk_load.indexer.BinaryWeightsIndexerLoader;
 import io.data_containers.loaders.bulk_load.indexer.WeightsAndPositionsIndexerLoader;
 import io.data_containers.loaders.bulk_load.indexer.WeightsIndexerLoader;
 import io.metadata.BinaryMetadataManager;
@@ -11,8 +16,17 @@ import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
+import org.github.jamm.MemoryMeter;
+import searcher.DocumentScorer;
 import searcher.Evaluation;
+import searcher.ExhaustiveScorer;
+import searcher.LFUSegmentCache;
+import searcher.LRUSegmentCache;
+import searcher.ScoreAtATimeScorer;
 import searcher.Searcher;
+import searcher.SegmentCache;
+import searcher.WANDScorer;
+import searcher.WTinyLFUSegmentCache;
 import tokenizer.AdvancedTokenizer;
 import tokenizer.BaseTokenizer;
 import tokenizer.linguistic_rules.LinguisticRule;
@@ -25,8 +39,13 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.function.ToLongBiFunction;
 
 /**
  * Class containing the main method for the search pipeline
@@ -41,10 +60,10 @@ public class SearchingMain {
      *  <li>1. Parse program options and arguments</li>
      *  <li>2. Loads the metadata file</li>
      *  <li>3. Instantiate the tokenizer</li>
-     *  <li>4. Calculate the amount of indexers and document registries possible to hold in memory</li>
+     *  <li>4. Calculate the memory to hold indexers and document registries and create their caches</li>
      *  <li>5. Instantiate the Searcher class</li>
-     *  <li>6. Responds the queries present on the queries file</li>
-     *  <li>7. Print average of several metrics</li>
+     *  <li>6. Responds the queries present on the queries file, with one or more threads</li>
+     *  <li>7. Print average of several metrics and the throughput</li>
      * </ul>
      *
      * Exit codes:
@@ -68,77 +87,166 @@ public class SearchingMain {
         TreeMap<String, String> indexerMetadata = new TreeMap<>();
 
         // load metadata
+        int numberOfDocuments = 0;
         try {
-            metadataManager.loadMetadata(docRegMetadata, indexerMetadata);
+            numberOfDocuments = metadataManager.loadMetadata(docRegMetadata, indexerMetadata);
         } catch (IOException e) {
             System.err.println("ERROR while loading metadata");
             e.printStackTrace();
             System.exit(2);
         }
 
-        // create an advanced tokenizer
+        // create an advanced tokenizer. the stemmer and the tokenizer
+        //  keep state between calls, so each query thread gets its own
         Set<String> stopWords = mains.indexing.IndexingMain.readStopWordsFile(parsedArgs.getString("stopWordsFilename"));
 
-        List<LinguisticRule> rules = new ArrayList<>(3);
-        rules.add(new StopWordsRule(stopWords));
-        rules.add(new SnowballStemmerRule());
-        rules.add(new MinLengthRule(3));
+        Supplier<BaseTokenizer> tokenizerFactory = () -> {
+            List<LinguisticRule> rules = new ArrayList<>(3);
+            rules.add(new StopWordsRule(stopWords));
+            rules.add(new SnowballStemmerRule());
+            rules.add(new MinLengthRule(3));
 
-        BaseTokenizer tokenizer = new AdvancedTokenizer(rules);
+            return new AdvancedTokenizer(rules);
+        };
 
-        // calculate the maximum the amount of indexers and document registries to hold in memory
-        int maxIndexersInMemory, maxDocRegsInMemory;
+        // calculate the memory for the indexers and the document registries in memory
+        long memForIndexers, memForDocRegs;
         {System.gc();
         Runtime runtime = Runtime.getRuntime();
         long availableMem = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
         long usableMem = (long) Math.floor(availableMem * parsedArgs.getFloat("maxLoadFactor"));
-        long memForIndexers = (long) Math.floor(usableMem * parsedArgs.getFloat("factorForIndexers"));
-        long memForDocRegs = (long) Math.floor(usableMem - memForIndexers);
-        long memPerIndexer = parsedArgs.getInt("indexersSize") * 1024 * 1024;
-        long memPerDocReg = parsedArgs.getInt("docRegsSize") * 1024 * 1024;
-        maxIndexersInMemory = (int) Math.floorDiv(memForIndexers, memPerIndexer) - 1;
-        maxDocRegsInMemory = (int) Math.floorDiv(memForDocRegs, memPerDocReg) - 1;
-
-        if (maxIndexersInMemory <= 0 || maxDocRegsInMemory <= 0) {
+        memForIndexers = (long) Math.floor(usableMem * parsedArgs.getFloat("factorForIndexers"));
+        memForDocRegs = (long) Math.floor(usableMem - memForIndexers);
+        long memPerIndexer = parsedArgs.getInt("indexersSize") * 1024L * 1024;
+        long memPerDocReg = parsedArgs.getInt("docRegsSize") * 1024L * 1024;
+
+        if (memForIndexers < memPerIndexer || memForDocRegs < memPerDocReg) {
             System.err.println("ERROR non enough memory with given maxLoadFactor and factorForIndexers" +
                                " to have at least one indexer and one document registry in memory at the same time");
             System.exit(1);
         }}
 
         int K = parsedArgs.getInt("K");
+        boolean useBinaryFormat = parsedArgs.getString("indexFormat").equals("binary");
+        boolean memoryMapped = parsedArgs.getBoolean("memoryMapped");
+        boolean useDictionary = parsedArgs.getBoolean("useDictionary");
+        boolean impactOrdered = parsedArgs.getBoolean("impactOrdered");
+        float proximityWeight = parsedArgs.getFloat("proximityWeight");
+
+        String pruning = parsedArgs.getString("pruning");
+        DocumentScorer scorer;
+        if (impactOrdered) {
+            scorer = new ScoreAtATimeScorer(parsedArgs.getInt("postingsBudget"));
+        }
+        else if (pruning.equals("wand")) {
+            scorer = new WANDScorer(false);
+        }
+        else if (pruning.equals("block-max-wand")) {
+            scorer = new WANDScorer(true);
+        }
+        else {
+            scorer = new ExhaustiveScorer();
+        }
+
+        // the memory retained by the segments is measured when they are loaded, and
+        //  the memory of the indexers is updated as their entries are parsed.
+        //  the entries of binary indexers hold buffers over the content of the whole
+        //  file, already measured with the indexer, so for the entries only the bytes
+        //  remaining on the buffers are counted. files mapped into memory aren't counted
+        MemoryMeter meter = new MemoryMeter()
+            .withGuessing(MemoryMeter.Guess.FALLBACK_BEST)
+            .ignoreKnownSingletons();
+        MemoryMeter entryMeter = meter.omitSharedBufferOverhead();
+
+        String cachePolicy = parsedArgs.getString("cachePolicy");
+        SegmentCache<String, Map<String, Object>> indexersCache = createSegmentCache(
+            cachePolicy,
+            memForIndexers,
+            (firstTerm, invertedIndex) -> meter.measureDeep(invertedIndex)
+        );
+        SegmentCache<Integer, DocRegBulkLoader.DocumentRegistry> docRegsCache = createSegmentCache(
+            cachePolicy,
+            memForDocRegs,
+            (firstDocId, documentRegistry) -> meter.measureDeep(documentRegistry)
+        );
+
+        // results of the queries, taking memory apart from the one of the indexers
+        //  and document registries
+        SegmentCache<String, List<Integer>> resultsCache = null;
+        if (parsedArgs.getInt("resultsCacheSize") > 0) {
+            resultsCache = createSegmentCache(
+                cachePolicy,
+                parsedArgs.getInt("resultsCacheSize") * 1024L * 1024,
+                (resultsKey, results) -> meter.measureDeep(resultsKey) + meter.measureDeep(results)
+            );
+        }
+
+        // term information of the terms requested, kept apart from their indexers.
+        //  only the memory of the posting lists is counted, since the buffers of
+        //  binary indexers are shared with the indexer
+        SegmentCache<String, Object> termsCache = null;
+        if (parsedArgs.getInt("termsCacheSize") > 0) {
+            termsCache = createSegmentCache(
+                cachePolicy,
+                parsedArgs.getInt("termsCacheSize") * 1024L * 1024,
+                (term, termInfo) -> entryMeter.measureDeep(term) + entryMeter.measureDeep(termInfo)
+            );
+        }
 
         // instantiate the searcher class
-        Searcher searcher;
+        Searcher<?, ?> searcher;
         if (parsedArgs.getBoolean("useWeightsAndPositionsIndexer")) {
             searcher = new Searcher(
-                tokenizer,
-                new LTC(),
+                tokenizerFactory,
+                LTC::new,
                 docRegMetadata,
                 indexerMetadata,
-                new LinesLoader(docRegsFolder),
-                new WeightsAndPositionsIndexerLoader(indexersFolder),
-                maxDocRegsInMemory,
-                maxIndexersInMemory,
-                K
+                useBinaryFormat
+                    ? new BinaryLoader(docRegsFolder, memoryMapped)
+                    : new LinesLoader(docRegsFolder),
+                useBinaryFormat
+                    ? new BinaryWeightsAndPositionsIndexerLoader(indexersFolder, memoryMapped, useDictionary)
+                    : new WeightsAndPositionsIndexerLoader(indexersFolder, useDictionary),
+                docRegsCache,
+                indexersCache,
+                entryMeter::measureDeep,
+                resultsCache,
+                termsCache,
+                K,
+                scorer,
+                true,
+                proximityWeight
             );
         }
         else {
             searcher = new Searcher(
-                tokenizer,
-                new LTC(),
+                tokenizerFactory,
+                LTC::new,
                 docRegMetadata,
                 indexerMetadata,
-                new LinesLoader(docRegsFolder),
-                new WeightsIndexerLoader(indexersFolder),
-                maxDocRegsInMemory,
-                maxIndexersInMemory,
-                K
+                useBinaryFormat
+                    ? new BinaryLoader(docRegsFolder, memoryMapped)
+                    : new LinesLoader(docRegsFolder),
+                impactOrdered
+                    ? new BinaryImpactOrderedIndexerLoader(indexersFolder, memoryMapped, useDictionary)
+                    : useBinaryFormat
+                        ? new BinaryWeightsIndexerLoader(indexersFolder, memoryMapped, useDictionary)
+                        : new WeightsIndexerLoader(indexersFolder, useDictionary),
+                docRegsCache,
+                indexersCache,
+                entryMeter::measureDeep,
+                resultsCache,
+                termsCache,
+                K,
+                scorer,
+                false,
+                0
             );
         }
 
         Evaluation tmp = null;
         try {
-            tmp = new Evaluation(parsedArgs.getString("queriesRelevanceFile"));
+            tmp = new Evaluation(parsedArgs.getString("queriesRelevanceFile"), numberOfDocuments);
         } catch (IOException e) {
             System.err.println("ERROR while creating evaluation class");
             e.printStackTrace();
@@ -146,31 +254,120 @@ public class SearchingMain {
         }
         Evaluation evaluation = tmp;
 
-        long begin = System.currentTimeMillis();
-
-        // process queries file
+        // read queries file
+        List<String> queries = null;
         try {
-            Files.lines(Paths.get(parsedArgs.getString("queriesFile"))).forEach(line -> {
-                int queryId = Integer.parseInt(line.substring(0, 2).trim());
-                String query = line.substring(2);
-
-                System.out.println(queryId);
-                evaluation.evaluate(queryId, searcher.queryIndex(query));
-            });
+            queries = Files.readAllLines(Paths.get(parsedArgs.getString("queriesFile")));
         } catch (IOException e) {
             System.err.println("ERROR while reading queries file");
             e.printStackTrace();
             System.exit(2);
         }
 
-        double elapsedTime = (double) (System.currentTimeMillis() - begin);
+        int queryThreads = parsedArgs.getInt("queryThreads");
+
+        // written by the query threads and read by this thread once they end
+        AtomicReferenceArray<List<Integer>> results = new AtomicReferenceArray<>(queries.size());
+        long[] latencies = new long[queries.size()];
+        int[] queriesPerThread = new int[queryThreads];
+        long[] busyTimePerThread = new long[queryThreads];
+
+        long begin = System.nanoTime();
+
+        // each thread takes the next query not yet taken
+        List<String> queriesToRespond = queries;
+        AtomicInteger nextQuery = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>(queryThreads);
+        for (int i = 0; i < queryThreads; i++) {
+            int thread = i;
+
+            Thread queryThread = new Thread(() -> {
+                int query;
+                while ((query = nextQuery.getAndIncrement()) < queriesToRespond.size()) {
+                    long queryBegin = System.nanoTime();
+
+                    results.set(query, searcher.queryIndex(queriesToRespond.get(query).substring(2)));
+
+                    latencies[query] = System.nanoTime() - queryBegin;
+                    queriesPerThread[thread]++;
+                    busyTimePerThread[thread] += latencies[query];
+                }
+            }, "query-thread-" + i);
+            queryThread.start();
+            threads.add(queryThread);
+        }
+
+        for (Thread queryThread : threads) {
+            try {
+                queryThread.join();
+            } catch (InterruptedException e) {
+                System.err.println("ERROR interrupted while waiting for the query threads");
+                e.printStackTrace();
+                System.exit(2);
+            }
+        }
+
+        double elapsedTime = (double) (System.nanoTime() - begin) / 1000000000;
+
+        // evaluate the results on the order of the queries file
+        double latenciesSum = 0;
+        for (int query = 0; query < queries.size(); query++) {
+            int queryId = Integer.parseInt(queries.get(query).substring(0, 2).trim());
+
+            System.out.println(queryId);
+            evaluation.evaluate(queryId, results.get(query));
+
+            latenciesSum += (double) latencies[query] / 1000000000;
+        }
 
         System.out.println();
         evaluation.printMetricsAverage();
 
         System.out.println();
-        System.out.printf("Query latency: %f\n", elapsedTime / 1000 / evaluation.queryCount);
-        System.out.printf("Query throughput: %f\n", evaluation.queryCount / (elapsedTime / 1000));
+        System.out.printf("Query latency: %f\n", latenciesSum / evaluation.queryCount);
+        System.out.printf("Query throughput: %f\n", evaluation.queryCount / elapsedTime);
+
+        System.out.println();
+        System.out.printf("Indexers cache: %s, %.2f of %.2f MB\n", indexersCache,
+            indexersCache.getWeightedSize() / 1024.0 / 1024, indexersCache.getCapacity() / 1024.0 / 1024);
+        System.out.printf("Document registries cache: %s, %.2f of %.2f MB\n", docRegsCache,
+            docRegsCache.getWeightedSize() / 1024.0 / 1024, docRegsCache.getCapacity() / 1024.0 / 1024);
+        if (termsCache != null) {
+            System.out.printf("Terms cache: %s, %.2f of %.2f MB\n", termsCache,
+                termsCache.getWeightedSize() / 1024.0 / 1024, termsCache.getCapacity() / 1024.0 / 1024);
+        }
+        if (resultsCache != null) {
+            System.out.printf("Results cache: %s, %.2f of %.2f MB\n", resultsCache,
+                resultsCache.getWeightedSize() / 1024.0 / 1024, resultsCache.getCapacity() / 1024.0 / 1024);
+        }
+
+        if (queryThreads > 1) {
+            for (int i = 0; i < queryThreads; i++) {
+                System.out.printf("Query throughput of thread %d: %f (%d queries)\n",
+                    i, queriesPerThread[i] / ((double) busyTimePerThread[i] / 1000000000), queriesPerThread[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a segment cache with the given eviction policy
+     *
+     * @param policy one of the choices of the cache policy option
+     * @param capacity maximum sum of the weights of the segments in the cache
+     * @param weigher calculates the weight of a loaded segment
+     * @return the segment cache
+     */
+    private static <K, V> SegmentCache<K, V> createSegmentCache(String policy, long capacity,
+                                                                ToLongBiFunction<K, V> weigher) {
+        if (policy.equals("lfu")) {
+            return new LFUSegmentCache<>(capacity, weigher);
+        }
+        else if (policy.equals("w-tinylfu")) {
+            return new WTinyLFUSegmentCache<>(capacity, weigher);
+        }
+        else {
+            return new LRUSegmentCache<>(capacity, weigher);
+        }
     }
 
     /**
@@ -226,7 +423,110 @@ public class SearchingMain {
             .addArgument("-p")
             .dest("useWeightsAndPositionsIndexer")
             .action(Arguments.storeTrue())
-            .help("Uses the indexer that calculates weight terms and stores positions");
+            .help("Uses the indexer that calculates weight terms and stores positions." +
+                " Text between double quotes on the queries is searched as a phrase");
+
+        argsParser
+            .addArgument("--proximity-weight")
+            .dest("proximityWeight")
+            .type(Float.class)
+            .action(Arguments.store())
+            .setDefault(0f)
+            .help("Boosts the score of the documents where the query terms appear close to" +
+                " each other. The score is multiplied by up to 1 plus this weight, on documents" +
+                " where the query terms appear one after the other. Only available for the" +
+                " indexer with positions. Default 0, no boost");
+
+        argsParser
+            .addArgument("--pruning")
+            .dest("pruning")
+            .choices("none", "wand", "block-max-wand")
+            .setDefault("none")
+            .help("Dynamic pruning used to skip documents that can't be on the" +
+                " top K. Results are the same as without pruning. Queries with phrases" +
+                " are scored without pruning. Default none");
+
+        argsParser
+            .addArgument("--impact-ordered")
+            .dest("impactOrdered")
+            .action(Arguments.storeTrue())
+            .help("Reads an index written with impact ordered posting lists and scores the" +
+                " documents score at a time, stopping once the postings left can't change" +
+                " the top K. Should be used if it was used during indexing." +
+                " Only available for the binary format without positions");
+
+        argsParser
+            .addArgument("--postings-budget")
+            .dest("postingsBudget")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(0)
+            .help("Maximum number of postings read per query when scoring score at a time." +
+                " When reached the best documents found so far are returned. Default 0, no maximum");
+
+        argsParser
+            .addArgument("--query-threads")
+            .dest("queryThreads")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(1)
+            .help("Number of threads answering queries at the same time. The indexers and" +
+                " document registries in memory are shared by all threads. The throughput of" +
+                " each thread is also printed. Default 1");
+
+        argsParser
+            .addArgument("--index-format")
+            .dest("indexFormat")
+            .choices("text", "binary")
+            .setDefault("text")
+            .help("Format of the index files. Should be the same used during indexing." +
+                " Default text");
+
+        argsParser
+            .addArgument("--memory-mapped")
+            .dest("memoryMapped")
+            .action(Arguments.storeTrue())
+            .help("Maps the index and document registry files into memory instead of reading them." +
+                " Posting lists are decoded from the mapped files when requested." +
+                " Only available for the binary format");
+
+        argsParser
+            .addArgument("--use-dictionary")
+            .dest("useDictionary")
+            .action(Arguments.storeTrue())
+            .help("Loads only the dictionary written next to each index file and" +
+                " reads from the index file only the entries of the query terms");
+
+        argsParser
+            .addArgument("--cache-policy")
+            .dest("cachePolicy")
+            .choices("lru", "lfu", "w-tinylfu")
+            .setDefault("lru")
+            .help("Policy used to choose which indexers and document registries in memory" +
+                " are evicted to load others: least recently used, least frequently used with" +
+                " aging, or an LRU window admitting into the main space only the most" +
+                " frequently used (W-TinyLFU). Default lru");
+
+        argsParser
+            .addArgument("--terms-cache-size")
+            .dest("termsCacheSize")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(0)
+            .help("Memory in MB to keep the posting lists of the terms requested apart from" +
+                " their indexers, so the most used terms stay in memory even if their indexers" +
+                " are evicted. Uses the cache policy of the indexers. Default 0, posting lists" +
+                " are only kept by the indexers");
+
+        argsParser
+            .addArgument("--results-cache-size")
+            .dest("resultsCacheSize")
+            .type(Integer.class)
+            .action(Arguments.store())
+            .setDefault(0)
+            .help("Memory in MB to keep the results of the queries answered, so queries with" +
+                " the same terms after tokenized are only answered once. Uses the cache policy" +
+                " of the indexers. Default 0, results aren't kept");
 
         argsParser
             .addArgument("--max-load-factor")
@@ -254,8 +554,8 @@ public class SearchingMain {
             .type(Integer.class)
             .action(Arguments.store())
             .setDefault(10)
-            .help("Estimated size of a indexer size in memory in MB" +
-                  " Should be the same value used during indexing. Default 10");
+            .help("Estimated size of a indexer size in memory in MB, used to check if" +
+                  " at least one fits in memory. Should be the same value used during indexing. Default 10");
 
         argsParser
             .addArgument("--doc-regs-size")
@@ -263,8 +563,8 @@ public class SearchingMain {
             .type(Integer.class)
             .action(Arguments.store())
             .setDefault(50)
-            .help("Estimated size of a document registry file in memory in MB." +
-                  " Should be the same value used during indexing. Default 50");
+            .help("Estimated size of a document registry file in memory in MB, used to check if" +
+                  " at least one fits in memory. Should be the same value used during indexing. Default 50");
 
         Namespace parsedArgs = null;
         try {
@@ -274,6 +574,54 @@ public class SearchingMain {
             System.exit(1);
         }
 
+        if (parsedArgs.getBoolean("memoryMapped") && !parsedArgs.getString("indexFormat").equals("binary")) {
+            System.err.println("ERROR memory mapped index files are only available for the binary format");
+            System.exit(1);
+        }
+
+        if (parsedArgs.getBoolean("impactOrdered")) {
+            if (!parsedArgs.getString("indexFormat").equals("binary")
+                || parsedArgs.getBoolean("useWeightsAndPositionsIndexer")) {
+                System.err.println("ERROR impact ordered index files are only available for" +
+                    " the binary format without positions");
+                System.exit(1);
+            }
+
+            if (!parsedArgs.getString("pruning").equals("none")) {
+                System.err.println("ERROR dynamic pruning isn't available for impact ordered index files");
+                System.exit(1);
+            }
+        }
+
+        if (parsedArgs.getFloat("proximityWeight") != 0) {
+            if (!parsedArgs.getBoolean("useWeightsAndPositionsIndexer")) {
+                System.err.println("ERROR proximity is only available for the indexer with positions");
+                System.exit(1);
+            }
+
+            if (parsedArgs.getFloat("proximityWeight") < 0) {
+                System.err.println("ERROR proximityWeight should be a floating point equal or greater than 0");
+                System.exit(1);
+            }
+
+            if (!parsedArgs.getString("pruning").equals("none")) {
+                System.err.println("ERROR dynamic pruning isn't available with proximity");
+                System.exit(1);
+            }
+        }
+
+        for (String varName : new String[] {"termsCacheSize", "resultsCacheSize"}) {
+            if (parsedArgs.getInt(varName) < 0) {
+                System.err.println("ERROR " + varName + " should be an integer equal or greater than 0");
+                System.exit(1);
+            }
+        }
+
+        if (parsedArgs.getInt("postingsBudget") < 0) {
+            System.err.println("ERROR postingsBudget should be an integer equal or greater than 0");
+            System.exit(1);
+        }
+
         for (String varName : new String[] {"maxLoadFactor", "factorForIndexers"}) {
             Float varValue = parsedArgs.getFloat(varName);
             if (varValue != null && (varValue < 0 || varValue > 1)) {
@@ -283,7 +631,7 @@ public class SearchingMain {
             }
         }
 
-        for (String varName : new String[] {"K", "indexersSize", "docRegsSize"}) {
+        for (String varName : new String[] {"K", "indexersSize", "docRegsSize", "queryThreads"}) {
             Integer varValue = parsedArgs.getInt(varName);
             if (varValue != null && varValue <= 0) {
                 System.err.println("ERROR " + varName + " should be an integer" +
@@ -0,0 +1,23 @@
+package searcher;
+
+/**
+ * Defines how the documents of the posting lists of
+ *  the query terms are scored to find the best K documents.
+ * The score of a document is the sum, by the order of the
+ *  query terms, of the query weight of each term times the
+ *  weight of the document on the posting list of the term
+ */
+public interface DocumentScorer {
+
+    /**
+     * Scores the documents of the posting lists
+     *
+     * @param cursors one for the posting list of each query term,
+     *  positioned on the first posting
+     * @param queryWeights weight of each query term
+     * @param K maximum number of documents to return
+     * @return the document ids of the best K documents, from the best to the worst
+     */
+    int[] score(PostingCursor<?>[] cursors, float[] queryWeights, int K);
+
+}
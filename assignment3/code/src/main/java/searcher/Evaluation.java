@@ -1,6 +1,5 @@
 package searcher;
 
-import data_containers.DocumentRegistry;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -24,6 +23,11 @@ public class Evaluation {
 
     public int queryCount;
 
+    /**
+     * Number of documents of the corpus
+     */
+    private int numberOfDocuments;
+
     double cumulativePrecision;
 
     double cumulativeRecall;
@@ -34,8 +38,9 @@ public class Evaluation {
 
     double cumulativeNDCG;
 
-    public Evaluation(String queriesRelevanceFile) throws IOException {
+    public Evaluation(String queriesRelevanceFile, int numberOfDocuments) throws IOException {
         queryRelevance = new HashMap<>();
+        this.numberOfDocuments = numberOfDocuments;
 
         Files.lines(Paths.get(queriesRelevanceFile)).forEach(line -> {
             String[] fields = line.split("\\s+");
@@ -131,7 +136,7 @@ public class Evaluation {
 
         int falsePositives = queryResults.size() - truePositives;
         int trueNegatives =
-            DocumentRegistry.getNumberOfDocuments()
+            numberOfDocuments
                 - falseNegatives - falsePositives
                 + truePositives;
 
@@ -0,0 +1,45 @@
+package searcher;
+
+/**
+ * Scores the documents document at a time: the posting lists are
+ *  iterated together by increasing document id, so each document
+ *  is fully scored once all its postings are read and is then
+ *  offered to a heap that keeps only the best K documents.
+ * Every posting of every list is read
+ */
+public class ExhaustiveScorer implements DocumentScorer {
+
+    @Override
+    public int[] score(PostingCursor<?>[] cursors, float[] queryWeights, int K) {
+        TopKHeap topDocuments = new TopKHeap(K);
+
+        while (true) {
+            // find the lowest document id among all the posting lists
+            int docId = PostingCursor.END;
+            for (PostingCursor<?> cursor : cursors) {
+                if (cursor.docId() < docId) {
+                    docId = cursor.docId();
+                }
+            }
+
+            if (docId == PostingCursor.END) {
+                break; // the end of all posting lists was reached
+            }
+
+            // score the document with the postings of the lists positioned on it
+            float score = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i].docId() == docId) {
+                    score += queryWeights[i] * cursors[i].weight();
+
+                    cursors[i].next();
+                }
+            }
+
+            topDocuments.offer(docId, score);
+        }
+
+        return topDocuments.drainSorted();
+    }
+
+}
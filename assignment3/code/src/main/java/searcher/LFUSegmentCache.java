@@ -0,0 +1,128 @@
+package searcher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Segment cache that evicts the least frequently used segments, the least
+ *  recently used first on ties.
+ * The frequencies are aged: every AGING_PERIOD accesses per segment on the
+ *  cache all frequencies are halved, so segments that were popular long ago
+ *  are eventually evicted when the queries move to other topics.
+ * The caches hold few segments, so the victim is found with a linear scan
+ */
+public class LFUSegmentCache<K, V> extends SegmentCache<K, V> {
+
+    /**
+     * Number of accesses, per segment on the cache, between two agings
+     */
+    private static final int AGING_PERIOD = 10;
+
+    private final Map<K, FrequencyEntry<V>> entries = new HashMap<>();
+
+    /**
+     * Incremented on every access, to order the accesses
+     */
+    private long clock;
+
+    private long accessesSinceAging;
+
+    public LFUSegmentCache(long capacity, ToLongBiFunction<? super K, ? super V> weigher) {
+        super(capacity, weigher);
+    }
+
+    @Override
+    protected V getEntry(K key) {
+        FrequencyEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.frequency++;
+        entry.lastAccess = ++clock;
+        age();
+
+        return entry.value;
+    }
+
+    @Override
+    protected void putEntry(K key, V value, long weight) {
+        if (weight > capacity) {
+            return; // would never fit
+        }
+
+        // evicted before adding, since the new segment has the lowest frequency
+        while (weightedSize + weight > capacity) {
+            evictLeastUsed();
+        }
+
+        entries.put(key, new FrequencyEntry<>(value, weight, ++clock));
+        added(weight);
+        age();
+    }
+
+    @Override
+    protected Entry<V> findEntry(K key) {
+        return entries.get(key);
+    }
+
+    @Override
+    protected void evictOverCapacity() {
+        while (weightedSize > capacity) {
+            evictLeastUsed();
+        }
+    }
+
+    /**
+     * Evicts the least frequently used segment
+     */
+    private void evictLeastUsed() {
+        Map.Entry<K, FrequencyEntry<V>> victim = null;
+        for (Map.Entry<K, FrequencyEntry<V>> entry : entries.entrySet()) {
+            if (victim == null || entry.getValue().isLessUsedThan(victim.getValue())) {
+                victim = entry;
+            }
+        }
+
+        entries.remove(victim.getKey());
+        evicted(victim.getValue().weight);
+    }
+
+    /**
+     * Halves the frequencies of all segments if enough
+     *  accesses happened since the last time
+     */
+    private void age() {
+        if (++accessesSinceAging < (long) AGING_PERIOD * Math.max(1, entries.size())) {
+            return;
+        }
+
+        for (FrequencyEntry<V> entry : entries.values()) {
+            entry.frequency /= 2;
+        }
+        accessesSinceAging = 0;
+    }
+
+    /**
+     * A segment on the cache with its usage
+     */
+    private static class FrequencyEntry<V> extends Entry<V> {
+
+        private int frequency;
+
+        private long lastAccess;
+
+        private FrequencyEntry(V value, long weight, long lastAccess) {
+            super(value, weight);
+            this.frequency = 1;
+            this.lastAccess = lastAccess;
+        }
+
+        private boolean isLessUsedThan(FrequencyEntry<V> other) {
+            return frequency < other.frequency
+                || (frequency == other.frequency && lastAccess < other.lastAccess);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package searcher;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Segment cache that evicts the least recently used segments
+ */
+public class LRUSegmentCache<K, V> extends SegmentCache<K, V> {
+
+    /**
+     * Segments ordered from the least to the most recently used
+     */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public LRUSegmentCache(long capacity, ToLongBiFunction<? super K, ? super V> weigher) {
+        super(capacity, weigher);
+    }
+
+    @Override
+    protected V getEntry(K key) {
+        Entry<V> entry = entries.get(key);
+
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    protected void putEntry(K key, V value, long weight) {
+        if (weight > capacity) {
+            return; // would never fit
+        }
+
+        // the new segment is the most recently used, so it's the last to be evicted
+        entries.put(key, new Entry<>(value, weight));
+        added(weight);
+
+        evictOverCapacity();
+    }
+
+    @Override
+    protected Entry<V> findEntry(K key) {
+        return entries.get(key);
+    }
+
+    @Override
+    protected void evictOverCapacity() {
+        Iterator<Map.Entry<K, Entry<V>>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (weightedSize > capacity) {
+            evicted(leastRecentlyUsed.next().getValue().weight);
+            leastRecentlyUsed.remove();
+        }
+    }
+
+}
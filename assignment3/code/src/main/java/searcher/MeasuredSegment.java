@@ -0,0 +1,84 @@
+package searcher;
+
+import org.github.jamm.Unmetered;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Indexer loaded from disk that reports how much it grows.
+ * The indexer loaders keep the entries of the terms as raw data and
+ *  replace them on the loaded map by the term information objects once
+ *  the terms are requested, which can take much more memory than the raw
+ *  data. Every entry replaced is measured, before and after, and the
+ *  difference is reported, so the cache of the indexers can keep the
+ *  weight of the indexer up to date.
+ * The meter and the listener aren't part of the memory of the indexer
+ */
+class MeasuredSegment extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> segment;
+
+    /**
+     * Measures the memory retained by an entry
+     */
+    @Unmetered
+    private final ToLongFunction<Object> entryMeter;
+
+    /**
+     * Receives this indexer and the memory added by each entry replaced
+     */
+    @Unmetered
+    private final ObjLongConsumer<MeasuredSegment> growthListener;
+
+    /**
+     * Main constructor
+     *
+     * @param segment indexer loaded by an indexer loader
+     * @param entryMeter measures the memory retained by an entry, raw or parsed
+     * @param growthListener receives this indexer and the memory added by each entry replaced
+     */
+    MeasuredSegment(Map<String, Object> segment, ToLongFunction<Object> entryMeter,
+                    ObjLongConsumer<MeasuredSegment> growthListener) {
+        this.segment = segment;
+        this.entryMeter = entryMeter;
+        this.growthListener = growthListener;
+    }
+
+    @Override
+    public Object get(Object term) {
+        return segment.get(term);
+    }
+
+    @Override
+    public boolean containsKey(Object term) {
+        return segment.containsKey(term);
+    }
+
+    @Override
+    public Object put(String term, Object entry) {
+        Object previous = segment.put(term, entry);
+
+        long growth = entryMeter.applyAsLong(entry);
+        if (previous != null) {
+            growth -= entryMeter.applyAsLong(previous);
+        }
+        growthListener.accept(this, growth);
+
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return segment.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return segment.entrySet();
+    }
+
+}
@@ -0,0 +1,123 @@
+package searcher;
+
+import java.util.Arrays;
+
+/**
+ * Finds the documents where the terms of a phrase appear one
+ *  after the other.
+ * The posting lists of the terms are first intersected by document
+ *  id, moving each list to the document of the others with advance,
+ *  and only on the documents that have all terms the positions are
+ *  read and checked
+ */
+public class PhraseMatcher {
+
+    /**
+     * One for the posting list of each term of the phrase
+     */
+    private final PostingCursor<?>[] cursors;
+
+    /**
+     * Position of each term on the phrase
+     */
+    private final int[] offsets;
+
+    /**
+     * Main constructor
+     *
+     * @param cursors one for the posting list of each term of the phrase, positioned
+     *  on the first posting. Repeated terms should have different cursors
+     * @param offsets position of each term on the phrase
+     */
+    public PhraseMatcher(PostingCursor<?>[] cursors, int[] offsets) {
+        this.cursors = cursors;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Getter of all documents where the phrase appears
+     *
+     * @return the document ids, sorted
+     */
+    public int[] matchingDocuments() {
+        int[] matches = new int[16];
+        int matchesCount = 0;
+
+        int docId;
+        while ((docId = nextMatch()) != PostingCursor.END) {
+            if (matchesCount == matches.length) {
+                matches = Arrays.copyOf(matches, matchesCount * 2);
+            }
+            matches[matchesCount++] = docId;
+        }
+
+        return Arrays.copyOf(matches, matchesCount);
+    }
+
+    /**
+     * Moves the cursors to the next document where the phrase appears
+     *
+     * @return the document id or PostingCursor.END if there are no more
+     */
+    private int nextMatch() {
+        int target = cursors[0].docId();
+
+        while (target != PostingCursor.END) {
+            // move all lists to the target until all of them are on the same document
+            boolean allOnTarget = true;
+            for (PostingCursor<?> cursor : cursors) {
+                cursor.advance(target);
+
+                if (cursor.docId() != target) {
+                    target = cursor.docId();
+                    allOnTarget = false;
+                    break;
+                }
+            }
+
+            if (!allOnTarget) {
+                continue;
+            }
+
+            boolean matches = hasPhrase();
+
+            cursors[0].next();
+
+            if (matches) {
+                return target;
+            }
+
+            target = cursors[0].docId();
+        }
+
+        return PostingCursor.END;
+    }
+
+    /**
+     * Checks the positions of the terms on the document
+     *  where all cursors are
+     */
+    private boolean hasPhrase() {
+        int[][] positions = new int[cursors.length][];
+        for (int i = 0; i < cursors.length; i++) {
+            positions[i] = cursors[i].positions();
+        }
+
+        // each position of the first term is a possible start of the phrase
+        for (int start : positions[0]) {
+            int phraseStart = start - offsets[0];
+
+            boolean found = true;
+            for (int i = 1; i < cursors.length && found; i++) {
+                found = Arrays.binarySearch(positions[i], phraseStart + offsets[i]) >= 0;
+            }
+
+            if (found) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
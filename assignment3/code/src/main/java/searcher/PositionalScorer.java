@@ -0,0 +1,146 @@
+package searcher;
+
+/**
+ * Scores the documents document at a time using the positions of the
+ *  terms: the documents can be restricted to a set of candidates, the
+ *  documents with the phrases of the query, and the score of the documents
+ *  where the query terms appear close to each other can be boosted.
+ * The boost uses the minimal window, the smallest span of positions of
+ *  the document that has at least one occurrence of every query term
+ *  present on the document. With m query terms present out of n and a
+ *  window of w positions, the proximity is (m - 1) / (n - 1) * m / w, between
+ *  0 and 1, and the score is multiplied by 1 + proximityWeight * proximity.
+ * Since the proximity is at most 1, a document whose score times
+ *  1 + proximityWeight can't enter the top K isn't boosted, so positions
+ *  are only read for documents with at least two query terms that can
+ *  still enter the top K
+ */
+public class PositionalScorer implements DocumentScorer {
+
+    /**
+     * Weight of the proximity on the score. 0 disables the boost
+     */
+    private final float proximityWeight;
+
+    /**
+     * Sorted document ids of the only documents to score,
+     *  null to score all documents
+     */
+    private final int[] candidates;
+
+    /**
+     * Main constructor
+     *
+     * @param proximityWeight weight of the proximity on the score, 0 to disable the boost
+     * @param candidates sorted document ids of the only documents to score, null to score all
+     */
+    public PositionalScorer(float proximityWeight, int[] candidates) {
+        this.proximityWeight = proximityWeight;
+        this.candidates = candidates;
+    }
+
+    @Override
+    public int[] score(PostingCursor<?>[] cursors, float[] queryWeights, int K) {
+        TopKHeap topDocuments = new TopKHeap(K);
+
+        int[][] positions = new int[cursors.length][];
+        int nextCandidate = 0;
+
+        while (true) {
+            int docId;
+            if (candidates != null) {
+                if (nextCandidate == candidates.length) {
+                    break;
+                }
+                docId = candidates[nextCandidate++];
+
+                for (PostingCursor<?> cursor : cursors) {
+                    cursor.advance(docId);
+                }
+            }
+            else {
+                // find the lowest document id among all the posting lists
+                docId = PostingCursor.END;
+                for (PostingCursor<?> cursor : cursors) {
+                    if (cursor.docId() < docId) {
+                        docId = cursor.docId();
+                    }
+                }
+
+                if (docId == PostingCursor.END) {
+                    break; // the end of all posting lists was reached
+                }
+            }
+
+            float score = 0;
+            int termsPresent = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i].docId() == docId) {
+                    score += queryWeights[i] * cursors[i].weight();
+                    termsPresent++;
+                }
+            }
+
+            if (proximityWeight > 0 && termsPresent >= 2
+                && score * (1 + proximityWeight) >= topDocuments.getThreshold()) {
+                int present = 0;
+                for (PostingCursor<?> cursor : cursors) {
+                    if (cursor.docId() == docId) {
+                        positions[present++] = cursor.positions();
+                    }
+                }
+
+                float proximity = (float) (termsPresent - 1) / (cursors.length - 1)
+                    * termsPresent / minimalWindow(positions, present);
+
+                score *= 1 + proximityWeight * proximity;
+            }
+
+            for (PostingCursor<?> cursor : cursors) {
+                if (cursor.docId() == docId) {
+                    cursor.next();
+                }
+            }
+
+            topDocuments.offer(docId, score);
+        }
+
+        return topDocuments.drainSorted();
+    }
+
+    /**
+     * Calculates the size of the smallest span of positions that has at
+     *  least one position of each list, merging the sorted lists and always
+     *  moving the list whose current position is the lowest
+     *
+     * @param positions sorted positions of each term
+     * @param count number of lists of positions to consider
+     * @return the number of positions of the smallest span
+     */
+    private static int minimalWindow(int[][] positions, int count) {
+        int[] indexes = new int[count];
+
+        int minimalWindow = Integer.MAX_VALUE;
+        while (true) {
+            int lowestList = 0;
+            int lowest = Integer.MAX_VALUE;
+            int highest = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int position = positions[i][indexes[i]];
+
+                if (position < lowest) {
+                    lowest = position;
+                    lowestList = i;
+                }
+                highest = Math.max(highest, position);
+            }
+
+            minimalWindow = Math.min(minimalWindow, highest - lowest + 1);
+
+            if (++indexes[lowestList] == positions[lowestList].length) {
+                return minimalWindow;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,336 @@
+package searcher;
+
+import data_containers.indexer.post_indexing_actions.CalculateMaxWeightsAction;
+import data_containers.indexer.structures.BlockPostingList;
+import data_containers.indexer.structures.Document;
+import data_containers.indexer.structures.DocumentWithInfo;
+import data_containers.indexer.structures.PositionalPostingList;
+import data_containers.indexer.structures.PostingList;
+
+import java.util.List;
+
+/**
+ * Iterates over the postings of a posting list by increasing document id.
+ * Posting lists stored on primitive arrays (PostingList) are read
+ *  without creating document objects. Posting lists kept encoded
+ *  (BlockPostingList) are decoded one block at a time into arrays
+ *  of the cursor, and moving forward jumps over the blocks that
+ *  can't have the target document without decoding them.
+ * Besides the current posting, the cursor can look ahead at the
+ *  block of postings (of PostingList.BLOCK_SIZE postings) where a
+ *  document would be, without moving, to get upper bounds of the
+ *  weights of the next postings.
+ * Cursors over impact ordered posting lists, where only the postings of
+ *  a block are sorted by document id, must only be read sequentially
+ *  with next, using the maximum weight of the current block
+ *
+ * @param <D> type of the documents of the posting list
+ */
+public class PostingCursor<D extends Document<Float>> {
+
+    /**
+     * Document id returned after the last posting, greater
+     *  than any real document id
+     */
+    public static final int END = Integer.MAX_VALUE;
+
+    private final List<D> postingList;
+
+    /**
+     * Same list as postingList if it's a primitive posting list, null otherwise
+     */
+    private final PostingList<D> primitivePostingList;
+
+    /**
+     * Same list as postingList if it's a block posting list, null otherwise
+     */
+    private final BlockPostingList<D> blockPostingList;
+
+    /**
+     * Document ids and weights of the decoded block of a block posting list
+     */
+    private int[] blockDocIds;
+
+    private float[] blockWeights;
+
+    private int decodedBlock;
+
+    private final int size;
+
+    /**
+     * Maximum weight of each block of postings
+     */
+    private final float[] blockMaxWeights;
+
+    private final float maxWeight;
+
+    private int index;
+
+    private int docId;
+
+    /**
+     * Block where the cursor looked ahead. Never before
+     *  the block of the current posting
+     */
+    private int shallowBlock;
+
+    /**
+     * Main constructor
+     *
+     * @param postingList posting list sorted by document id
+     * @param blockMaxWeights maximum weight of each block of postings. If null
+     *  they are calculated from the posting list
+     */
+    public PostingCursor(List<D> postingList, float[] blockMaxWeights) {
+        this.postingList = postingList;
+        this.primitivePostingList = postingList instanceof PostingList ? (PostingList<D>) postingList : null;
+        this.blockPostingList = postingList instanceof BlockPostingList ? (BlockPostingList<D>) postingList : null;
+        this.decodedBlock = -1;
+        if (blockPostingList != null) {
+            this.blockDocIds = new int[PostingList.BLOCK_SIZE];
+            this.blockWeights = new float[PostingList.BLOCK_SIZE];
+        }
+        this.size = postingList.size();
+        this.index = 0;
+        this.shallowBlock = 0;
+
+        this.blockMaxWeights = blockMaxWeights != null
+            ? blockMaxWeights
+            : CalculateMaxWeightsAction.calculateBlockMaxWeights(postingList);
+
+        float max = 0;
+        for (float blockMaxWeight : this.blockMaxWeights) {
+            max = Math.max(max, blockMaxWeight);
+        }
+        this.maxWeight = max;
+
+        readDocId();
+    }
+
+    public PostingCursor(List<D> postingList) {
+        this(postingList, null);
+    }
+
+    /**
+     * Getter of the document id of the current posting
+     *
+     * @return the document id or END if all postings were iterated
+     */
+    public int docId() {
+        return docId;
+    }
+
+    /**
+     * Getter of the weight of the current posting
+     */
+    public float weight() {
+        if (primitivePostingList != null) {
+            return primitivePostingList.getWeight(index);
+        }
+        else if (blockPostingList != null) {
+            return blockWeights[index % PostingList.BLOCK_SIZE]; // the block was decoded when reading the document id
+        }
+
+        return postingList.get(index).getWeight();
+    }
+
+    /**
+     * Getter of the positions of the current posting. Positions are
+     *  only read when requested, so they should only be requested
+     *  for the documents that need them
+     *
+     * @return the positions of the term on the document, sorted
+     * @throws IllegalStateException if the documents of the posting list don't have positions
+     */
+    public int[] positions() {
+        if (postingList instanceof PositionalPostingList) {
+            return ((PositionalPostingList) postingList).getPositions(index);
+        }
+
+        D document = postingList.get(index);
+        Object extraInfo = document instanceof DocumentWithInfo
+            ? ((DocumentWithInfo<?, ?>) document).getExtraInfo()
+            : null;
+        if (!(extraInfo instanceof List)) {
+            throw new IllegalStateException("Posting list without positions");
+        }
+
+        List<?> positions = (List<?>) extraInfo;
+
+        int[] positionsArray = new int[positions.size()];
+        for (int p = 0; p < positionsArray.length; p++) {
+            positionsArray[p] = (Integer) positions.get(p);
+        }
+
+        return positionsArray;
+    }
+
+    /**
+     * Moves to the next posting
+     */
+    public void next() {
+        index++;
+
+        readDocId();
+    }
+
+    /**
+     * Moves to the first posting with a document id equal
+     *  or greater than a target document id. Since postings are
+     *  sorted by document id, an exponential search followed by
+     *  a binary search is done starting at the current posting.
+     * On block posting lists the skip entries are used first to
+     *  find the block of the target, so the search only decodes
+     *  that block
+     *
+     * @param target document id
+     */
+    public void advance(int target) {
+        if (docId >= target) {
+            return;
+        }
+
+        // postings after this index aren't searched
+        int limit = size;
+
+        if (blockPostingList != null) {
+            int block = index / PostingList.BLOCK_SIZE;
+
+            if (blockPostingList.getBlockLastDocId(block) < target) {
+                block = blockPostingList.findBlock(target, block + 1);
+
+                if (block == blockPostingList.getBlocksCount()) {
+                    index = size;
+                    readDocId();
+                    return;
+                }
+
+                index = block * PostingList.BLOCK_SIZE;
+            }
+
+            // the target is on this block
+            limit = Math.min((block + 1) * PostingList.BLOCK_SIZE, size);
+
+            if (docIdAt(index) >= target) {
+                readDocId();
+                return;
+            }
+        }
+
+        // exponential search for a range [low, high] where the target is
+        int low = index;
+        int step = 1;
+        int high = index + step;
+        while (high < limit && docIdAt(high) < target) {
+            low = high;
+            step <<= 1;
+            high = index + step;
+        }
+        high = Math.min(high, limit);
+
+        // binary search for the first posting >= target on ]low, high]
+        while (low + 1 < high) {
+            int middle = (low + high) >>> 1;
+
+            if (docIdAt(middle) < target) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        index = high;
+
+        readDocId();
+    }
+
+    /**
+     * Getter of the number of postings of the posting list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter of the maximum weight of all postings
+     */
+    public float maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Moves the look ahead to the block where the first posting with a
+     *  document id equal or greater than the target is, without moving
+     *  the cursor, and gets the maximum weight of that block
+     *
+     * @param target document id, not lower than the current document id
+     * @return the maximum weight of the block or 0 if there's no such block
+     */
+    public float blockMaxWeight(int target) {
+        shallowBlock = Math.max(shallowBlock, index / PostingList.BLOCK_SIZE);
+
+        while (shallowBlock < blockMaxWeights.length && lastDocIdOfBlock(shallowBlock) < target) {
+            shallowBlock++;
+        }
+
+        return shallowBlock < blockMaxWeights.length ? blockMaxWeights[shallowBlock] : 0;
+    }
+
+    /**
+     * Getter of the last document id of the block where
+     *  the last call of blockMaxWeight looked ahead
+     *
+     * @return the document id or END if there's no such block
+     */
+    public int blockLastDocId() {
+        return shallowBlock < blockMaxWeights.length ? lastDocIdOfBlock(shallowBlock) : END;
+    }
+
+    /**
+     * Getter of the maximum weight of the block of the current posting
+     *
+     * @return the maximum weight or 0 if all postings were iterated
+     */
+    public float currentBlockMaxWeight() {
+        return index < size ? blockMaxWeights[index / PostingList.BLOCK_SIZE] : 0;
+    }
+
+    /**
+     * Checks if the current posting is the first of a block
+     */
+    public boolean isAtBlockStart() {
+        return index % PostingList.BLOCK_SIZE == 0;
+    }
+
+    private int lastDocIdOfBlock(int block) {
+        if (blockPostingList != null) {
+            return blockPostingList.getBlockLastDocId(block);
+        }
+
+        return docIdAt(Math.min((block + 1) * PostingList.BLOCK_SIZE, size) - 1);
+    }
+
+    private int docIdAt(int postingIndex) {
+        if (primitivePostingList != null) {
+            return primitivePostingList.getDocId(postingIndex);
+        }
+        else if (blockPostingList != null) {
+            int block = postingIndex / PostingList.BLOCK_SIZE;
+
+            if (block != decodedBlock) {
+                blockPostingList.decodeBlock(block, blockDocIds, blockWeights);
+                decodedBlock = block;
+            }
+
+            return blockDocIds[postingIndex % PostingList.BLOCK_SIZE];
+        }
+
+        return postingList.get(postingIndex).getDocId();
+    }
+
+    private void readDocId() {
+        docId = index >= size ? END : docIdAt(index);
+    }
+
+}
@@ -0,0 +1,168 @@
+package searcher;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Scores the documents score at a time (Anh and Moffat) over impact
+ *  ordered posting lists, where each block of postings is a segment with
+ *  weights equal or lower than the ones of the previous segment.
+ * The segments of all the query terms are read by decreasing impact, the
+ *  query weight of the term times the maximum weight of the segment, and
+ *  each posting adds its contribution to the accumulator of its document.
+ * The sum of the impacts of the next segment of each term bounds what any
+ *  document can still gain, so once the difference between the scores of
+ *  each pair of consecutive documents of the top K, and between the K-th
+ *  and the next one, beats that bound, no posting left can change the
+ *  top K nor its order and the rest of the postings aren't read.
+ * Optionally a maximum number of postings to read per query can be set,
+ *  bounding the latency of a query at the cost of returning, when it's
+ *  reached, the best documents found so far.
+ * Accumulators are summed by the order the segments are read, so scores
+ *  can differ from the ones of the document at a time scorers on the
+ *  last bits of the float
+ */
+public class ScoreAtATimeScorer implements DocumentScorer {
+
+    /**
+     * Differences between scores are compared with a relative slack, so
+     *  the rounding of the float sums can't change the order of two documents
+     *  whose difference was considered enough
+     */
+    private static final double UPPER_BOUND_SLACK = 1e-4;
+
+    /**
+     * Maximum number of postings to read per query, 0 for no maximum
+     */
+    private final int postingsBudget;
+
+    public ScoreAtATimeScorer() {
+        this(0);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param postingsBudget maximum number of postings to read per query, 0 for no maximum
+     */
+    public ScoreAtATimeScorer(int postingsBudget) {
+        this.postingsBudget = postingsBudget;
+    }
+
+    @Override
+    public int[] score(PostingCursor<?>[] cursors, float[] queryWeights, int K) {
+        float[] accumulators = new float[1024];
+
+        // documents with an accumulator, to only go through those
+        BitSet scored = new BitSet();
+        int[] scoredDocIds = new int[1024];
+        int scoredCount = 0;
+
+        long postingsRead = 0;
+        long postingsSinceLastCheck = 0;
+
+        while (true) {
+            // find the segment with the highest impact and
+            //  the maximum that all segments left can add to a document
+            int best = -1;
+            double bestImpact = 0;
+            double remaining = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i].docId() == PostingCursor.END) {
+                    continue;
+                }
+
+                double impact = (double) queryWeights[i] * cursors[i].currentBlockMaxWeight();
+                remaining += impact;
+
+                if (best == -1 || impact > bestImpact) {
+                    best = i;
+                    bestImpact = impact;
+                }
+            }
+
+            if (best == -1) {
+                break; // all postings were read
+            }
+
+            if (postingsBudget > 0 && postingsRead >= postingsBudget) {
+                break;
+            }
+
+            // checking requires going through all accumulators, so it's only done
+            //  after reading at least half as many postings as there are accumulators
+            if (scoredCount > K && postingsSinceLastCheck >= scoredCount / 2) {
+                postingsSinceLastCheck = 0;
+
+                int[] topDocuments = bestDocuments(accumulators, scoredDocIds, scoredCount, K + 1);
+
+                if (isRankingFinal(accumulators, topDocuments, remaining)) {
+                    return Arrays.copyOf(topDocuments, K);
+                }
+            }
+
+            // read all the postings of the segment
+            PostingCursor<?> cursor = cursors[best];
+            float queryWeight = queryWeights[best];
+            do {
+                int docId = cursor.docId();
+
+                if (docId >= accumulators.length) {
+                    accumulators = Arrays.copyOf(accumulators, Math.max(accumulators.length * 2, docId + 1));
+                }
+
+                if (!scored.get(docId)) {
+                    scored.set(docId);
+
+                    if (scoredCount == scoredDocIds.length) {
+                        scoredDocIds = Arrays.copyOf(scoredDocIds, scoredCount * 2);
+                    }
+                    scoredDocIds[scoredCount++] = docId;
+                }
+
+                accumulators[docId] += queryWeight * cursor.weight();
+
+                cursor.next();
+                postingsRead++;
+                postingsSinceLastCheck++;
+            } while (cursor.docId() != PostingCursor.END && !cursor.isAtBlockStart());
+        }
+
+        return bestDocuments(accumulators, scoredDocIds, scoredCount, K);
+    }
+
+    /**
+     * Checks if the postings left can't change the top K documents nor their order
+     *
+     * @param topDocuments best K + 1 documents, from the best to the worst
+     * @param remaining maximum score that any document can still gain
+     */
+    private static boolean isRankingFinal(float[] accumulators, int[] topDocuments, double remaining) {
+        for (int i = 0; i + 1 < topDocuments.length; i++) {
+            double nextMaximum = (double) accumulators[topDocuments[i + 1]] + remaining;
+
+            if (accumulators[topDocuments[i]] <= nextMaximum * (1 + UPPER_BOUND_SLACK)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Selects the documents with the highest accumulators
+     *
+     * @param count maximum number of documents to select
+     * @return the document ids from the best to the worst
+     */
+    private static int[] bestDocuments(float[] accumulators, int[] scoredDocIds, int scoredCount, int count) {
+        TopKHeap topDocuments = new TopKHeap(count);
+
+        for (int i = 0; i < scoredCount; i++) {
+            topDocuments.offer(scoredDocIds[i], accumulators[scoredDocIds[i]]);
+        }
+
+        return topDocuments.drainSorted();
+    }
+
+}
@@ -1,7 +1,7 @@
 package searcher;
 
 import data_containers.indexer.structures.Document;
-import data_containers.indexer.structures.TermInfoBase;
+import data_containers.indexer.structures.TermInfoWithIDF;
 import data_containers.indexer.weights_calculation.searching.SearchingCalculations;
 import io.data_containers.loaders.bulk_load.document_registry.DocRegBulkLoader;
 import io.data_containers.loaders.bulk_load.indexer.IndexerBulkLoader;
@@ -9,56 +9,106 @@ import tokenizer.BaseTokenizer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
+/**
+ * Ranked retrieval searcher over the segments of an index.
+ * Queries can be answered by several threads at the same time: each thread
+ *  gets its own tokenizer and weight calculations, since both keep state
+ *  between calls, and everything else a query needs (cursors, scorers,
+ *  accumulators) is created per query. The indexers and document registries
+ *  in memory are kept on segment caches shared by all threads
+ */
 public class Searcher<D extends Document<Float>,
-    I extends TermInfoBase<Float, D>
+    I extends TermInfoWithIDF<Float, D>
     > {
 
-    private BaseTokenizer tokenizer;
+    /**
+     * Text between double quotes on a query
+     */
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+
+    /**
+     * Tokenizer of each thread
+     */
+    private ThreadLocal<BaseTokenizer> tokenizers;
 
     /**
-     * Defines variant to calculate the weights
+     * Defines variant to calculate the weights. One per thread
      */
-    private SearchingCalculations<String, Float, D, I> calculations;
+    private ThreadLocal<SearchingCalculations<String, Float, D, I>> calculations;
 
     private TreeMap<Integer, String> docRegMetadata;
 
     private TreeMap<String, String> indexerMetadata;
 
-    private TreeMap<Integer, DocRegBulkLoader.DocumentRegistry> docRegsInMemory;
+    /**
+     * Document registries in memory, by the first document id of each one
+     */
+    private SegmentCache<Integer, DocRegBulkLoader.DocumentRegistry> docRegsCache;
+
+    /**
+     * Indexers in memory, by the first term of each one
+     */
+    private SegmentCache<String, Map<String, Object>> indexersCache;
+
+    /**
+     * Measures the memory retained by an entry of an indexer, to update the
+     *  weight of the indexers on the cache as their entries are parsed.
+     *  Null if the weight of the indexers doesn't change
+     */
+    private ToLongFunction<Object> entryMeter;
 
-    private TreeMap<String, Map<String, Object>> indexersInMemory;
+    /**
+     * Results of the queries already answered, by the terms of the query
+     *  after tokenized with their frequency weights, the phrases and K.
+     *  Null if the results aren't cached
+     */
+    private SegmentCache<String, List<Integer>> resultsCache;
+
+    /**
+     * Term information, with the posting list, of the terms already
+     *  requested, by term, kept even if the indexer of the term is
+     *  evicted. Null if the term information is only kept by the indexers
+     */
+    private SegmentCache<String, I> termsCache;
 
     private DocRegBulkLoader docRegLoader;
 
     private IndexerBulkLoader<String, Float, D, I> indexerLoader;
 
-    private int maxDocRegsInMemory;
-
-    private int maxIndexersInMemory;
+    /**
+     * Maximum number of documents to return
+     */
+    private int K;
 
     /**
-     * Stores the number of times a document registry file was consulted
+     * Defines how the documents are scored
      */
-    private Map<Integer, Integer> docRegsRanks;
+    private DocumentScorer scorer;
 
     /**
-     * Stores the number of times a indexer file was consulted with success
+     * If quoted phrases of the queries are searched as phrases.
+     *  Requires posting lists with positions
      */
-    private Map<String, Integer> indexersRanks;
+    private boolean phraseQueries;
 
     /**
-     * Maximum number of documents to return
+     * Weight of the proximity of the query terms on the score of the
+     *  documents (see PositionalScorer). Requires posting lists with
+     *  positions. 0 disables it
      */
-    private int K;
+    private float proximityWeight;
 
     public Searcher(
         BaseTokenizer tokenizer,
@@ -71,58 +121,239 @@ public class Searcher<D extends Document<Float>,
         int maxIndexersInMemory,
         int K
         ) {
-        this.tokenizer = tokenizer;
-        this.calculations = calculations;
+        this(
+            tokenizer,
+            calculations,
+            docRegMetadata,
+            indexerMetadata,
+            docRegLoader,
+            indexerLoader,
+            maxDocRegsInMemory,
+            maxIndexersInMemory,
+            K,
+            new ExhaustiveScorer()
+        );
+    }
+
+    public Searcher(
+        BaseTokenizer tokenizer,
+        SearchingCalculations<String, Float, D, I> calculations,
+        TreeMap<Integer, String> docRegMetadata,
+        TreeMap<String, String> indexerMetadata,
+        DocRegBulkLoader docRegLoader,
+        IndexerBulkLoader<String, Float, D, I> indexerLoader,
+        int maxDocRegsInMemory,
+        int maxIndexersInMemory,
+        int K,
+        DocumentScorer scorer
+        ) {
+        this(
+            tokenizer,
+            calculations,
+            docRegMetadata,
+            indexerMetadata,
+            docRegLoader,
+            indexerLoader,
+            maxDocRegsInMemory,
+            maxIndexersInMemory,
+            K,
+            scorer,
+            false,
+            0
+        );
+    }
+
+    /**
+     * Constructor limiting the number of indexers and document
+     *  registries in memory, evicting the least recently used
+     */
+    public Searcher(
+        BaseTokenizer tokenizer,
+        SearchingCalculations<String, Float, D, I> calculations,
+        TreeMap<Integer, String> docRegMetadata,
+        TreeMap<String, String> indexerMetadata,
+        DocRegBulkLoader docRegLoader,
+        IndexerBulkLoader<String, Float, D, I> indexerLoader,
+        int maxDocRegsInMemory,
+        int maxIndexersInMemory,
+        int K,
+        DocumentScorer scorer,
+        boolean phraseQueries,
+        float proximityWeight
+        ) {
+        this(
+            () -> tokenizer,
+            () -> calculations,
+            docRegMetadata,
+            indexerMetadata,
+            docRegLoader,
+            indexerLoader,
+            new LRUSegmentCache<>(maxDocRegsInMemory, (firstDocId, documentRegistry) -> 1),
+            new LRUSegmentCache<>(maxIndexersInMemory, (firstTerm, invertedIndex) -> 1),
+            null,
+            null,
+            null,
+            K,
+            scorer,
+            phraseQueries,
+            proximityWeight
+        );
+    }
+
+    /**
+     * Constructor for searchers used by several threads. The tokenizer
+     *  and the weight calculations keep state between calls, so the
+     *  factories are called once by each thread that queries the index.
+     *  The scorer and the caches are shared by all threads
+     *
+     * @param tokenizerFactory creates the tokenizer of each thread
+     * @param calculationsFactory creates the weight calculations of each thread
+     * @param docRegsCache where the document registries loaded are kept
+     * @param indexersCache where the indexers loaded are kept
+     * @param entryMeter measures the memory retained by an entry of an indexer, raw or
+     *  parsed, to add the memory of the entries parsed to the weight of the indexers.
+     *  Null if the weight of the indexers doesn't change
+     * @param resultsCache where the results of the queries are kept, so queries with the
+     *  same terms, after tokenized, are only answered once. Null to not cache the results
+     * @param termsCache where the term information of the terms requested is kept, apart
+     *  from their indexers. Null to only keep the indexers
+     */
+    public Searcher(
+        Supplier<BaseTokenizer> tokenizerFactory,
+        Supplier<SearchingCalculations<String, Float, D, I>> calculationsFactory,
+        TreeMap<Integer, String> docRegMetadata,
+        TreeMap<String, String> indexerMetadata,
+        DocRegBulkLoader docRegLoader,
+        IndexerBulkLoader<String, Float, D, I> indexerLoader,
+        SegmentCache<Integer, DocRegBulkLoader.DocumentRegistry> docRegsCache,
+        SegmentCache<String, Map<String, Object>> indexersCache,
+        ToLongFunction<Object> entryMeter,
+        SegmentCache<String, List<Integer>> resultsCache,
+        SegmentCache<String, I> termsCache,
+        int K,
+        DocumentScorer scorer,
+        boolean phraseQueries,
+        float proximityWeight
+        ) {
+        this.tokenizers = ThreadLocal.withInitial(tokenizerFactory);
+        this.calculations = ThreadLocal.withInitial(calculationsFactory);
         this.docRegMetadata = docRegMetadata;
         this.indexerMetadata = indexerMetadata;
         this.docRegLoader = docRegLoader;
         this.indexerLoader = indexerLoader;
-        this.maxDocRegsInMemory = maxDocRegsInMemory;
-        this.maxIndexersInMemory = maxIndexersInMemory;
+        this.docRegsCache = docRegsCache;
+        this.indexersCache = indexersCache;
+        this.entryMeter = entryMeter;
+        this.resultsCache = resultsCache;
+        this.termsCache = termsCache;
         this.K = K;
-
-        this.docRegsInMemory = new TreeMap<>();
-        this.indexersInMemory = new TreeMap<>();
-
-        this.indexersRanks = new HashMap<>();
-        this.docRegsRanks = new HashMap<>();
+        this.scorer = scorer;
+        this.phraseQueries = phraseQueries;
+        this.proximityWeight = proximityWeight;
     }
 
     /**
-     * Method to execute the ranked retrieval search
+     * Method to execute the ranked retrieval search.
+     * With phrase queries, the text between double quotes
+     *  is a phrase that the documents must have.
+     * With a results cache, queries with the same terms after tokenized
+     *  are only answered once, and the list returned can't be modified.
+     * Can be called by several threads at the same time
      */
     public List<Integer> queryIndex(String query) {
+        BaseTokenizer tokenizer = tokenizers.get();
+        SearchingCalculations<String, Float, D, I> calculations = this.calculations.get();
+
+        List<List<String>> phrases = phraseQueries ? parsePhrases(tokenizer, query) : Collections.emptyList();
+
         Map<String, Float> termFrequencyWeights = calculations.calculateTermFrequencyWeights(
             tokenizer.tokenizeString(query)
         );
 
-        List<DocumentRank> relevantDocuments;
+        String resultsKey = null;
+        if (resultsCache != null) {
+            resultsKey = getResultsKey(termFrequencyWeights, phrases);
+
+            List<Integer> results = resultsCache.getIfPresent(resultsKey);
+            if (results != null) {
+                return results;
+            }
+        }
+
+        int[] relevantDocuments;
         {List<String> terms = new ArrayList<>(termFrequencyWeights.size());
-        List<List<D>> postingLists = new ArrayList<>(termFrequencyWeights.size());
-        getPostingListsOfQueryTerms(termFrequencyWeights, terms, postingLists);
+        List<I> termInfos = new ArrayList<>(termFrequencyWeights.size());
+        getPostingListsOfQueryTerms(calculations, termFrequencyWeights, terms, termInfos);
+
+        relevantDocuments = getRelevantDocuments(terms, termInfos, termFrequencyWeights, phrases);}
 
-        relevantDocuments = getRelevantDocuments(terms, postingLists, termFrequencyWeights);}
+        List<Integer> results = translateDocumentIds(relevantDocuments);
+
+        if (resultsCache != null) {
+            results = Collections.unmodifiableList(results);
+            resultsCache.put(resultsKey, results);
+        }
 
-        return translateDocumentIds(relevantDocuments);
+        return results;
+    }
+
+    /**
+     * Creates the key of the results of a query on the results cache: the terms
+     *  sorted with their frequency weights, the phrases and K. Queries with the
+     *  same terms after tokenized, in any order, have the same results
+     */
+    private String getResultsKey(Map<String, Float> termFrequencyWeights, List<List<String>> phrases) {
+        StringBuilder key = new StringBuilder();
+
+        termFrequencyWeights.keySet().stream().sorted(String::compareTo).forEach(term ->
+            key.append(term).append(':').append(termFrequencyWeights.get(term)).append(';')
+        );
+
+        for (List<String> phrase : phrases) {
+            key.append('"').append(String.join(" ", phrase)).append('"');
+        }
+
+        return key.append('#').append(K).toString();
+    }
+
+    /**
+     * Extracts the phrases of a query, the text between double quotes.
+     *  Each phrase is tokenized like the rest of the query, so terms
+     *  removed by the tokenizer are also skipped on the positions
+     *  stored while indexing
+     *
+     * @return the terms of each phrase with more than one term
+     */
+    private List<List<String>> parsePhrases(BaseTokenizer tokenizer, String query) {
+        List<List<String>> phrases = new ArrayList<>();
+
+        Matcher phraseMatcher = PHRASE.matcher(query);
+        while (phraseMatcher.find()) {
+            List<String> phrase = tokenizer.tokenizeString(phraseMatcher.group(1));
+
+            if (phrase.size() > 1) {
+                phrases.add(new ArrayList<>(phrase));
+            }
+        }
+
+        return phrases;
     }
 
     /**
      * Consults the indexers in memory, and disk if necessary, and gets the posting lists
      *  of the terms present on the query
      */
-    private void getPostingListsOfQueryTerms(Map<String, Float> termFrequencyWeights, List<String> terms, List<List<D>> postingLists) {
+    private void getPostingListsOfQueryTerms(SearchingCalculations<String, Float, D, I> calculations,
+                                             Map<String, Float> termFrequencyWeights,
+                                             List<String> terms, List<I> termInfos) {
         // here we are sorting the term to try reusing segments loaded from disk
         termFrequencyWeights.keySet().stream().sorted(String::compareTo).forEach(term -> {
             float frequency = termFrequencyWeights.get(term);
-            Map.Entry<String, Map<String, Object>> indexerEntry = indexersInMemory.floorEntry(term);
-
-            I termInfo = indexerEntry == null ? null : indexerLoader.getValue(indexerEntry.getValue(), term);
 
-            if (indexerEntry != null && termInfo != null) {
-                // in memory
-
-                // increase indexer usages
-                indexersRanks.put(indexerEntry.getKey(), indexersRanks.get(indexerEntry.getKey()) + 1);
+            I termInfo = getTermInfo(term);
+            if (termInfo != null) {
+                terms.add(term);
+                termInfos.add(termInfo);
 
                 termFrequencyWeights.put( // apply idf
                     term,
@@ -131,61 +362,10 @@ public class Searcher<D extends Document<Float>,
                         termInfo
                     )
                 );
-
-                terms.add(term);
-                postingLists.add(termInfo.getPostingList());
-            }
-            else {
-                // not in memory
-
-                Map.Entry<String, String> indexFilenameEntry = indexerMetadata.floorEntry(term);
-                String indexFilename = indexFilenameEntry == null ? null : indexFilenameEntry.getValue();
-
-                if (indexFilename != null && !indexersInMemory.containsKey(indexFilename)) {
-                    // load from disk
-
-                    checkIfCanLoadIndexerFromDisk();
-
-                    Map<String, Object> invertedIndex = null;
-                    try {
-                        invertedIndex = indexerLoader.load(indexFilename);
-                    } catch (IOException e) {
-                        System.err.println("ERROR while loading indexer file " + indexFilename);
-                        e.printStackTrace();
-                        System.exit(2);
-                    }
-
-                    // store index in memory
-                    indexersInMemory.put(indexFilenameEntry.getKey(), invertedIndex);
-
-                    if (!indexersRanks.containsKey(indexFilenameEntry.getKey())) {
-                        indexersRanks.put(indexFilenameEntry.getKey(), 0);
-                    }
-
-                    termInfo = indexerLoader.getValue(invertedIndex, term);
-                    if (termInfo != null) {
-                        terms.add(term);
-                        postingLists.add(termInfo.getPostingList());
-
-                        termFrequencyWeights.put( // apply idf
-                            term,
-                            calculations.applyDocumentFrequencyWeights(
-                                frequency,
-                                termInfo
-                            )
-                        );
-
-                        // increase indexer usages
-                        indexersRanks.put(indexFilenameEntry.getKey(), indexersRanks.get(indexFilenameEntry.getKey()) + 1);
-                    }
-                    /*else {
-                        // term wasn't indexed
-                    }*/
-                }
-                /*else {
-                    // term wasn't indexed
-                }*/
             }
+            /*else {
+                // term wasn't indexed
+            }*/
         });
 
         // apply normalization on query
@@ -200,219 +380,225 @@ public class Searcher<D extends Document<Float>,
     }
 
     /**
-     * Iterates over the posting lists to calculate the weights for each document
-     * To get the terms for each document we take advantage of the posting lists
-     *  being sorted by document id get the documents with common lowest document ids.
-     * This way we only need to iterate over the posting lists one time to calculate the
-     *  weights for the documents
+     * Gets the term information of a term from the terms cache or, if it isn't
+     *  there, from the indexer of the term, adding it to the terms cache.
+     *  Terms on the terms cache don't need their indexer in memory
+     *
+     * @return the term information or null if the term wasn't indexed
      */
-    private List<DocumentRank> getRelevantDocuments(List<String> terms, List<List<D>> postingLists, Map<String, Float> termFrequencyWeights) {
-        List<Integer> postingListsCurrentIndexes = new ArrayList<>(postingLists.size());
-        for (int i = 0; i < postingLists.size(); i++) {
-            postingListsCurrentIndexes.add(0);
-        }
-
-        List<DocumentRank> relevantDocuments = new ArrayList<>();
-
-        // while the end of all posting lists wasn't reached
-        while (!indexesAtEnd(postingListsCurrentIndexes, terms, postingLists)) {
-            List<Integer> idxWithDocWithLowerID = new ArrayList<>(terms.size());
-
-            // find the first document(s) among all the posting lists with
-            //  the lowest docId
-            idxWithDocWithLowerID.add(0);
-            int lowestDocId = postingLists.get(0).get(postingListsCurrentIndexes.get(0)).getDocId();
-            for (int i = 1; i < postingListsCurrentIndexes.size(); i++) {
-                int docId = postingLists.get(i).get(postingListsCurrentIndexes.get(i)).getDocId();
-                if (docId < lowestDocId) {
-                    idxWithDocWithLowerID.clear();
-                    idxWithDocWithLowerID.add(i);
-                    lowestDocId = docId;
-                }
-                else if (docId == lowestDocId) {
-                    idxWithDocWithLowerID.add(i);
-                }
+    private I getTermInfo(String term) {
+        if (termsCache != null) {
+            I termInfo = termsCache.getIfPresent(term);
+            if (termInfo != null) {
+                return termInfo;
             }
+        }
 
-            // to reduce the number of documents considered uncomment the if block
-            //if (idxWithDocWithLowerID.size() >= termFrequencyWeights.size() * 0.5) {
-                // calculate the score for this document
-                float cumulativeScore = 0;
-                int docId = postingLists.get(idxWithDocWithLowerID.get(0)).get(postingListsCurrentIndexes.get(idxWithDocWithLowerID.get(0))).getDocId();
-
-                for (Integer idx : idxWithDocWithLowerID) {
-                    float documentWeightForTerm = postingLists.get(idx).get(postingListsCurrentIndexes.get(idx)).getWeight();
-                    float queryTermWeight = termFrequencyWeights.get(terms.get(idx));
-
-                    cumulativeScore += queryTermWeight * documentWeightForTerm;
-                }
+        Map.Entry<String, String> indexFilenameEntry = indexerMetadata.floorEntry(term);
+        if (indexFilenameEntry == null) {
+            return null; // term wasn't indexed
+        }
 
-                // and add it to the relevant documents list
-                relevantDocuments.add(new DocumentRank(docId, cumulativeScore));
-            //}
+        I termInfo = indexerLoader.getValue(getIndexer(indexFilenameEntry), term);
 
-            for (Integer idx : idxWithDocWithLowerID) {
-                int currentIdx = postingListsCurrentIndexes.get(idx);
-                postingListsCurrentIndexes.set(idx, currentIdx + 1);
-            }
+        if (termInfo != null && termsCache != null) {
+            termsCache.put(term, termInfo);
         }
 
-        relevantDocuments.sort((doc1, doc2) ->
-            -doc1.weight.compareTo(doc2.weight) // decreasing order
-        );
-
-        return relevantDocuments.subList(0, Math.min(relevantDocuments.size(), K));
+        return termInfo;
     }
 
     /**
-     * Convert the internal id of the relevant document into their respective
-     *  identifier by consulting the document registry files
+     * Gets an indexer from the cache, loading it from disk if it isn't there.
+     *  With an entry meter, the indexers loaded report the memory added by
+     *  their entries parsed to the cache
+     *
+     * @param indexFilenameEntry first term of the indexer and its file
+     * @return the loaded indexer
      */
-    private List<Integer> translateDocumentIds(List<DocumentRank> relevantDocuments) {
-        List<Integer> relevantDocumentsIdentifiers = new ArrayList<>(relevantDocuments.size());
-        IntStream.range(0, relevantDocuments.size())
-            .forEach(i -> relevantDocumentsIdentifiers.add(0));
-
-        // here we are sorting the document ids to try reusing segments loaded from disk
-        IntStream.range(0, relevantDocuments.size())
-            .mapToObj(idx -> new DocumentToTranslate(relevantDocuments.get(idx).docId, idx))
-            .sorted(Comparator.comparingInt(doc -> doc.docId))
-            .forEach(docToTranslate -> {
-                int docId = docToTranslate.docId;
-
-                Map.Entry<Integer, DocRegBulkLoader.DocumentRegistry> docRegEntry = docRegsInMemory.floorEntry(docId);
-                Integer identifier = docRegEntry == null ? null : docRegEntry.getValue().translate(docId);
-
-                if (docRegEntry != null && identifier != null) {
-                    // in memory
-                    docRegsRanks.put(docRegEntry.getKey(), docRegsRanks.get(docRegEntry.getKey()) + 1);
-                }
-                else {
-                    // load from disk
-
-                    Map.Entry<Integer, String> docRegFilenameEntry = docRegMetadata.floorEntry(docId);
-                    String docRegFilename = docRegFilenameEntry.getValue();
-
-                    checkIfCanLoadDocRegFromDisk();
+    private Map<String, Object> getIndexer(Map.Entry<String, String> indexFilenameEntry) {
+        return indexersCache.get(indexFilenameEntry.getKey(), firstTerm -> {
+            String indexFilename = indexFilenameEntry.getValue();
+
+            Map<String, Object> invertedIndex = null;
+            try {
+                invertedIndex = indexerLoader.load(indexFilename);
+            } catch (IOException e) {
+                System.err.println("ERROR while loading indexer file " + indexFilename);
+                e.printStackTrace();
+                System.exit(2);
+            }
 
-                    DocRegBulkLoader.DocumentRegistry documentRegistry = null;
-                    try {
-                        documentRegistry = docRegLoader.load(docRegFilename, docRegFilenameEntry.getKey());
-                    } catch (IOException e) {
-                        System.err.println("ERROR while loading document registry file " + docRegFilename);
-                        e.printStackTrace();
-                        System.exit(2);
-                    }
+            if (entryMeter == null) {
+                return invertedIndex;
+            }
 
-                    docRegsInMemory.put(docRegFilenameEntry.getKey(), documentRegistry);
+            return new MeasuredSegment(
+                invertedIndex,
+                entryMeter,
+                (segment, growth) -> indexersCache.addWeight(firstTerm, segment, growth)
+            );
+        });
+    }
 
-                    // increment the number of usage of the file loaded
-                    docRegsRanks.merge(docRegFilenameEntry.getKey(), 1, Integer::sum);
+    /**
+     * Scores the documents of the posting lists of the query terms with
+     *  the scorer of the searcher. Query weights are looked up once per
+     *  term and the postings are read through cursors over the primitive
+     *  posting lists.
+     * If the query has phrases or the proximity is used, the documents
+     *  are scored with a positional scorer instead, restricted to the
+     *  documents with all phrases
+     *
+     * @return the document ids of the best K documents, from the best to the worst
+     */
+    private int[] getRelevantDocuments(List<String> terms, List<I> termInfos, Map<String, Float> termFrequencyWeights,
+                                       List<List<String>> phrases) {
+        int termsCount = terms.size();
+
+        // generic arrays can't be created, and the array only holds cursors of D
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PostingCursor<D>[] cursors = new PostingCursor[termsCount];
+        float[] queryWeights = new float[termsCount];
+        for (int i = 0; i < termsCount; i++) {
+            I termInfo = termInfos.get(i);
+
+            cursors[i] = new PostingCursor<>(termInfo.getPostingList(), termInfo.getBlockMaxWeights());
+            queryWeights[i] = termFrequencyWeights.get(terms.get(i));
+        }
 
-                    identifier = documentRegistry.translate(docId);
+        if (phrases.isEmpty() && proximityWeight == 0) {
+            return scorer.score(cursors, queryWeights, K);
+        }
 
-                }
+        int[] candidates = null;
+        for (List<String> phrase : phrases) {
+            int[] phraseDocuments = getDocumentsWithPhrase(phrase, terms, termInfos);
 
-                relevantDocumentsIdentifiers.set(docToTranslate.idx, identifier);
-            });
+            candidates = candidates == null ? phraseDocuments : intersect(candidates, phraseDocuments);
+        }
 
-        return relevantDocumentsIdentifiers;
+        return new PositionalScorer(proximityWeight, candidates).score(cursors, queryWeights, K);
     }
 
     /**
-     * Checks if it can load another index from disk
-     * If the number of indexers in memory is higher
-     *  than the maximum number then remove half
-     *  of the indexers in memory with smaller ranks
+     * Searches for the documents where the terms of a phrase appear
+     *  one after the other
+     *
+     * @param phrase terms of the phrase
+     * @param terms query terms present on the index
+     * @param termInfos term information of each query term
+     * @return the sorted document ids
      */
-    private void checkIfCanLoadIndexerFromDisk() {
-        if (indexersInMemory.size() < maxIndexersInMemory) {
-            return; // there's still space
+    private int[] getDocumentsWithPhrase(List<String> phrase, List<String> terms, List<I> termInfos) {
+        // generic arrays can't be created, and the array only holds cursors of D
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PostingCursor<D>[] cursors = new PostingCursor[phrase.size()];
+        int[] offsets = new int[phrase.size()];
+
+        for (int i = 0; i < phrase.size(); i++) {
+            int termIndex = terms.indexOf(phrase.get(i));
+            if (termIndex == -1) {
+                return new int[0]; // the term isn't on any document
+            }
+
+            I termInfo = termInfos.get(termIndex);
+
+            cursors[i] = new PostingCursor<>(termInfo.getPostingList(), termInfo.getBlockMaxWeights());
+            offsets[i] = i;
         }
 
-        Set<String> toSave = indexersRanks
-            .entrySet()
-            .stream()
-            .filter(entry -> indexersInMemory.containsKey(entry.getKey()))
-            .sorted((entry1, entry2) ->
-                -entry1.getValue().compareTo(entry2.getValue()) // decreasing order
-            )
-            .limit(Math.floorDiv(maxIndexersInMemory, 2))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toSet());
-
-        indexersInMemory.keySet().removeIf(key ->
-            !toSave.contains(key)
-        );
+        return new PhraseMatcher(cursors, offsets).matchingDocuments();
     }
 
     /**
-     * Checks if it can load another document registry from disk
-     * If the number of document registry in memory is higher
-     *  than the maximum number then remove half
-     *  of the document registry in memory with smaller ranks
+     * Intersects two sorted arrays of document ids
      */
-    private void checkIfCanLoadDocRegFromDisk() {
-        if (docRegsInMemory.size() < maxDocRegsInMemory) {
-            return; // there's still space
+    private static int[] intersect(int[] documents1, int[] documents2) {
+        int[] intersection = new int[Math.min(documents1.length, documents2.length)];
+        int count = 0;
+
+        int i = 0, j = 0;
+        while (i < documents1.length && j < documents2.length) {
+            if (documents1[i] < documents2[j]) {
+                i++;
+            }
+            else if (documents1[i] > documents2[j]) {
+                j++;
+            }
+            else {
+                intersection[count++] = documents1[i];
+                i++;
+                j++;
+            }
         }
 
-        Set<Integer> toSave = docRegsRanks
-            .entrySet()
-            .stream()
-            .parallel()
-            .filter(entry -> docRegsInMemory.containsKey(entry.getKey()))
-            .sorted((entry1, entry2) ->
-                -entry1.getValue().compareTo(entry2.getValue()) // decreasing order
-            )
-            .limit(Math.floorDiv(maxDocRegsInMemory, 2))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toSet());
-
-        docRegsInMemory.keySet().removeIf(key ->
-            !toSave.contains(key)
-        );
+        return Arrays.copyOf(intersection, count);
     }
 
     /**
-     * Checks if all the indexes to go over the posting lists of
-     *  the query terms are at the end.
-     * Removes the ones that reached the end
-     * @return true if all reached the end, false otherwise
+     * Convert the internal id of the relevant document into their respective
+     *  identifier by consulting the document registry files
      */
-    private boolean indexesAtEnd(List<Integer> idxs, List<String> terms, List<List<D>> postingLists) {
-        assert idxs.size() == postingLists.size() && postingLists.size() == terms.size();
+    private List<Integer> translateDocumentIds(int[] relevantDocuments) {
+        List<Integer> relevantDocumentsIdentifiers = new ArrayList<>(relevantDocuments.length);
+        IntStream.range(0, relevantDocuments.length)
+            .forEach(i -> relevantDocumentsIdentifiers.add(0));
+
+        // here we are sorting the document ids to try reusing segments loaded from disk
+        IntStream.range(0, relevantDocuments.length)
+            .mapToObj(idx -> new DocumentToTranslate(relevantDocuments[idx], idx))
+            .sorted(Comparator.comparingInt(doc -> doc.docId))
+            .forEach(docToTranslate -> {
+                int docId = docToTranslate.docId;
 
-        boolean atEnd = true;
+                Map.Entry<Integer, String> docRegFilenameEntry = docRegMetadata.floorEntry(docId);
 
-        for (int i = postingLists.size() - 1; i >= 0; i--) {
-            if (idxs.get(i) < postingLists.get(i).size()) {
-                atEnd = false;
-            }
-            else {
-                idxs.remove(i);
-                terms.remove(i);
-                postingLists.remove(i);
-            }
-        }
+                Integer identifier = getDocumentRegistry(docRegFilenameEntry).translate(docId);
 
-        return atEnd;
+                relevantDocumentsIdentifiers.set(docToTranslate.idx, identifier);
+            });
+
+        return relevantDocumentsIdentifiers;
     }
 
     /**
-     * Auxiliary class to sort document by their weight
+     * Gets a document registry from the cache, loading it from disk if it isn't there
+     *
+     * @param docRegFilenameEntry first document id of the document registry and its file
+     * @return the loaded document registry
      */
-    private static class DocumentRank {
+    private DocRegBulkLoader.DocumentRegistry getDocumentRegistry(Map.Entry<Integer, String> docRegFilenameEntry) {
+        return docRegsCache.get(docRegFilenameEntry.getKey(), firstDocId -> {
+            String docRegFilename = docRegFilenameEntry.getValue();
+
+            DocRegBulkLoader.DocumentRegistry documentRegistry = null;
+            try {
+                documentRegistry = docRegLoader.load(docRegFilename, firstDocId);
+            } catch (IOException e) {
+                System.err.println("ERROR while loading document registry file " + docRegFilename);
+                e.printStackTrace();
+                System.exit(2);
+            }
 
-        private int docId;
+            return documentRegistry;
+        });
+    }
+
+    public SegmentCache<Integer, DocRegBulkLoader.DocumentRegistry> getDocRegsCache() {
+        return docRegsCache;
+    }
 
-        private Float weight;
+    public SegmentCache<String, Map<String, Object>> getIndexersCache() {
+        return indexersCache;
+    }
 
-        public DocumentRank(int docId, float weight) {
-            this.docId = docId;
-            this.weight = weight;
-        }
+    public SegmentCache<String, List<Integer>> getResultsCache() {
+        return resultsCache;
+    }
 
+    public SegmentCache<String, I> getTermsCache() {
+        return termsCache;
     }
 
     /**
@@ -0,0 +1,283 @@
+package searcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Cache of the segments loaded from disk by the searcher, indexers or
+ *  document registries, with a capacity in weight units, usually bytes.
+ * The weight of each segment is given by a weigher when it is loaded.
+ *  Which segments are evicted to make room for a new one is decided by
+ *  the eviction policy of each subclass. Segments that grow after being
+ *  loaded can have their weight increased, which also evicts segments
+ *  if the capacity is exceeded.
+ * Can be used by several threads: lookups and policy updates are done
+ *  holding the lock of the cache, and loads are done without it, so threads
+ *  hitting other segments don't wait for the disk. Segments are loaded
+ *  concurrently, and threads missing a segment already being loaded wait
+ *  for that load instead of loading it again.
+ * Values that are computed instead of loaded, like the results of queries,
+ *  can be looked up and added separately, so they're computed concurrently
+ *
+ * @param <K> type of the key of the segments
+ * @param <V> type of the loaded segments
+ */
+public abstract class SegmentCache<K, V> {
+
+    /**
+     * Maximum sum of the weights of the segments in the cache
+     */
+    protected final long capacity;
+
+    /**
+     * Calculates the weight of a loaded segment
+     */
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+
+    /**
+     * Sum of the weights of the segments in the cache
+     */
+    protected long weightedSize;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Loads of segments in progress, by key
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Main constructor
+     *
+     * @param capacity maximum sum of the weights of the segments in the cache
+     * @param weigher calculates the weight of a loaded segment
+     */
+    public SegmentCache(long capacity, ToLongBiFunction<? super K, ? super V> weigher) {
+        this.capacity = capacity;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Gets a segment from the cache, loading it if it isn't there.
+     *  A thread that misses a segment being loaded by another thread
+     *  waits for that load, which counts as a hit.
+     * A segment heavier than the capacity is returned but not cached
+     *
+     * @param key key of the segment
+     * @param loader loads the segment from disk
+     * @return the segment
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> load;
+        CompletableFuture<V> ownLoad = new CompletableFuture<>();
+
+        synchronized (this) {
+            V value = getEntry(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+
+            load = loads.putIfAbsent(key, ownLoad);
+            if (load == null) {
+                misses++;
+            }
+            else {
+                hits++;
+            }
+        }
+
+        if (load != null) {
+            return awaitLoad(load);
+        }
+
+        try {
+            V value = loader.apply(key);
+            long weight = weigher.applyAsLong(key, value);
+
+            synchronized (this) {
+                if (findEntry(key) == null) {
+                    putEntry(key, value, weight);
+                }
+                loads.remove(key);
+            }
+
+            ownLoad.complete(value);
+
+            return value;
+        } catch (RuntimeException | Error e) {
+            loads.remove(key);
+            ownLoad.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for a segment being loaded by another thread, throwing
+     *  the same exception as the load if it failed
+     */
+    private V awaitLoad(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets a value from the cache without loading it
+     *
+     * @return the value or null if it isn't on the cache
+     */
+    public synchronized V getIfPresent(K key) {
+        V value = getEntry(key);
+
+        if (value != null) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Adds a value to the cache, if another thread didn't add it
+     *  meanwhile, evicting others until it fits on the capacity
+     */
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+
+        synchronized (this) {
+            if (findEntry(key) == null) {
+                putEntry(key, value, weight);
+            }
+        }
+    }
+
+    /**
+     * Adds weight to a segment on the cache, evicting segments while
+     *  the capacity is exceeded. Ignored if the segment was evicted,
+     *  even if the same key was loaded again meanwhile
+     *
+     * @param key key of the segment
+     * @param value the segment that grew
+     * @param extraWeight weight added to the segment, negative if it shrank
+     */
+    public synchronized void addWeight(K key, V value, long extraWeight) {
+        Entry<V> entry = findEntry(key);
+        if (entry == null || entry.value != value) {
+            return;
+        }
+
+        entry.weight += extraWeight;
+        weightedSize += extraWeight;
+
+        evictOverCapacity();
+    }
+
+    /**
+     * Gets a segment of the cache, recording the access
+     *  on the eviction policy
+     *
+     * @return the segment or null if it isn't on the cache
+     */
+    protected abstract V getEntry(K key);
+
+    /**
+     * Adds a segment that isn't on the cache, evicting segments
+     *  until the weight of all of them fits on the capacity
+     */
+    protected abstract void putEntry(K key, V value, long weight);
+
+    /**
+     * Gets the entry of a segment of the cache. The segment was
+     *  just used, so policies may also record the access
+     *
+     * @return the entry or null if the segment isn't on the cache
+     */
+    protected abstract Entry<V> findEntry(K key);
+
+    /**
+     * Evicts segments until the weight of all of them fits on the capacity
+     */
+    protected abstract void evictOverCapacity();
+
+    /**
+     * Registers the weight of a segment added to the cache
+     */
+    protected void added(long weight) {
+        weightedSize += weight;
+    }
+
+    /**
+     * Registers the weight of a segment removed from the cache
+     */
+    protected void evicted(long weight) {
+        weightedSize -= weight;
+        evictions++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Fraction of the lookups that found the value on the cache
+     */
+    public synchronized double getHitRatio() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public synchronized long getWeightedSize() {
+        return weightedSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses (%.2f%% hit ratio), %d evictions",
+            hits, misses, getHitRatio() * 100, evictions);
+    }
+
+    /**
+     * A segment on the cache and its weight
+     */
+    protected static class Entry<V> {
+
+        protected final V value;
+
+        protected long weight;
+
+        protected Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package searcher;
+
+/**
+ * Keeps the K documents with the highest scores seen so far on a
+ *  binary min-heap over primitive arrays, so the worst of the
+ *  best K documents is always at the root and each new document
+ *  is compared only against it.
+ * Documents with the same score are ordered by document id, the
+ *  lowest first, the same order a stable sort of the documents
+ *  by decreasing score would give when scored by increasing
+ *  document id
+ */
+public class TopKHeap {
+
+    private final int[] docIds;
+
+    private final float[] scores;
+
+    private int size;
+
+    /**
+     * Main constructor
+     *
+     * @param K maximum number of documents to keep
+     */
+    public TopKHeap(int K) {
+        docIds = new int[K];
+        scores = new float[K];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the heap already has K documents
+     */
+    public boolean isFull() {
+        return size == docIds.length;
+    }
+
+    /**
+     * Getter of the lowest score a document must beat to enter the heap.
+     *  While the heap isn't full any score enters
+     */
+    public float getThreshold() {
+        return isFull() ? scores[0] : Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Adds a document if it's among the best K documents seen so far
+     *
+     * @param docId of the document
+     * @param score of the document
+     * @return true if the document was added
+     */
+    public boolean offer(int docId, float score) {
+        if (docIds.length == 0) {
+            return false;
+        }
+
+        if (size < docIds.length) {
+            docIds[size] = docId;
+            scores[size] = score;
+            siftUp(size++);
+
+            return true;
+        }
+
+        if (!isWorse(docIds[0], scores[0], docId, score)) {
+            return false;
+        }
+
+        docIds[0] = docId;
+        scores[0] = score;
+        siftDown(0, size);
+
+        return true;
+    }
+
+    /**
+     * Getter of the document ids on the heap, from the best to the worst.
+     *  Empties the heap
+     */
+    public int[] drainSorted() {
+        int count = size;
+
+        // heap sort: the root, the worst, is swapped to the end each time
+        for (int last = size - 1; last > 0; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+        size = 0;
+
+        int[] sorted = new int[count];
+        System.arraycopy(docIds, 0, sorted, 0, count);
+
+        return sorted;
+    }
+
+    /**
+     * Checks if the first document is worse than the second one
+     */
+    private static boolean isWorse(int docId1, float score1, int docId2, float score2) {
+        return score1 < score2 || (score1 == score2 && docId1 > docId2);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (!isWorse(docIds[index], scores[index], docIds[parent], scores[parent])) {
+                break;
+            }
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+
+            if (child + 1 < heapSize && isWorse(docIds[child + 1], scores[child + 1], docIds[child], scores[child])) {
+                child++;
+            }
+
+            if (!isWorse(docIds[child], scores[child], docIds[index], scores[index])) {
+                break;
+            }
+
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int docId = docIds[i];
+        docIds[i] = docIds[j];
+        docIds[j] = docId;
+
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+}
@@ -0,0 +1,181 @@
+package searcher;
+
+/**
+ * Scores the documents document at a time using the WAND dynamic pruning
+ *  (Broder et al.), optionally with block-max upper bounds (Ding and Suel).
+ * The maximum score a term can add to a document is its query weight times
+ *  the maximum weight of its posting list. With the lists sorted by their
+ *  current document id, the pivot is the first list where the sum of these
+ *  upper bounds beats the score of the K-th best document so far: no document
+ *  before the pivot document can enter the top K, so the lists behind are
+ *  moved straight to it. With block-max, before scoring the pivot document
+ *  the bound is recalculated with the maximum weights of the blocks where
+ *  the pivot document would be, which lets whole blocks be skipped.
+ * Only documents that can't enter the top K are skipped, so the result is
+ *  the same as the one of the exhaustive scorer
+ */
+public class WANDScorer implements DocumentScorer {
+
+    /**
+     * Upper bounds are compared with a relative slack, so the rounding of
+     *  the float sums of the scores, done on a different order, can't make
+     *  a document score above a bound that was considered not competitive
+     */
+    private static final double UPPER_BOUND_SLACK = 1e-4;
+
+    private final boolean blockMax;
+
+    /**
+     * Main constructor
+     *
+     * @param blockMax if block-max upper bounds are also used
+     */
+    public WANDScorer(boolean blockMax) {
+        this.blockMax = blockMax;
+    }
+
+    @Override
+    public int[] score(PostingCursor<?>[] cursors, float[] queryWeights, int K) {
+        int termsCount = cursors.length;
+
+        TopKHeap topDocuments = new TopKHeap(K);
+
+        double[] upperBounds = new double[termsCount];
+
+        // indexes of the cursors sorted by their current document id
+        int[] order = new int[termsCount];
+
+        for (int i = 0; i < termsCount; i++) {
+            upperBounds[i] = (double) queryWeights[i] * cursors[i].maxWeight();
+            order[i] = i;
+        }
+
+        while (true) {
+            sortByDocId(order, cursors);
+
+            float threshold = topDocuments.getThreshold();
+
+            // find the pivot
+            int pivot = -1;
+            double bound = 0;
+            for (int p = 0; p < termsCount && cursors[order[p]].docId() != PostingCursor.END; p++) {
+                bound += upperBounds[order[p]];
+
+                if (isCompetitive(bound, threshold)) {
+                    pivot = p;
+                    break;
+                }
+            }
+
+            if (pivot == -1) {
+                break; // no document left can enter the top K
+            }
+
+            int pivotDocId = cursors[order[pivot]].docId();
+
+            // lists after the pivot on the same document also score it
+            while (pivot + 1 < termsCount && cursors[order[pivot + 1]].docId() == pivotDocId) {
+                pivot++;
+            }
+
+            if (blockMax && !isBlockCompetitive(cursors, queryWeights, order, pivot, pivotDocId, threshold)) {
+                // no document until the end of one of the blocks or until the
+                //  document of the list after the pivot can enter the top K
+                int nextDocId = pivot + 1 < termsCount ? cursors[order[pivot + 1]].docId() : PostingCursor.END;
+
+                for (int p = 0; p <= pivot; p++) {
+                    int blockLastDocId = cursors[order[p]].blockLastDocId();
+
+                    if (blockLastDocId != PostingCursor.END && blockLastDocId + 1 < nextDocId) {
+                        nextDocId = blockLastDocId + 1;
+                    }
+                }
+
+                cursors[order[highestUpperBound(order, upperBounds, pivot)]].advance(nextDocId);
+            }
+            else if (cursors[order[0]].docId() == pivotDocId) {
+                // all lists up to the pivot are on the pivot document, score it
+                //  by the order of the terms, the same order of the exhaustive scorer
+                float score = 0;
+                for (int i = 0; i < termsCount; i++) {
+                    if (cursors[i].docId() == pivotDocId) {
+                        score += queryWeights[i] * cursors[i].weight();
+
+                        cursors[i].next();
+                    }
+                }
+
+                topDocuments.offer(pivotDocId, score);
+            }
+            else {
+                // move one of the lists behind the pivot document to it
+                int p = 0;
+                while (cursors[order[p + 1]].docId() < pivotDocId) {
+                    p++;
+                }
+
+                cursors[order[highestUpperBound(order, upperBounds, p)]].advance(pivotDocId);
+            }
+        }
+
+        return topDocuments.drainSorted();
+    }
+
+    /**
+     * Checks if the sum of the block maximum weights, of the lists up to the
+     *  pivot, on the blocks where the pivot document would be can beat the threshold
+     */
+    private static boolean isBlockCompetitive(PostingCursor<?>[] cursors, float[] queryWeights, int[] order,
+                                              int pivot, int pivotDocId, float threshold) {
+        double blockBound = 0;
+
+        for (int p = 0; p <= pivot; p++) {
+            blockBound += (double) queryWeights[order[p]] * cursors[order[p]].blockMaxWeight(pivotDocId);
+        }
+
+        return isCompetitive(blockBound, threshold);
+    }
+
+    private static boolean isCompetitive(double upperBound, float threshold) {
+        return upperBound * (1 + UPPER_BOUND_SLACK) > threshold;
+    }
+
+    /**
+     * Among the first lists, sorted by document id, finds
+     *  the one with the highest upper bound. Moving it skips
+     *  more potential scores
+     *
+     * @param last position of the last list to consider
+     * @return the position of the list on the order
+     */
+    private static int highestUpperBound(int[] order, double[] upperBounds, int last) {
+        int best = 0;
+
+        for (int p = 1; p <= last; p++) {
+            if (upperBounds[order[p]] > upperBounds[order[best]]) {
+                best = p;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Insertion sort, since after moving one or a few lists
+     *  the order is almost the same
+     */
+    private static void sortByDocId(int[] order, PostingCursor<?>[] cursors) {
+        for (int i = 1; i < order.length; i++) {
+            int current = order[i];
+            int docId = cursors[current].docId();
+
+            int j = i - 1;
+            while (j >= 0 && cursors[order[j]].docId() > docId) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+}
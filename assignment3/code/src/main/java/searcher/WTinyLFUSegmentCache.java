@@ -0,0 +1,246 @@
+package searcher;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Segment cache with the W-TinyLFU policy. New segments enter a small
+ *  LRU window. The segments pushed out of the window are candidates to the
+ *  main space, and one is only admitted if it was used more frequently than
+ *  the segments it would evict, so a burst of segments used once doesn't
+ *  push out the segments used by most queries.
+ * The main space is a segmented LRU: admitted segments are on probation,
+ *  and are protected once used again. The segments evicted first are the
+ *  least recently used on probation.
+ * The frequencies are estimated by a count-min sketch of the accesses of
+ *  all segments, including the ones not on the cache, which is halved
+ *  periodically so old accesses count less
+ */
+public class WTinyLFUSegmentCache<K, V> extends SegmentCache<K, V> {
+
+    /**
+     * Fraction of the capacity for the window. Bigger than usual because
+     *  the segments are big compared with the capacity
+     */
+    private static final float WINDOW_FRACTION = 0.2f;
+
+    /**
+     * Fraction of the main space for the protected segments
+     */
+    private static final float PROTECTED_FRACTION = 0.8f;
+
+    private final long windowCapacity;
+
+    private final long protectedCapacity;
+
+    /**
+     * Segments of each space ordered from the least to the most recently used
+     */
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, Entry<V>> protectedSegments = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long windowWeight;
+
+    private long protectedWeight;
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    public WTinyLFUSegmentCache(long capacity, ToLongBiFunction<? super K, ? super V> weigher) {
+        super(capacity, weigher);
+
+        this.windowCapacity = (long) (capacity * WINDOW_FRACTION);
+        this.protectedCapacity = (long) ((capacity - windowCapacity) * PROTECTED_FRACTION);
+    }
+
+    @Override
+    protected V getEntry(K key) {
+        Entry<V> entry = window.get(key);
+        if (entry == null) {
+            entry = protectedSegments.get(key);
+        }
+        if (entry == null) {
+            entry = probation.remove(key);
+            if (entry == null) {
+                return null;
+            }
+
+            // used again, so it is protected
+            protectedSegments.put(key, entry);
+            protectedWeight += entry.weight;
+
+            // the least recently used protected segments go back to probation
+            Iterator<Map.Entry<K, Entry<V>>> leastRecentlyUsed = protectedSegments.entrySet().iterator();
+            while (protectedWeight > protectedCapacity) {
+                Map.Entry<K, Entry<V>> demoted = leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                protectedWeight -= demoted.getValue().weight;
+
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+
+        sketch.increment(key);
+
+        return entry.value;
+    }
+
+    @Override
+    protected void putEntry(K key, V value, long weight) {
+        sketch.increment(key);
+
+        if (weight > capacity) {
+            return; // would never fit
+        }
+
+        window.put(key, new Entry<>(value, weight));
+        windowWeight += weight;
+        added(weight);
+
+        // the least recently used segments of the window are candidates to the main space
+        Iterator<Map.Entry<K, Entry<V>>> leastRecentlyUsed = window.entrySet().iterator();
+        while (windowWeight > windowCapacity) {
+            Map.Entry<K, Entry<V>> candidate = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            windowWeight -= candidate.getValue().weight;
+
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    @Override
+    protected Entry<V> findEntry(K key) {
+        Entry<V> entry = window.get(key);
+        if (entry == null) {
+            entry = probation.get(key);
+        }
+        if (entry == null) {
+            entry = protectedSegments.get(key);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Evicts the least recently used segments on probation, then the
+     *  protected ones and only then the ones on the window.
+     *  The weights of the spaces are recalculated, since the segment
+     *  that grew can be on any of them
+     */
+    @Override
+    protected void evictOverCapacity() {
+        for (LinkedHashMap<K, Entry<V>> space : Arrays.asList(probation, protectedSegments, window)) {
+            Iterator<Entry<V>> leastRecentlyUsed = space.values().iterator();
+            while (weightedSize > capacity && leastRecentlyUsed.hasNext()) {
+                evicted(leastRecentlyUsed.next().weight);
+                leastRecentlyUsed.remove();
+            }
+        }
+
+        windowWeight = weightOf(window);
+        protectedWeight = weightOf(protectedSegments);
+    }
+
+    private long weightOf(LinkedHashMap<K, Entry<V>> space) {
+        long weight = 0;
+        for (Entry<V> entry : space.values()) {
+            weight += entry.weight;
+        }
+
+        return weight;
+    }
+
+    /**
+     * Moves a candidate out of the window into the main space. While it
+     *  doesn't fit, it is compared with the next victim of the main space,
+     *  and the least frequently used of both is evicted
+     */
+    private void admit(K candidateKey, Entry<V> candidate) {
+        int candidateFrequency = sketch.frequency(candidateKey);
+
+        while (weightedSize > capacity) {
+            LinkedHashMap<K, Entry<V>> victimSpace = probation.isEmpty() ? protectedSegments : probation;
+            if (victimSpace.isEmpty()) {
+                evicted(candidate.weight);
+                return; // the window alone is over the capacity
+            }
+
+            Map.Entry<K, Entry<V>> victim = victimSpace.entrySet().iterator().next();
+            if (candidateFrequency <= sketch.frequency(victim.getKey())) {
+                evicted(candidate.weight);
+                return;
+            }
+
+            victimSpace.remove(victim.getKey());
+            if (victimSpace == protectedSegments) {
+                protectedWeight -= victim.getValue().weight;
+            }
+            evicted(victim.getValue().weight);
+        }
+
+        probation.put(candidateKey, candidate);
+    }
+
+    /**
+     * Count-min sketch with 4 rows of counters up to 15. The estimated
+     *  frequency of a key is the lowest of its counters. Once the number of
+     *  increments reaches 10 times the width, all counters are halved
+     */
+    private static class FrequencySketch {
+
+        private static final int WIDTH = 1024;
+
+        private static final int MAX_COUNT = 15;
+
+        private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0xc3a5c85c};
+
+        private final byte[][] counters = new byte[SEEDS.length][WIDTH];
+
+        private int increments;
+
+        private void increment(Object key) {
+            int hash = key.hashCode();
+
+            for (int row = 0; row < SEEDS.length; row++) {
+                int column = column(hash, row);
+
+                if (counters[row][column] < MAX_COUNT) {
+                    counters[row][column]++;
+                }
+            }
+
+            if (++increments == 10 * WIDTH) {
+                for (byte[] rowCounters : counters) {
+                    for (int column = 0; column < WIDTH; column++) {
+                        rowCounters[column] /= 2;
+                    }
+                }
+                increments /= 2;
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counters[row][column(hash, row)]);
+            }
+
+            return frequency;
+        }
+
+        private static int column(int hash, int row) {
+            int mixed = hash * SEEDS[row];
+            mixed ^= mixed >>> 16;
+
+            return mixed & (WIDTH - 1);
+        }
+    }
+
+}
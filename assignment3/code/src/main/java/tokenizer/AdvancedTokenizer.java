@@ -10,19 +10,36 @@ import java.util.regex.Pattern;
 public class AdvancedTokenizer extends BaseTokenizer {
 
     /**
-     * Matcher to remove all punctuation except slashes. Insert spaces
+     * Pattern of all punctuation except slashes
      */
-    private final static Matcher punctWithoutSome = Pattern.compile("[[\\p{Punct}]&&[^-]]").matcher("");
+    private final static Pattern PUNCT_WITHOUT_SOME = Pattern.compile("[[\\p{Punct}]&&[^-]]");
+
+    /**
+     * Pattern of slash
+     */
+    private final static Pattern SLASH = Pattern.compile("-");
+
+    /**
+     * Pattern of terms with just digits
+     */
+    private final static Pattern ALL_NUM = Pattern.compile("^\\p{Digit}+$");
+
+    /**
+     * Matcher to remove all punctuation except slashes. Insert spaces.
+     * Matchers are reused between calls but are not thread safe,
+     *  so each tokenizer has its own
+     */
+    private final Matcher punctWithoutSome = PUNCT_WITHOUT_SOME.matcher("");
 
     /**
      * Matcher of slash to remove it from words, to make it an entire word
      */
-    private final static Matcher slash = Pattern.compile("-").matcher("");
+    private final Matcher slash = SLASH.matcher("");
 
     /**
      * Matcher to remove all terms with just digits
      */
-    private final static Matcher allNum = Pattern.compile("^\\p{Digit}+$").matcher("");
+    private final Matcher allNum = ALL_NUM.matcher("");
 
     /**
      * Default constructor. With no linguistic rules